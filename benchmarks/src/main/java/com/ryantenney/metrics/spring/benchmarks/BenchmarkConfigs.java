@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.benchmarks;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ryantenney.metrics.spring.benchmarks.Targets.GaugeTarget;
+import com.ryantenney.metrics.spring.benchmarks.Targets.MetricsTarget;
+import com.ryantenney.metrics.spring.benchmarks.Targets.MetricsTargetImpl;
+import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
+
+/**
+ * Application contexts used by the benchmarks, one per proxying strategy.
+ */
+public class BenchmarkConfigs {
+
+	private BenchmarkConfigs() {}
+
+	public static Class<?> forProxyType(String proxyType) {
+		if ("jdk".equals(proxyType)) {
+			return JdkProxyConfig.class;
+		}
+		else if ("cglib".equals(proxyType)) {
+			return CglibProxyConfig.class;
+		}
+		else if ("fused".equals(proxyType)) {
+			return FusedProxyConfig.class;
+		}
+		throw new IllegalArgumentException("Unknown proxy type " + proxyType);
+	}
+
+	public static class TargetConfig {
+
+		@Bean
+		public MetricsTarget metricsTarget() {
+			return new MetricsTargetImpl();
+		}
+
+		@Bean
+		public GaugeTarget gaugeTarget() {
+			return new GaugeTarget();
+		}
+
+	}
+
+	@Configuration
+	@EnableMetrics
+	public static class JdkProxyConfig extends TargetConfig {}
+
+	@Configuration
+	@EnableMetrics(proxyTargetClass = true)
+	public static class CglibProxyConfig extends TargetConfig {}
+
+	@Configuration
+	@EnableMetrics(fuseInterceptors = true)
+	public static class FusedProxyConfig extends TargetConfig {}
+
+	@Configuration
+	@EnableMetrics
+	public static class EmptyConfig {}
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.ryantenney.metrics.spring.LongGauge;
+import com.ryantenney.metrics.spring.benchmarks.Targets.GaugeTarget;
+
+/**
+ * Measures the cost of reading gauges registered for {@code @Gauge} and
+ * {@code @CachedGauge} members, as a reporter would on each tick. The
+ * {@code *Primitive} variants read {@code long} gauges without boxing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GaugeBenchmark {
+
+	private AnnotationConfigApplicationContext ctx;
+	private GaugeTarget target;
+
+	private Gauge<?> gaugeField;
+	private Gauge<?> gaugeMethod;
+	private Gauge<?> cachedGaugeMethod;
+
+	@Setup
+	public void setUp() {
+		ctx = new AnnotationConfigApplicationContext(BenchmarkConfigs.JdkProxyConfig.class);
+		target = ctx.getBean(GaugeTarget.class);
+
+		final MetricRegistry metricRegistry = ctx.getBean(MetricRegistry.class);
+		gaugeField = gauge(metricRegistry, "gaugeField");
+		gaugeMethod = gauge(metricRegistry, "gaugeMethod");
+		cachedGaugeMethod = gauge(metricRegistry, "cachedGaugeMethod");
+	}
+
+	private static Gauge<?> gauge(MetricRegistry metricRegistry, String name) {
+		return metricRegistry.getGauges().get(name);
+	}
+
+	@TearDown
+	public void tearDown() {
+		ctx.close();
+	}
+
+	@Benchmark
+	public long baseline() {
+		return target.gaugeMethod();
+	}
+
+	@Benchmark
+	public Object gaugeField() {
+		return gaugeField.getValue();
+	}
+
+	@Benchmark
+	public Object gaugeMethod() {
+		return gaugeMethod.getValue();
+	}
+
+	@Benchmark
+	public long gaugeFieldPrimitive() {
+		return ((LongGauge) gaugeField).getLongValue();
+	}
+
+	@Benchmark
+	public long gaugeMethodPrimitive() {
+		return ((LongGauge) gaugeMethod).getLongValue();
+	}
+
+	@Benchmark
+	public Object cachedGaugeMethod() {
+		return cachedGaugeMethod.getValue();
+	}
+
+}
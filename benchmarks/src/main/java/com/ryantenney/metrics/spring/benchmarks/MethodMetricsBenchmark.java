@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.benchmarks.Targets.MetricsTarget;
+import com.ryantenney.metrics.spring.benchmarks.Targets.MetricsTargetImpl;
+
+/**
+ * Measures the per-call overhead of proxied, annotated methods on a single thread.
+ * {@code baseline} calls the unproxied target, {@code timedByHand} times it
+ * directly, and {@code plain} calls an unannotated method through the proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodMetricsBenchmark {
+
+	@Param({ "jdk", "cglib", "fused" })
+	public String proxyType;
+
+	private AnnotationConfigApplicationContext ctx;
+	private MetricsTarget proxied;
+	private MetricsTarget unproxied;
+	private Timer timer;
+
+	@Setup
+	public void setUp() {
+		ctx = new AnnotationConfigApplicationContext(BenchmarkConfigs.forProxyType(proxyType));
+		proxied = ctx.getBean(MetricsTarget.class);
+		unproxied = new MetricsTargetImpl();
+		timer = new MetricRegistry().timer("timedByHand");
+	}
+
+	@TearDown
+	public void tearDown() {
+		ctx.close();
+	}
+
+	@Benchmark
+	public Object baseline() {
+		return unproxied.timed();
+	}
+
+	@Benchmark
+	public Object timedByHand() {
+		final Timer.Context context = timer.time();
+		try {
+			return unproxied.timed();
+		}
+		finally {
+			context.stop();
+		}
+	}
+
+	@Benchmark
+	public Object plain() {
+		return proxied.plain();
+	}
+
+	@Benchmark
+	public Object timed() {
+		return proxied.timed();
+	}
+
+	@Benchmark
+	public Object sampledTimed() {
+		return proxied.sampledTimed();
+	}
+
+	@Benchmark
+	public Object metered() {
+		return proxied.metered();
+	}
+
+	@Benchmark
+	public Object counted() {
+		return proxied.counted();
+	}
+
+	@Benchmark
+	public Object peakCounted() {
+		return proxied.peakCounted();
+	}
+
+	@Benchmark
+	public Object exceptionMetered() {
+		return proxied.exceptionMetered();
+	}
+
+	@Benchmark
+	public Object allMetrics() {
+		return proxied.allMetrics();
+	}
+
+}
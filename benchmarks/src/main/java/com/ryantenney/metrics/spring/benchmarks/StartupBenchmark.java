@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.ryantenney.metrics.spring.benchmarks.Targets.MetricsTargetImpl;
+
+/**
+ * Measures the time taken to refresh an {@code @EnableMetrics} context as the
+ * number of annotated beans grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int beanCount;
+
+	@Benchmark
+	public AnnotationConfigApplicationContext refresh() {
+		final AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.register(BenchmarkConfigs.EmptyConfig.class);
+		for (int i = 0; i < beanCount; i++) {
+			ctx.registerBeanDefinition("metricsTarget" + i, new RootBeanDefinition(MetricsTargetImpl.class));
+		}
+		ctx.refresh();
+		ctx.close();
+		return ctx;
+	}
+
+}
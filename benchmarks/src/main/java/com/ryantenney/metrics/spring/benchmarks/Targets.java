@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.annotation.CachedGauge;
+import com.codahale.metrics.annotation.Counted;
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Gauge;
+import com.codahale.metrics.annotation.Metered;
+import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.annotation.PeakConcurrency;
+import com.ryantenney.metrics.annotation.Sampled;
+
+/**
+ * Beans exercised by the benchmarks.
+ */
+public class Targets {
+
+	private Targets() {}
+
+	public interface MetricsTarget {
+
+		Object plain();
+
+		Object timed();
+
+		Object sampledTimed();
+
+		Object metered();
+
+		Object counted();
+
+		Object peakCounted();
+
+		Object exceptionMetered();
+
+		Object allMetrics();
+
+	}
+
+	public static class MetricsTargetImpl implements MetricsTarget {
+
+		@Override
+		public Object plain() {
+			return null;
+		}
+
+		@Override
+		@Timed
+		public Object timed() {
+			return null;
+		}
+
+		@Override
+		@Timed
+		@Sampled(100)
+		public Object sampledTimed() {
+			return null;
+		}
+
+		@Override
+		@Metered
+		public Object metered() {
+			return null;
+		}
+
+		@Override
+		@Counted
+		public Object counted() {
+			return null;
+		}
+
+		@Override
+		@Counted
+		@PeakConcurrency
+		public Object peakCounted() {
+			return null;
+		}
+
+		@Override
+		@ExceptionMetered
+		public Object exceptionMetered() {
+			return null;
+		}
+
+		@Override
+		@Timed(name = "allMetrics.timed")
+		@Metered(name = "allMetrics.metered")
+		@Counted(name = "allMetrics.counted")
+		@ExceptionMetered(name = "allMetrics.exceptionMetered")
+		public Object allMetrics() {
+			return null;
+		}
+
+	}
+
+	public static class GaugeTarget {
+
+		@Gauge(name = "gaugeField", absolute = true)
+		private long gaugeField = 4242;
+
+		@Gauge(name = "gaugeMethod", absolute = true)
+		public long gaugeMethod() {
+			return gaugeField;
+		}
+
+		@CachedGauge(name = "cachedGaugeMethod", absolute = true, timeout = 1, timeoutUnit = TimeUnit.HOURS)
+		public long cachedGaugeMethod() {
+			return gaugeField;
+		}
+
+	}
+
+}
@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.processor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes an index of the metric annotated fields and methods of each compiled class, with
+ * the metric name which metrics-spring would choose for each, to
+ * {@code META-INF/metrics-spring/<binary class name>}. At runtime metrics-spring reads the
+ * index in place of scanning the class reflectively, falling back to reflection for classes
+ * which have no index.
+ * <p>The first index written also writes the marker {@code META-INF/metrics-spring.index}; metrics-spring
+ * only looks for the index of a class if its class loader has such a marker, so that applications
+ * which don't use the processor don't look for an index for every class.
+ * <p>The names are chosen as by {@code Util.chooseName} and {@code MetricRegistry.name}, relative
+ * to the declaring class. metrics-spring doesn't read them, as it always derives metric names
+ * from the annotations; they are recorded for tools which inspect the index.
+ */
+public class MetricsIndexProcessor extends AbstractProcessor {
+
+	public static final String INDEX_LOCATION = "META-INF/metrics-spring/";
+
+	public static final String MARKER_LOCATION = "META-INF/metrics-spring.index";
+
+	/**
+	 * The supported annotations, and the suffix appended to the default metric name for each.
+	 */
+	private static final Map<String, String> ANNOTATIONS;
+
+	static {
+		final Map<String, String> annotations = new LinkedHashMap<String, String>();
+		annotations.put("com.codahale.metrics.annotation.CachedGauge", null);
+		annotations.put("com.codahale.metrics.annotation.Counted", null);
+		annotations.put("com.codahale.metrics.annotation.ExceptionMetered", "exceptions");
+		annotations.put("com.codahale.metrics.annotation.Gauge", null);
+		annotations.put("com.codahale.metrics.annotation.Metered", null);
+		annotations.put("com.codahale.metrics.annotation.Metric", null);
+		annotations.put("com.codahale.metrics.annotation.Timed", null);
+		annotations.put("com.ryantenney.metrics.annotation.CachedGauge", null);
+		annotations.put("com.ryantenney.metrics.annotation.Counted", null);
+		annotations.put("com.ryantenney.metrics.annotation.Metric", null);
+		ANNOTATIONS = Collections.unmodifiableMap(annotations);
+	}
+
+	private final Set<String> indexedTypes = new LinkedHashSet<String>();
+
+	private boolean markerWritten;
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return ANNOTATIONS.keySet();
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		final Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.FIELD || element.getKind() == ElementKind.METHOD) {
+					types.add((TypeElement) element.getEnclosingElement());
+				}
+			}
+		}
+
+		for (TypeElement type : types) {
+			if (hasCanonicalName(type) && indexedTypes.add(type.getQualifiedName().toString())) {
+				writeIndex(type);
+			}
+		}
+
+		return false;
+	}
+
+	private void writeIndex(final TypeElement type) {
+		final String className = type.getQualifiedName().toString();
+		final StringBuilder index = new StringBuilder();
+		index.append("# Generated by ").append(getClass().getName()).append('\n');
+
+		for (Element member : type.getEnclosedElements()) {
+			final String kind;
+			final String parameterTypes;
+			if (member.getKind() == ElementKind.FIELD) {
+				kind = "field";
+				parameterTypes = "";
+			}
+			else if (member.getKind() == ElementKind.METHOD) {
+				kind = "method";
+				parameterTypes = parameterTypes((ExecutableElement) member);
+			}
+			else {
+				continue;
+			}
+
+			for (AnnotationMirror annotation : member.getAnnotationMirrors()) {
+				final String annotationType = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+				if (!ANNOTATIONS.containsKey(annotationType)) {
+					continue;
+				}
+
+				String explicitName = null;
+				boolean absolute = false;
+				for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : processingEnv.getElementUtils()
+						.getElementValuesWithDefaults(annotation).entrySet()) {
+					final String attribute = value.getKey().getSimpleName().toString();
+					if ("name".equals(attribute)) {
+						explicitName = (String) value.getValue().getValue();
+					}
+					else if ("absolute".equals(attribute)) {
+						absolute = (Boolean) value.getValue().getValue();
+					}
+				}
+
+				final String metricName = chooseName(explicitName, absolute, className, member.getSimpleName().toString(), ANNOTATIONS.get(annotationType));
+				index.append(kind).append('\t')
+						.append(annotationType).append('\t')
+						.append(member.getSimpleName()).append('\t')
+						.append(parameterTypes).append('\t')
+						.append(metricName).append('\n');
+			}
+		}
+
+		final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		try {
+			if (!markerWritten) {
+				writeResource(MARKER_LOCATION, "# Generated by " + getClass().getName() + ", classes have an index under " + INDEX_LOCATION + "\n", type);
+				markerWritten = true;
+			}
+			writeResource(INDEX_LOCATION + binaryName, index.toString(), type);
+		}
+		catch (IOException ex) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Unable to write metrics index for " + className + ": " + ex, type);
+		}
+	}
+
+	private void writeResource(final String location, final String content, final TypeElement type) throws IOException {
+		final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", location, type);
+		final Writer writer = new OutputStreamWriter(file.openOutputStream(), "UTF-8");
+		try {
+			writer.write(content);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Local and anonymous classes, and classes nested within them, have no canonical name and are not indexed.
+	 */
+	private static boolean hasCanonicalName(final TypeElement type) {
+		for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+			final NestingKind nestingKind = ((TypeElement) element).getNestingKind();
+			if (nestingKind == NestingKind.LOCAL || nestingKind == NestingKind.ANONYMOUS) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String parameterTypes(final ExecutableElement method) {
+		final StringBuilder parameterTypes = new StringBuilder();
+		final List<? extends VariableElement> parameters = method.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			if (i > 0) {
+				parameterTypes.append(',');
+			}
+			parameterTypes.append(typeName(processingEnv.getTypeUtils().erasure(parameters.get(i).asType())));
+		}
+		return parameterTypes.toString();
+	}
+
+	/**
+	 * @return the name of the erased type, in a form accepted by {@code ClassUtils.forName}
+	 */
+	private String typeName(final TypeMirror type) {
+		if (type.getKind() == TypeKind.ARRAY) {
+			return typeName(((ArrayType) type).getComponentType()) + "[]";
+		}
+		else if (type.getKind() == TypeKind.DECLARED) {
+			return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+		}
+		return type.toString();
+	}
+
+	static String chooseName(final String explicitName, final boolean absolute, final String className, final String memberName,
+			final String suffix) {
+		if (explicitName != null && !explicitName.isEmpty()) {
+			if (absolute) {
+				return explicitName;
+			}
+			return name(className, explicitName);
+		}
+		return name(className, memberName, suffix);
+	}
+
+	/**
+	 * Equivalent to {@code MetricRegistry.name}.
+	 */
+	private static String name(final String... parts) {
+		final StringBuilder builder = new StringBuilder();
+		for (String part : parts) {
+			if (part != null && !part.isEmpty()) {
+				if (builder.length() > 0) {
+					builder.append('.');
+				}
+				builder.append(part);
+			}
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.annotation.Timed;
+
+public class MetricsIndexProcessorTest {
+
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = File.createTempFile("metrics-index", "");
+		assertTrue(dir.delete() && dir.mkdir());
+	}
+
+	@After
+	public void tearDown() {
+		delete(dir);
+	}
+
+	@Test
+	public void writesIndex() throws Exception {
+		compile("example/Bean.java",
+				"package example;",
+				"import com.codahale.metrics.annotation.*;",
+				"public class Bean<T> {",
+				"	@Gauge private int gaugeField;",
+				"	private int plainField;",
+				"	@Timed @ExceptionMetered public void timed(String s, int[] i, T t, java.util.List<String> l) {}",
+				"	@Metered(name = \"relative\") public void metered() {}",
+				"	@Counted(name = \"absolute.name\", absolute = true) public void counted() {}",
+				"	public void plain() {}",
+				"	public static class Nested {",
+				"		@Timed public void nested(Nested n) {}",
+				"	}",
+				"	public Object anonymous() {",
+				"		return new Object() { @Timed public void timed() {} };",
+				"	}",
+				"}");
+
+		assertEquals(Arrays.asList(
+				"field\tcom.codahale.metrics.annotation.Gauge\tgaugeField\t\texample.Bean.gaugeField",
+				"method\tcom.codahale.metrics.annotation.Timed\ttimed\tjava.lang.String,int[],java.lang.Object,java.util.List\texample.Bean.timed",
+				"method\tcom.codahale.metrics.annotation.ExceptionMetered\ttimed\tjava.lang.String,int[],java.lang.Object,java.util.List\texample.Bean.timed.exceptions",
+				"method\tcom.codahale.metrics.annotation.Metered\tmetered\t\texample.Bean.relative",
+				"method\tcom.codahale.metrics.annotation.Counted\tcounted\t\tabsolute.name"),
+				readIndex("example.Bean"));
+
+		assertEquals(Arrays.asList("method\tcom.codahale.metrics.annotation.Timed\tnested\texample.Bean$Nested\texample.Bean.Nested.nested"),
+				readIndex("example.Bean$Nested"));
+
+		assertFalse(new File(dir, MetricsIndexProcessor.INDEX_LOCATION + "example.Bean$1").exists());
+		assertTrue(new File(dir, MetricsIndexProcessor.MARKER_LOCATION).exists());
+	}
+
+	@Test
+	public void noIndexWithoutAnnotations() throws Exception {
+		compile("example/Plain.java",
+				"package example;",
+				"public class Plain {",
+				"	public void plain() {}",
+				"}");
+
+		assertFalse(new File(dir, MetricsIndexProcessor.INDEX_LOCATION + "example.Plain").exists());
+		assertFalse(new File(dir, MetricsIndexProcessor.MARKER_LOCATION).exists());
+	}
+
+	private void compile(String path, String... lines) throws IOException, URISyntaxException {
+		final File source = new File(dir, path);
+		assertTrue(source.getParentFile().mkdirs());
+		write(source, lines);
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			final String classpath = new File(Timed.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+			final List<String> options = Arrays.asList("-classpath", classpath, "-d", dir.getPath());
+			final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(source);
+			final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, units);
+			task.setProcessors(Collections.singletonList(new MetricsIndexProcessor()));
+			assertTrue(task.call());
+		}
+		finally {
+			fileManager.close();
+		}
+	}
+
+	private List<String> readIndex(String binaryName) throws IOException {
+		final List<String> lines = new ArrayList<String>();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(dir,
+				MetricsIndexProcessor.INDEX_LOCATION + binaryName)), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.startsWith("#")) {
+					lines.add(line);
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return lines;
+	}
+
+	private static void write(File file, String... lines) throws IOException {
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	private static void delete(File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation for breaking down the metrics of a method annotated with
+ * {@link com.codahale.metrics.annotation.Timed} or {@link com.codahale.metrics.annotation.Metered}
+ * by the value of one or more of its arguments.
+ *
+ * <p></p>
+ * Given a method like this:
+ * <pre><code>
+ *     {@literal @}Timed(name = "handle")
+ *     public void handle({@literal @}MetricTag("tenant") String tenant, Request request) {
+ *         ...
+ *     }
+ * </code></pre>
+ * <p></p>
+ * Every invocation of {@code #handle(String, Request)} is timed by the {@code handle} timer, and
+ * by a timer named after the tenant, such as {@code handle.tenant.acme}. The number of tag values
+ * tracked per method is bounded, see {@link TagCardinality}; invocations with a tag value which
+ * cannot be tracked are recorded by {@code handle.tenant.other}; a tenant actually named
+ * {@code other} is recorded by {@code handle.tenant._other}.
+ *
+ * <p></p>
+ * The parameter must be a {@code String}, an enum, or a primitive or its wrapper.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface MetricTag {
+
+	/**
+	 * The name of the tag, which is appended to the metric name before the argument's value.
+	 */
+	String value();
+
+}
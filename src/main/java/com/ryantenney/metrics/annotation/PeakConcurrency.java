@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An annotation for reporting the peak concurrency of a method annotated with a non-monotonic
+ * {@link com.codahale.metrics.annotation.Counted}.
+ *
+ * <p></p>
+ * Given a method like this:
+ * <pre><code>
+ *     {@literal @}Counted(name = "fancyName")
+ *     {@literal @}PeakConcurrency
+ *     public String fancyName(String name) {
+ *         return "Sir Captain " + name;
+ *     }
+ * </code></pre>
+ * <p></p>
+ * Alongside the {@code fancyName} counter of in-flight invocations, a gauge named
+ * {@code fancyName.peak} will report the largest number of concurrent invocations seen in the
+ * current and the previous window. Reading the gauge doesn't change its value, so several
+ * reporters may read it; a window as long as the reporting interval gives the peak of each interval.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PeakConcurrency {
+
+	/**
+	 * The length of the windows over which the peak is tracked.
+	 */
+	long window() default 1;
+
+	TimeUnit windowUnit() default TimeUnit.MINUTES;
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An annotation for choosing the reservoir of the timer of a method annotated with
+ * {@link com.codahale.metrics.annotation.Timed}, or of a {@code Timer} or {@code Histogram}
+ * field annotated with {@link com.codahale.metrics.annotation.Metric}.
+ *
+ * <p></p>
+ * Given a method like this:
+ * <pre><code>
+ *     {@literal @}Timed
+ *     {@literal @}Reservoir(value = Reservoir.Type.SLIDING_TIME_WINDOW, window = 5, windowUnit = TimeUnit.MINUTES)
+ *     public String fancyName(String name) {
+ *         return "Sir Captain " + name;
+ *     }
+ * </code></pre>
+ * <p></p>
+ * The timer's percentiles will cover the invocations of the last five minutes, rather than
+ * being weighted towards them as by the default reservoir. The reservoir is only used if the
+ * timer is created for this method; a timer already registered under the name is used as it is.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.FIELD })
+public @interface Reservoir {
+
+	/**
+	 * The type of reservoir.
+	 */
+	Type value();
+
+	/**
+	 * The number of values kept by {@link Type#UNIFORM} and {@link Type#SLIDING_WINDOW}.
+	 */
+	int size() default 1028;
+
+	/**
+	 * The length of time covered by {@link Type#SLIDING_TIME_WINDOW} and {@link Type#HDR}.
+	 */
+	long window() default 1;
+
+	/**
+	 * The unit of {@link #window()}.
+	 */
+	TimeUnit windowUnit() default TimeUnit.MINUTES;
+
+	enum Type {
+
+		/**
+		 * {@code ExponentiallyDecayingReservoir}, the default: a sample biased towards the last
+		 * five minutes. Takes a lock on each update.
+		 */
+		EXPONENTIALLY_DECAYING,
+
+		/**
+		 * {@code UniformReservoir}: a uniform sample of all values ever recorded.
+		 */
+		UNIFORM,
+
+		/**
+		 * {@code SlidingWindowReservoir}: the last {@link Reservoir#size()} values.
+		 */
+		SLIDING_WINDOW,
+
+		/**
+		 * {@code SlidingTimeWindowReservoir}: every value recorded in the last
+		 * {@link Reservoir#window()}, which can be large at high rates.
+		 */
+		SLIDING_TIME_WINDOW,
+
+		/**
+		 * A lock-free reservoir which counts values in buckets of fixed relative precision, as
+		 * HdrHistogram does, covering between one and two {@link Reservoir#window()}s. Its size
+		 * doesn't grow with the rate, and every value counts towards the percentiles.
+		 */
+		HDR
+
+	}
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation for sampling the timing of a method annotated with
+ * {@link com.codahale.metrics.annotation.Timed}.
+ *
+ * <p></p>
+ * Given a method like this:
+ * <pre><code>
+ *     {@literal @}Timed
+ *     {@literal @}Sampled(100)
+ *     public String fancyName(String name) {
+ *         return "Sir Captain " + name;
+ *     }
+ * </code></pre>
+ * <p></p>
+ * One in every 100 invocations of {@code #fancyName(String)} will be timed. The remaining
+ * invocations are only counted, and the timer's count and rates include them.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Sampled {
+
+	/**
+	 * Time one in every {@code value} invocations.
+	 */
+	int value();
+
+	/**
+	 * If {@code false} (default), every {@code value}th invocation on each thread is timed.
+	 * If {@code true}, each invocation is timed with probability {@code 1 / value}.
+	 */
+	boolean random() default false;
+
+}
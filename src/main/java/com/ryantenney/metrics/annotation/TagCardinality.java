@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An annotation for bounding the number of tag values tracked for a method with
+ * {@link MetricTag} annotated parameters.
+ *
+ * <p></p>
+ * Given a method like this:
+ * <pre><code>
+ *     {@literal @}Timed(name = "handle")
+ *     {@literal @}TagCardinality(value = 20, idle = 1, idleUnit = TimeUnit.HOURS)
+ *     public void handle({@literal @}MetricTag("tenant") String tenant, Request request) {
+ *         ...
+ *     }
+ * </code></pre>
+ * <p></p>
+ * At most 20 per-tenant timers will be registered. Once the limit is reached, every timer
+ * which has not been used for an hour is removed to make room for new tenants, and invocations
+ * for tenants which don't fit are recorded by {@code handle.tenant.other}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TagCardinality {
+
+	/**
+	 * The maximum number of tag value combinations tracked for the method.
+	 */
+	int value() default 100;
+
+	/**
+	 * How long a tag value combination must go unused before it may be evicted.
+	 */
+	long idle() default 10;
+
+	TimeUnit idleUnit() default TimeUnit.MINUTES;
+
+}
@@ -20,15 +20,16 @@ import java.lang.reflect.Method;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.util.ReflectionUtils.FieldCallback;
 import org.springframework.util.ReflectionUtils.MethodCallback;
+import org.springframework.util.StringUtils;
 
 import static org.springframework.aop.support.AopUtils.getTargetClass;
-import static org.springframework.util.ReflectionUtils.doWithFields;
-import static org.springframework.util.ReflectionUtils.doWithMethods;
 
-abstract class AbstractAnnotationBeanPostProcessor implements BeanPostProcessor {
+abstract class AbstractAnnotationBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
 
 	protected final Logger LOG = LoggerFactory.getLogger(getClass());
 
@@ -43,11 +44,20 @@ abstract class AbstractAnnotationBeanPostProcessor implements BeanPostProcessor
 	private final Members members;
 	private final Phase phase;
 	private final AnnotationFilter filter;
+	private final String name;
+
+	private StartupMetrics startupMetrics;
 
 	public AbstractAnnotationBeanPostProcessor(final Members members, final Phase phase, final AnnotationFilter filter) {
 		this.members = members;
 		this.phase = phase;
 		this.filter = filter;
+		this.name = StringUtils.uncapitalize(getClass().getSimpleName().replace("AnnotationBeanPostProcessor", ""));
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.startupMetrics = StartupMetrics.forBeanFactory(beanFactory);
 	}
 
 	/**
@@ -69,7 +79,7 @@ abstract class AbstractAnnotationBeanPostProcessor implements BeanPostProcessor
 	@Override
 	public final Object postProcessBeforeInitialization(Object bean, String beanName) {
 		if (phase == Phase.PRE_INIT) {
-			process(bean, beanName);
+			timedProcess(bean, beanName);
 		}
 
 		return bean;
@@ -78,17 +88,33 @@ abstract class AbstractAnnotationBeanPostProcessor implements BeanPostProcessor
 	@Override
 	public final Object postProcessAfterInitialization(Object bean, String beanName) {
 		if (phase == Phase.POST_INIT) {
-			process(bean, beanName);
+			timedProcess(bean, beanName);
 		}
 
 		return bean;
 	}
 
+	private void timedProcess(final Object bean, final String beanName) {
+		if (startupMetrics == null) {
+			process(bean, beanName);
+			return;
+		}
+
+		final long start = System.nanoTime();
+		try {
+			process(bean, beanName);
+		}
+		finally {
+			startupMetrics.record("process", name, beanName, System.nanoTime() - start);
+		}
+	}
+
 	private void process(final Object bean, final String beanName) {
 		final Class<?> targetClass = getTargetClass(bean);
+		final AnnotatedMembers annotatedMembers = AnnotatedMembers.forClass(targetClass);
 
 		if (members == Members.FIELDS || members == Members.ALL) {
-			doWithFields(targetClass, new FieldCallback() {
+			annotatedMembers.doWithFields(new FieldCallback() {
 				@Override
 				public void doWith(Field field) throws IllegalAccessException {
 					withField(bean, beanName, targetClass, field);
@@ -97,7 +123,7 @@ abstract class AbstractAnnotationBeanPostProcessor implements BeanPostProcessor
 		}
 
 		if (members == Members.METHODS || members == Members.ALL) {
-			doWithMethods(targetClass, new MethodCallback() {
+			annotatedMembers.doWithMethods(new MethodCallback() {
 				@Override
 				public void doWith(final Method method) throws IllegalAccessException {
 					withMethod(bean, beanName, targetClass, method);
@@ -19,12 +19,15 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils.MethodCallback;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 
@@ -32,30 +35,48 @@ import com.codahale.metrics.MetricRegistry;
 
 abstract class AbstractMetricMethodInterceptor<A extends Annotation, M> implements MethodInterceptor, MethodCallback {
 
+	@SuppressWarnings("rawtypes")
+	private static final AnnotationMetricPair NO_METRIC = new AnnotationMetricPair<Annotation, Object>(null, null);
+
 	protected final Logger LOG = LoggerFactory.getLogger(getClass());
 
 	private final MetricRegistry metricRegistry;
+	private final MetricsSwitch metricsSwitch;
 	private final Class<?> targetClass;
 	private final Class<A> annotationClass;
 	private final Map<MethodKey, AnnotationMetricPair<A, M>> metrics;
 
-	AbstractMetricMethodInterceptor(final MetricRegistry metricRegistry, final Class<?> targetClass, final Class<A> annotationClass,
-			final MethodFilter methodFilter) {
+	/**
+	 * Resolved {@link AnnotationMetricPair} per invoked {@link Method}, populated
+	 * eagerly for the annotated methods of the target class and lazily for any
+	 * other method (interface, bridge or covariant) seen by the proxy.
+	 */
+	private final ConcurrentMap<Method, AnnotationMetricPair<A, M>> dispatchTable;
+
+	AbstractMetricMethodInterceptor(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass,
+			final Class<A> annotationClass, final MethodFilter methodFilter) {
 		this.metricRegistry = metricRegistry;
+		this.metricsSwitch = metricsSwitch;
 		this.targetClass = targetClass;
 		this.annotationClass = annotationClass;
 		this.metrics = new HashMap<MethodKey, AnnotationMetricPair<A, M>>();
+		this.dispatchTable = new ConcurrentHashMap<Method, AnnotationMetricPair<A, M>>();
 
 		LOG.debug("Creating method interceptor for class {}", targetClass.getCanonicalName());
 		LOG.debug("Scanning for @{} annotated methods", annotationClass.getSimpleName());
 
-		ReflectionUtils.doWithMethods(targetClass, this, methodFilter);
+		AnnotatedMembers.forClass(targetClass).doWithMethods(this, methodFilter);
 	}
 
 	@Override
 	public Object invoke(MethodInvocation invocation) throws Throwable {
-		final AnnotationMetricPair<A, M> annotationMetricPair = metrics.get(MethodKey.forMethod(invocation.getMethod()));
-		if (annotationMetricPair != null) {
+		final AnnotationMetricPair<A, M> annotationMetricPair = getAnnotationMetricPair(invocation.getMethod());
+		if (annotationMetricPair != NO_METRIC && annotationMetricPair.isEnabled()) {
+			final TaggedMetrics<?> taggedMetrics = annotationMetricPair.getTaggedMetrics();
+			if (taggedMetrics != null) {
+				return invoke(invocation, annotationMetricPair.getMeter(), annotationMetricPair.getTaggedMetric(invocation.getArguments()),
+						annotationMetricPair.getAnnotation());
+			}
 			return invoke(invocation, annotationMetricPair.getMeter(), annotationMetricPair.getAnnotation());
 		}
 		else {
@@ -63,16 +84,46 @@ abstract class AbstractMetricMethodInterceptor<A extends Annotation, M> implemen
 		}
 	}
 
+	private AnnotationMetricPair<A, M> getAnnotationMetricPair(final Method method) {
+		final AnnotationMetricPair<A, M> annotationMetricPair = dispatchTable.get(method);
+		if (annotationMetricPair != null) {
+			return annotationMetricPair;
+		}
+
+		final AnnotationMetricPair<A, M> resolved = resolveAnnotationMetricPair(method);
+		final AnnotationMetricPair<A, M> existing = dispatchTable.putIfAbsent(method, resolved);
+		return existing != null ? existing : resolved;
+	}
+
+	@SuppressWarnings("unchecked")
+	private AnnotationMetricPair<A, M> resolveAnnotationMetricPair(final Method method) {
+		AnnotationMetricPair<A, M> annotationMetricPair = metrics.get(MethodKey.forMethod(method));
+		if (annotationMetricPair == null) {
+			// The invoked method may be declared on an interface, or be a bridge method, in which
+			// case its signature can differ from that of the annotated method on the target class
+			final Method specificMethod = BridgeMethodResolver.findBridgedMethod(ClassUtils.getMostSpecificMethod(method, targetClass));
+			if (specificMethod != method) {
+				annotationMetricPair = metrics.get(MethodKey.forMethod(specificMethod));
+			}
+		}
+
+		return annotationMetricPair != null ? annotationMetricPair : (AnnotationMetricPair<A, M>) NO_METRIC;
+	}
+
 	@Override
 	public void doWith(Method method) throws IllegalAccessException {
 		final A annotation = method.getAnnotation(annotationClass);
 		if (annotation != null) {
 			final MethodKey methodKey = MethodKey.forMethod(method);
 			final String metricName = buildMetricName(targetClass, method, annotation);
-			final M metric = buildMetric(metricRegistry, metricName, annotation);
+			final M metric = buildMetric(metricRegistry, metricName, method, annotation);
 
 			if (metric != null) {
-				metrics.put(methodKey, new AnnotationMetricPair<A, M>(annotation, metric));
+				final TaggedMetrics<?> taggedMetrics = TaggedMetrics.isTagged(method) ? buildTaggedMetrics(metricRegistry, metricName, method, annotation) : null;
+				final AnnotationMetricPair<A, M> annotationMetricPair = new AnnotationMetricPair<A, M>(annotation, metric, taggedMetrics,
+						metricsSwitch.gate(annotationClass, metricName));
+				metrics.put(methodKey, annotationMetricPair);
+				dispatchTable.put(method, annotationMetricPair);
 
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Created {} {} for method {}", metric.getClass().getSimpleName(), metricName, methodKey);
@@ -85,16 +136,44 @@ abstract class AbstractMetricMethodInterceptor<A extends Annotation, M> implemen
 
 	protected abstract M buildMetric(MetricRegistry metricRegistry, String metricName, A annotation);
 
+	protected M buildMetric(MetricRegistry metricRegistry, String metricName, Method method, A annotation) {
+		return buildMetric(metricRegistry, metricName, annotation);
+	}
+
+	/**
+	 * Builds the per-tag metrics of a method with {@link com.ryantenney.metrics.annotation.MetricTag}
+	 * annotated parameters, or returns {@code null} if the annotation doesn't support tags.
+	 */
+	protected TaggedMetrics<?> buildTaggedMetrics(MetricRegistry metricRegistry, String metricName, Method method, A annotation) {
+		return null;
+	}
+
 	protected abstract Object invoke(MethodInvocation invocation, M metric, A annotation) throws Throwable;
 
+	/**
+	 * Invokes a method with tagged metrics, recording to both the method's metric and the
+	 * metric for the invocation's tag values.
+	 */
+	protected Object invoke(MethodInvocation invocation, M metric, M taggedMetric, A annotation) throws Throwable {
+		return invoke(invocation, metric, annotation);
+	}
+
 	public static final class AnnotationMetricPair<A extends Annotation, M> {
 
 		private final A annotation;
 		private final M meter;
+		private final TaggedMetrics<?> taggedMetrics;
+		private final MetricsSwitch.Gate gate;
 
 		public AnnotationMetricPair(final A annotation, final M meter) {
+			this(annotation, meter, null, null);
+		}
+
+		AnnotationMetricPair(final A annotation, final M meter, final TaggedMetrics<?> taggedMetrics, final MetricsSwitch.Gate gate) {
 			this.annotation = annotation;
 			this.meter = meter;
+			this.taggedMetrics = taggedMetrics;
+			this.gate = gate;
 		}
 
 		public A getAnnotation() {
@@ -105,6 +184,19 @@ abstract class AbstractMetricMethodInterceptor<A extends Annotation, M> implemen
 			return meter;
 		}
 
+		boolean isEnabled() {
+			return gate == null || gate.isEnabled();
+		}
+
+		TaggedMetrics<?> getTaggedMetrics() {
+			return taggedMetrics;
+		}
+
+		@SuppressWarnings("unchecked")
+		M getTaggedMetric(final Object[] arguments) {
+			return (M) taggedMetrics.forArguments(arguments);
+		}
+
 	}
 
 }
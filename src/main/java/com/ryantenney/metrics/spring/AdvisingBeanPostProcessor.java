@@ -15,7 +15,6 @@
  */
 package com.ryantenney.metrics.spring;
 
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.aopalliance.aop.Advice;
@@ -29,27 +28,46 @@ import org.springframework.aop.framework.ProxyConfig;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
-class AdvisingBeanPostProcessor implements BeanPostProcessor {
+/**
+ * Advises the beans matched by a pointcut, by proxying them or adding an advisor to their existing proxy.
+ * The advice built for the first bean of a class is shared by every bean of that class, as is the set of
+ * interfaces they are proxied with, so neither is computed again for the rest of them.
+ */
+class AdvisingBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
 
 	private static final Logger LOG = LoggerFactory.getLogger(AdvisingBeanPostProcessor.class);
 
+	private static final ProxyTemplate NOT_APPLICABLE = new ProxyTemplate(null, null);
+
 	private final ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
 
+	private final String name;
 	private final Pointcut pointcut;
 	private final AdviceFactory adviceFactory;
 	private final ProxyConfig proxyConfig;
 
-	private final ConcurrentMap<Class<?>, Boolean> applicabilityCache = new ConcurrentHashMap<Class<?>, Boolean>(256);
+	private final ConcurrentMap<Class<?>, ProxyTemplate> proxyTemplates = new ConcurrentReferenceHashMap<Class<?>, ProxyTemplate>(256);
+
+	private StartupMetrics startupMetrics;
 
-	public AdvisingBeanPostProcessor(final Pointcut pointcut, final AdviceFactory adviceFactory, final ProxyConfig proxyConfig) {
+	public AdvisingBeanPostProcessor(final String name, final Pointcut pointcut, final AdviceFactory adviceFactory, final ProxyConfig proxyConfig) {
+		this.name = name;
 		this.pointcut = pointcut;
 		this.adviceFactory = adviceFactory;
 		this.proxyConfig = proxyConfig;
 	}
 
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.startupMetrics = StartupMetrics.forBeanFactory(beanFactory);
+	}
+
 	@Override
 	public Object postProcessBeforeInitialization(Object bean, String beanName) {
 		return bean;
@@ -63,44 +81,84 @@ class AdvisingBeanPostProcessor implements BeanPostProcessor {
 
 		final Class<?> targetClass = AopUtils.getTargetClass(bean);
 
-		if (canApply(targetClass)) {
-			final Advice advice = adviceFactory.getAdvice(bean, targetClass);
-			final Advisor advisor = new DefaultPointcutAdvisor(pointcut, advice);
-
-			if (bean instanceof Advised) {
-				LOG.debug("Bean {} is already proxied, adding Advisor to existing proxy", beanName);
+		ProxyTemplate proxyTemplate = proxyTemplates.get(targetClass);
+		if (proxyTemplate == NOT_APPLICABLE) {
+			return bean;
+		}
 
-				((Advised) bean).addAdvisor(0, advisor);
+		final long start = startupMetrics != null ? System.nanoTime() : 0;
 
+		if (proxyTemplate == null) {
+			proxyTemplate = getProxyTemplate(bean, targetClass);
+			if (proxyTemplate == NOT_APPLICABLE) {
 				return bean;
 			}
-			else {
-				LOG.debug("Proxying bean {} of type {}", beanName, targetClass.getCanonicalName());
+		}
+
+		final Object advised;
+		if (bean instanceof Advised) {
+			LOG.debug("Bean {} is already proxied, adding Advisor to existing proxy", beanName);
 
-				final ProxyFactory proxyFactory = new ProxyFactory(bean);
-				if (proxyConfig != null) {
-					proxyFactory.copyFrom(proxyConfig);
-				}
-				proxyFactory.addAdvisor(advisor);
+			((Advised) bean).addAdvisor(0, proxyTemplate.advisor);
 
-				final Object proxy = proxyFactory.getProxy(this.beanClassLoader);
+			advised = bean;
+		}
+		else {
+			LOG.debug("Proxying bean {} of type {}", beanName, targetClass.getCanonicalName());
 
-				return proxy;
+			final ProxyFactory proxyFactory = new ProxyFactory();
+			if (proxyConfig != null) {
+				proxyFactory.copyFrom(proxyConfig);
 			}
+			proxyFactory.setTarget(bean);
+			proxyFactory.setInterfaces(proxyTemplate.getInterfaces(bean));
+			proxyFactory.addAdvisor(proxyTemplate.advisor);
+
+			advised = proxyFactory.getProxy(this.beanClassLoader);
 		}
 
-		return bean;
+		// only beans which are advised are timed, the time spent finding others inapplicable is not recorded
+		if (startupMetrics != null) {
+			startupMetrics.record("proxy", name, beanName, System.nanoTime() - start);
+		}
+
+		return advised;
+	}
+
+	private ProxyTemplate getProxyTemplate(final Object bean, final Class<?> targetClass) {
+		final ProxyTemplate proxyTemplate;
+		if (AopUtils.canApply(pointcut, targetClass)) {
+			final Advice advice = adviceFactory.getAdvice(bean, targetClass);
+			proxyTemplate = new ProxyTemplate(new DefaultPointcutAdvisor(pointcut, advice), bean.getClass());
+		}
+		else {
+			proxyTemplate = NOT_APPLICABLE;
+		}
+
+		final ProxyTemplate existing = proxyTemplates.putIfAbsent(targetClass, proxyTemplate);
+		return existing != null ? existing : proxyTemplate;
 	}
 
-	private boolean canApply(final Class<?> targetClass) {
-		Boolean cachedApplicability = applicabilityCache.get(targetClass);
-		if (cachedApplicability != null) {
-			return (boolean) cachedApplicability;
+	/**
+	 * The advisor shared by the beans of a class, and the interfaces they are proxied with.
+	 */
+	private static final class ProxyTemplate {
+
+		private final Advisor advisor;
+		private final Class<?> beanClass;
+		private final Class<?>[] interfaces;
+
+		ProxyTemplate(final Advisor advisor, final Class<?> beanClass) {
+			this.advisor = advisor;
+			this.beanClass = beanClass;
+			this.interfaces = beanClass != null ? ClassUtils.getAllInterfacesForClass(beanClass) : null;
+		}
+
+		Class<?>[] getInterfaces(final Object bean) {
+			// the target class of a bean may differ from its own class
+			return bean.getClass() == beanClass ? interfaces : ClassUtils.getAllInterfaces(bean);
 		}
 
-		boolean canApply = AopUtils.canApply(pointcut, targetClass);
-		applicabilityCache.putIfAbsent(targetClass, canApply);
-		return canApply;
 	}
 
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.ReflectionUtils.FieldCallback;
+import org.springframework.util.ReflectionUtils.FieldFilter;
+import org.springframework.util.ReflectionUtils.MethodCallback;
+import org.springframework.util.ReflectionUtils.MethodFilter;
+
+/**
+ * The annotated fields and methods of a class, in the order visited by
+ * {@link ReflectionUtils#doWithFields} and {@link ReflectionUtils#doWithMethods}.
+ * <p>The class hierarchy is walked once per class and the result shared by every
+ * post-processor and interceptor, so each of them only has to filter the members
+ * which carry annotations rather than scanning the whole class again for every bean.
+ * <p>Classes which have a {@link MetricsIndex} contribute the members listed in it,
+ * without their declared members being scanned, so an annotated member missing from a
+ * stale index is not metered. Metric names are always derived from the annotations.
+ */
+final class AnnotatedMembers {
+
+	private static final ConcurrentMap<Class<?>, AnnotatedMembers> CACHE = new ConcurrentReferenceHashMap<Class<?>, AnnotatedMembers>(256);
+
+	private static final FieldFilter ANNOTATED_FIELDS = new FieldFilter() {
+		@Override
+		public boolean matches(Field field) {
+			return field.getAnnotations().length > 0;
+		}
+	};
+
+	private static final MethodFilter ANNOTATED_METHODS = new MethodFilter() {
+		@Override
+		public boolean matches(Method method) {
+			return method.getAnnotations().length > 0;
+		}
+	};
+
+	private final Field[] fields;
+	private final Method[] methods;
+
+	private AnnotatedMembers(final Field[] fields, final Method[] methods) {
+		this.fields = fields;
+		this.methods = methods;
+	}
+
+	public static AnnotatedMembers forClass(final Class<?> clazz) {
+		AnnotatedMembers annotatedMembers = CACHE.get(clazz);
+		if (annotatedMembers == null) {
+			annotatedMembers = scan(clazz);
+			final AnnotatedMembers existing = CACHE.putIfAbsent(clazz, annotatedMembers);
+			if (existing != null) {
+				annotatedMembers = existing;
+			}
+		}
+		return annotatedMembers;
+	}
+
+	private static AnnotatedMembers scan(final Class<?> clazz) {
+		final Map<Class<?>, MetricsIndex> indexes = new HashMap<Class<?>, MetricsIndex>();
+
+		final List<Field> fields = new ArrayList<Field>();
+		for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+			final MetricsIndex index = index(current, indexes);
+			if (index != null) {
+				fields.addAll(index.getFields());
+			}
+			else {
+				for (Field field : current.getDeclaredFields()) {
+					if (ANNOTATED_FIELDS.matches(field)) {
+						fields.add(field);
+					}
+				}
+			}
+		}
+
+		final List<Method> methods = new ArrayList<Method>();
+		collectMethods(clazz, methods, indexes);
+
+		return new AnnotatedMembers(fields.toArray(new Field[fields.size()]), methods.toArray(new Method[methods.size()]));
+	}
+
+	private static void collectMethods(final Class<?> clazz, final List<Method> methods, final Map<Class<?>, MetricsIndex> indexes) {
+		final MetricsIndex index = index(clazz, indexes);
+		if (index != null) {
+			methods.addAll(index.getMethods());
+		}
+		else {
+			for (Method method : clazz.getDeclaredMethods()) {
+				if (ANNOTATED_METHODS.matches(method)) {
+					methods.add(method);
+				}
+			}
+		}
+
+		if (clazz.getSuperclass() != null) {
+			collectMethods(clazz.getSuperclass(), methods, indexes);
+		}
+		else if (clazz.isInterface()) {
+			for (Class<?> superInterface : clazz.getInterfaces()) {
+				collectMethods(superInterface, methods, indexes);
+			}
+		}
+	}
+
+	private static MetricsIndex index(final Class<?> clazz, final Map<Class<?>, MetricsIndex> indexes) {
+		if (!indexes.containsKey(clazz)) {
+			indexes.put(clazz, MetricsIndex.forClass(clazz));
+		}
+		return indexes.get(clazz);
+	}
+
+	/**
+	 * Invokes the callback for each annotated field which matches the filter.
+	 */
+	public void doWithFields(final FieldCallback callback, final FieldFilter filter) {
+		for (Field field : fields) {
+			if (filter.matches(field)) {
+				try {
+					callback.doWith(field);
+				}
+				catch (IllegalAccessException ex) {
+					throw new IllegalStateException("Shouldn't be illegal to access field '" + field.getName() + "': " + ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Invokes the callback for each annotated method which matches the filter.
+	 */
+	public void doWithMethods(final MethodCallback callback, final MethodFilter filter) {
+		for (Method method : methods) {
+			if (filter.matches(method)) {
+				try {
+					callback.doWith(method);
+				}
+				catch (IllegalAccessException ex) {
+					throw new IllegalStateException("Shouldn't be illegal to access method '" + method.getName() + "': " + ex);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Detects the asynchronous results of intercepted methods, and notifies a {@link Callback} when
+ * they complete, so that timers and exception meters reflect the completion of the work rather
+ * than its submission. Nothing blocks, and callbacks run on whichever thread completes the result.
+ * <p>Supported are Spring's {@link ListenableFuture}; Java 8's {@code CompletionStage} (including
+ * {@code CompletableFuture}), which is accessed reflectively as this library targets Java 6; and
+ * Spring MVC's {@link DeferredResult}, when spring-web is present, which completes when the
+ * request it was returned for completes. A {@code DeferredResult} holds a single completion
+ * callback, so one registered with {@code onCompletion} after the method returns replaces the
+ * callback notifying the timer, and the result is then never seen to complete.
+ */
+final class AsyncResults {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncResults.class);
+
+	private static final ClassLoader CLASS_LOADER = AsyncResults.class.getClassLoader();
+
+	private static final Class<?> COMPLETION_STAGE;
+	private static final Class<?> COMPLETION_EXCEPTION;
+	private static final Method WHEN_COMPLETE;
+	private static final Constructor<?> BI_CONSUMER;
+
+	private static final boolean DEFERRED_RESULT_PRESENT = ClassUtils.isPresent("org.springframework.web.context.request.async.DeferredResult",
+			CLASS_LOADER);
+
+	static {
+		Class<?> completionStage = null;
+		Class<?> completionException = null;
+		Method whenComplete = null;
+		Constructor<?> biConsumer = null;
+		try {
+			completionStage = ClassUtils.forName("java.util.concurrent.CompletionStage", CLASS_LOADER);
+			completionException = ClassUtils.forName("java.util.concurrent.CompletionException", CLASS_LOADER);
+			final Class<?> biConsumerClass = ClassUtils.forName("java.util.function.BiConsumer", CLASS_LOADER);
+			whenComplete = completionStage.getMethod("whenComplete", biConsumerClass);
+			biConsumer = Proxy.getProxyClass(biConsumerClass.getClassLoader(), biConsumerClass).getConstructor(InvocationHandler.class);
+		}
+		catch (Throwable ex) {
+			LOG.debug("CompletionStage is not available, its completion will not be tracked", ex);
+			completionStage = null;
+		}
+		COMPLETION_STAGE = completionStage;
+		COMPLETION_EXCEPTION = completionException;
+		WHEN_COMPLETE = whenComplete;
+		BI_CONSUMER = biConsumer;
+	}
+
+	private AsyncResults() {}
+
+	/**
+	 * Notified once when an asynchronous result completes.
+	 */
+	interface Callback {
+
+		/**
+		 * @param failure the exception the result completed with, or {@code null} if it completed successfully
+		 */
+		void complete(Throwable failure);
+
+	}
+
+	/**
+	 * @return whether the given method result is of a supported asynchronous type
+	 */
+	public static boolean isAsync(final Object result) {
+		return result instanceof ListenableFuture || (COMPLETION_STAGE != null && COMPLETION_STAGE.isInstance(result))
+				|| (DEFERRED_RESULT_PRESENT && DeferredResults.isDeferredResult(result));
+	}
+
+	/**
+	 * Arranges for the callback to be notified when the given result, which must be of a supported
+	 * asynchronous type, completes. If the result has already completed the callback is notified
+	 * immediately.
+	 */
+	public static void whenComplete(final Object result, final Callback callback) {
+		if (result instanceof ListenableFuture) {
+			((ListenableFuture<?>) result).addCallback(new ListenableFutureCallback<Object>() {
+
+				@Override
+				public void onSuccess(Object value) {
+					callback.complete(null);
+				}
+
+				@Override
+				public void onFailure(Throwable ex) {
+					callback.complete(ex);
+				}
+
+			});
+		}
+		else if (COMPLETION_STAGE != null && COMPLETION_STAGE.isInstance(result)) {
+			try {
+				WHEN_COMPLETE.invoke(result, BI_CONSUMER.newInstance(new BiConsumerHandler(callback)));
+			}
+			catch (Exception ex) {
+				ReflectionUtils.handleReflectionException(ex);
+			}
+		}
+		else if (DEFERRED_RESULT_PRESENT && DeferredResults.isDeferredResult(result)) {
+			DeferredResults.whenComplete(result, callback);
+		}
+		else {
+			throw new IllegalArgumentException("Not an asynchronous result: " + result);
+		}
+	}
+
+	/**
+	 * Implements {@code BiConsumer<Object, Throwable>} for {@code CompletionStage.whenComplete}.
+	 */
+	private static final class BiConsumerHandler implements InvocationHandler {
+
+		private final Callback callback;
+
+		BiConsumerHandler(final Callback callback) {
+			this.callback = callback;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			if ("accept".equals(method.getName())) {
+				Throwable failure = (Throwable) args[1];
+				if (failure != null && COMPLETION_EXCEPTION.isInstance(failure) && failure.getCause() != null) {
+					failure = failure.getCause();
+				}
+				callback.complete(failure);
+				return null;
+			}
+			else if ("equals".equals(method.getName())) {
+				return proxy == args[0];
+			}
+			else if ("hashCode".equals(method.getName())) {
+				return System.identityHashCode(proxy);
+			}
+			else if ("toString".equals(method.getName())) {
+				return "BiConsumer for " + callback;
+			}
+			throw new UnsupportedOperationException(method.toString());
+		}
+
+	}
+
+	/**
+	 * Isolates the references to spring-web, which is optional.
+	 */
+	private static final class DeferredResults {
+
+		/**
+		 * A {@code DeferredResult} has a single completion callback, which the method may already
+		 * have set; it is read so that it can be chained rather than replaced. If it can't be read,
+		 * a {@code DeferredResult} is treated as a synchronous result, so as not to replace it.
+		 */
+		private static final Field COMPLETION_CALLBACK = ReflectionUtils.findField(DeferredResult.class, "completionCallback", Runnable.class);
+
+		static {
+			if (COMPLETION_CALLBACK != null) {
+				ReflectionUtils.makeAccessible(COMPLETION_CALLBACK);
+			}
+			else {
+				LOG.debug("DeferredResult has no completionCallback field, its completion will not be tracked");
+			}
+		}
+
+		static boolean isDeferredResult(final Object result) {
+			return COMPLETION_CALLBACK != null && result instanceof DeferredResult;
+		}
+
+		static void whenComplete(final Object result, final Callback callback) {
+			final DeferredResult<?> deferredResult = (DeferredResult<?>) result;
+			final Runnable existing = (Runnable) ReflectionUtils.getField(COMPLETION_CALLBACK, deferredResult);
+			deferredResult.onCompletion(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						final Object value = deferredResult.getResult();
+						callback.complete(value instanceof Throwable ? (Throwable) value : null);
+					}
+					finally {
+						if (existing != null) {
+							existing.run();
+						}
+					}
+				}
+			});
+		}
+
+	}
+
+}
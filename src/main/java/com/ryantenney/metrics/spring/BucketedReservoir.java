@@ -0,0 +1,298 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A lock-free {@link Reservoir} which counts values in buckets whose width is a fixed fraction of
+ * their values, as HdrHistogram does, instead of keeping a sample of the values. Each update is a
+ * single atomic increment, every value counts towards the percentiles, and the memory used doesn't
+ * grow with the rate. Percentiles are accurate to within about 3%; the minimum and maximum are exact.
+ * <p>Counts are kept per window, and the snapshot covers the current and the previous window,
+ * that is between one and two windows.
+ */
+public class BucketedReservoir implements Reservoir {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long windowNanos;
+	private final Clock clock;
+	private final AtomicReference<Interval> current;
+	private volatile Interval previous;
+
+	public BucketedReservoir(final long window, final TimeUnit windowUnit) {
+		this(window, windowUnit, Clock.defaultClock());
+	}
+
+	public BucketedReservoir(final long window, final TimeUnit windowUnit, final Clock clock) {
+		if (window < 1) {
+			throw new IllegalArgumentException("Window must be at least 1");
+		}
+		this.windowNanos = windowUnit.toNanos(window);
+		this.clock = clock;
+		this.current = new AtomicReference<Interval>(new Interval(clock.getTick()));
+	}
+
+	@Override
+	public int size() {
+		final long count = getSnapshot().count;
+		return count > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count;
+	}
+
+	@Override
+	public void update(final long value) {
+		final Interval interval = currentInterval();
+		interval.counts.incrementAndGet(index(value));
+		interval.updateMin(value);
+		interval.updateMax(value);
+	}
+
+	@Override
+	public BucketSnapshot getSnapshot() {
+		final Interval interval = currentInterval();
+		final Interval last = previous;
+		final long[] counts = new long[BUCKETS];
+		long min = interval.min.get();
+		long max = interval.max.get();
+		interval.addTo(counts);
+		if (last != null) {
+			last.addTo(counts);
+			min = Math.min(min, last.min.get());
+			max = Math.max(max, last.max.get());
+		}
+		return new BucketSnapshot(counts, min, max);
+	}
+
+	private Interval currentInterval() {
+		final Interval interval = current.get();
+		final long now = clock.getTick();
+		if (now - interval.start < windowNanos) {
+			return interval;
+		}
+		final Interval next = new Interval(now);
+		if (current.compareAndSet(interval, next)) {
+			// an interval older than the previous window is dropped
+			previous = now - interval.start < 2 * windowNanos ? interval : null;
+			return next;
+		}
+		return current.get();
+	}
+
+	static int index(final long value) {
+		if (value < SUB_BUCKETS) {
+			return value < 0 ? 0 : (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * @return the value in the middle of the bucket
+	 */
+	static long value(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		final long lower = (long) (SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+		return lower + (((1L << shift) - 1) >> 1);
+	}
+
+	private static final class Interval {
+
+		private final long start;
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+		private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+		Interval(final long start) {
+			this.start = start;
+		}
+
+		void updateMin(final long value) {
+			long current;
+			while (value < (current = min.get()) && !min.compareAndSet(current, value)) {}
+		}
+
+		void updateMax(final long value) {
+			long current;
+			while (value > (current = max.get()) && !max.compareAndSet(current, value)) {}
+		}
+
+		void addTo(final long[] totals) {
+			for (int i = 0; i < BUCKETS; i++) {
+				totals[i] += counts.get(i);
+			}
+		}
+
+	}
+
+	/**
+	 * A snapshot of the counts of a {@link BucketedReservoir}.
+	 */
+	public static class BucketSnapshot extends Snapshot {
+
+		static final int MAX_VALUES = 1028;
+
+		private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+		private final long[] counts;
+		private final long count;
+		private final long min;
+		private final long max;
+
+		BucketSnapshot(final long[] counts, final long min, final long max) {
+			this.counts = counts;
+			long total = 0;
+			for (long c : counts) {
+				total += c;
+			}
+			this.count = total;
+			this.min = total == 0 ? 0 : min;
+			this.max = total == 0 ? 0 : max;
+		}
+
+		@Override
+		public double getValue(final double quantile) {
+			if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+				throw new IllegalArgumentException(quantile + " is not in [0..1]");
+			}
+			if (count == 0) {
+				return 0.0;
+			}
+			final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return clamp(value(i));
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * @return the value in the middle of the bucket of each value counted, in order; when more
+		 *         than {@value #MAX_VALUES} values were counted, the values at that many evenly spaced
+		 *         ranks instead, so that the array stays small however many values were counted
+		 */
+		@Override
+		public long[] getValues() {
+			final int length = (int) Math.min(count, MAX_VALUES);
+			final long[] values = new long[length];
+			int i = 0;
+			long seen = counts[0];
+			for (int k = 0; k < length; k++) {
+				// the middle rank of the k'th of length equal shares of the count, from 1 to count
+				final long rank = Math.min(count, 1 + (long) ((k + 0.5) * count / length));
+				while (seen < rank) {
+					seen += counts[++i];
+				}
+				values[k] = clamp(value(i));
+			}
+			return values;
+		}
+
+		/**
+		 * @return the number of values counted, which {@link #getValues()} may return fewer of
+		 */
+		@Override
+		public int size() {
+			return count > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count;
+		}
+
+		/**
+		 * @return the number of values, which may exceed {@link #size()}
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public long getMax() {
+			return max;
+		}
+
+		@Override
+		public long getMin() {
+			return min;
+		}
+
+		@Override
+		public double getMean() {
+			if (count == 0) {
+				return 0.0;
+			}
+			double sum = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				if (counts[i] != 0) {
+					sum += (double) clamp(value(i)) * counts[i];
+				}
+			}
+			return sum / count;
+		}
+
+		@Override
+		public double getStdDev() {
+			if (count <= 1) {
+				return 0.0;
+			}
+			final double mean = getMean();
+			double sum = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				if (counts[i] != 0) {
+					final double diff = clamp(value(i)) - mean;
+					sum += diff * diff * counts[i];
+				}
+			}
+			return Math.sqrt(sum / (count - 1));
+		}
+
+		@Override
+		public void dump(final OutputStream output) {
+			final PrintWriter out = new PrintWriter(new OutputStreamWriter(output, UTF_8));
+			try {
+				for (long value : getValues()) {
+					out.printf("%d%n", value);
+				}
+			}
+			finally {
+				out.close();
+			}
+		}
+
+		private long clamp(final long value) {
+			return Math.max(min, Math.min(max, value));
+		}
+
+	}
+
+}
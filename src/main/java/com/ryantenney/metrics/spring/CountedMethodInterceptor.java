@@ -19,13 +19,16 @@ import java.lang.reflect.Method;
 
 import org.aopalliance.aop.Advice;
 import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.LoggerFactory;
 import org.springframework.aop.Pointcut;
 import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 
+import com.codahale.metrics.Clock;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.annotation.Counted;
+import com.ryantenney.metrics.annotation.PeakConcurrency;
 
 import static com.ryantenney.metrics.spring.AnnotationFilter.PROXYABLE_METHODS;
 
@@ -35,8 +38,8 @@ class CountedMethodInterceptor extends AbstractMetricMethodInterceptor<Counted,
 	public static final Pointcut POINTCUT = new AnnotationMatchingPointcut(null, ANNOTATION);
 	public static final MethodFilter METHOD_FILTER = new AnnotationFilter(ANNOTATION, PROXYABLE_METHODS);
 
-	public CountedMethodInterceptor(final MetricRegistry metricRegistry, final Class<?> targetClass) {
-		super(metricRegistry, targetClass, ANNOTATION, METHOD_FILTER);
+	public CountedMethodInterceptor(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass) {
+		super(metricRegistry, metricsSwitch, targetClass, ANNOTATION, METHOD_FILTER);
 	}
 
 	@Override
@@ -57,16 +60,49 @@ class CountedMethodInterceptor extends AbstractMetricMethodInterceptor<Counted,
 		return metricRegistry.counter(metricName);
 	}
 
+	@Override
+	protected Counter buildMetric(MetricRegistry metricRegistry, String metricName, Method method, Counted annotation) {
+		return buildCounter(metricRegistry, metricName, method, annotation);
+	}
+
+	/**
+	 * Gets or registers the counter for a {@code @Counted} method, which is an {@link InFlightCounter}
+	 * with a gauge of its peak if the method is non-monotonic and annotated with {@link PeakConcurrency}.
+	 */
+	static Counter buildCounter(final MetricRegistry metricRegistry, final String metricName, final Method method, final Counted annotation) {
+		final PeakConcurrency peakConcurrency = method.getAnnotation(PeakConcurrency.class);
+		if (annotation.monotonic() || peakConcurrency == null) {
+			return metricRegistry.counter(metricName);
+		}
+
+		final InFlightCounter inFlight = new InFlightCounter(peakConcurrency.window(), peakConcurrency.windowUnit(), Clock.defaultClock());
+		final Counter counter = (Counter) MetricRegistries.getOrAdd(metricRegistry, metricName, inFlight, Counter.class);
+		if (counter == inFlight) {
+			MetricRegistries.getOrRegister(metricRegistry, MetricRegistry.name(metricName, "peak"), new LongGauge() {
+				@Override
+				public long getLongValue() {
+					return inFlight.getPeak();
+				}
+			}, LongGauge.class);
+		}
+		else if (!(counter instanceof InFlightCounter)) {
+			LoggerFactory.getLogger(CountedMethodInterceptor.class).warn(
+					"Ignoring @PeakConcurrency on method {}.{}, counter {} is already registered without it", method.getDeclaringClass()
+							.getCanonicalName(), method.getName(), metricName);
+		}
+		return counter;
+	}
+
 	@Override
 	protected String buildMetricName(Class<?> targetClass, Method method, Counted annotation) {
 		return Util.forCountedMethod(targetClass, method, annotation);
 	}
 
-	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry) {
+	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
 		return new AdviceFactory() {
 			@Override
 			public Advice getAdvice(Object bean, Class<?> targetClass) {
-				return new CountedMethodInterceptor(metricRegistry, targetClass);
+				return new CountedMethodInterceptor(metricRegistry, metricsSwitch, targetClass);
 			}
 		};
 	}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import com.codahale.metrics.Gauge;
+
+/**
+ * A {@link Gauge} whose value is a {@code double}. Reporters which recognize this type can read
+ * the value through {@link #getDoubleValue()} without it being boxed.
+ */
+public abstract class DoubleGauge implements Gauge<Double> {
+
+	public abstract double getDoubleValue();
+
+	@Override
+	public Double getValue() {
+		return getDoubleValue();
+	}
+
+}
@@ -36,14 +36,25 @@ class ExceptionMeteredMethodInterceptor extends AbstractMetricMethodInterceptor<
 	public static final Pointcut POINTCUT = new AnnotationMatchingPointcut(null, ANNOTATION);
 	public static final MethodFilter METHOD_FILTER = new AnnotationFilter(ANNOTATION, PROXYABLE_METHODS);
 
-	public ExceptionMeteredMethodInterceptor(final MetricRegistry metricRegistry, final Class<?> targetClass) {
-		super(metricRegistry, targetClass, ANNOTATION, METHOD_FILTER);
+	public ExceptionMeteredMethodInterceptor(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass) {
+		super(metricRegistry, metricsSwitch, targetClass, ANNOTATION, METHOD_FILTER);
 	}
 
 	@Override
-	protected Object invoke(MethodInvocation invocation, Meter meter, ExceptionMetered annotation) throws Throwable {
+	protected Object invoke(MethodInvocation invocation, final Meter meter, final ExceptionMetered annotation) throws Throwable {
 		try {
-			return invocation.proceed();
+			final Object result = invocation.proceed();
+			if (AsyncResults.isAsync(result)) {
+				AsyncResults.whenComplete(result, new AsyncResults.Callback() {
+					@Override
+					public void complete(Throwable failure) {
+						if (failure != null && annotation.cause().isAssignableFrom(failure.getClass())) {
+							meter.mark();
+						}
+					}
+				});
+			}
+			return result;
 		}
 		catch (Throwable t) {
 			if (annotation.cause().isAssignableFrom(t.getClass())) {
@@ -68,11 +79,11 @@ class ExceptionMeteredMethodInterceptor extends AbstractMetricMethodInterceptor<
 		return HIGHEST_PRECEDENCE;
 	}
 
-	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry) {
+	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
 		return new AdviceFactory() {
 			@Override
 			public Advice getAdvice(Object bean, Class<?> targetClass) {
-				return new ExceptionMeteredMethodInterceptor(metricRegistry, targetClass);
+				return new ExceptionMeteredMethodInterceptor(metricRegistry, metricsSwitch, targetClass);
 			}
 		};
 	}
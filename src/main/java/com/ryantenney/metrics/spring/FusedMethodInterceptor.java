@@ -0,0 +1,318 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils.MethodCallback;
+import org.springframework.util.ReflectionUtils.MethodFilter;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.annotation.Counted;
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Metered;
+import com.codahale.metrics.annotation.Timed;
+
+import static com.ryantenney.metrics.spring.AnnotationFilter.PROXYABLE_METHODS;
+
+/**
+ * Records {@code @Timed}, {@code @Metered}, {@code @ExceptionMetered} and {@code @Counted}
+ * in a single interceptor frame, in place of one stacked interceptor per annotation.
+ * Metrics are recorded in the same order as the stacked interceptors would record them.
+ */
+class FusedMethodInterceptor implements MethodInterceptor, MethodCallback, Ordered {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FusedMethodInterceptor.class);
+
+	public static final Pointcut POINTCUT = new ComposablePointcut(TimedMethodInterceptor.POINTCUT)
+			.union(MeteredMethodInterceptor.POINTCUT)
+			.union(ExceptionMeteredMethodInterceptor.POINTCUT)
+			.union(CountedMethodInterceptor.POINTCUT);
+
+	public static final MethodFilter METHOD_FILTER = new MethodFilter() {
+
+		private final MethodFilter[] filters = {
+				TimedMethodInterceptor.METHOD_FILTER,
+				MeteredMethodInterceptor.METHOD_FILTER,
+				ExceptionMeteredMethodInterceptor.METHOD_FILTER,
+				CountedMethodInterceptor.METHOD_FILTER
+		};
+
+		@Override
+		public boolean matches(Method method) {
+			for (MethodFilter filter : filters) {
+				if (filter.matches(method)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	};
+
+	private static final MethodMetrics NO_METRICS = new MethodMetrics();
+
+	private final MetricRegistry metricRegistry;
+	private final MetricsSwitch metricsSwitch;
+	private final Class<?> targetClass;
+	private final Map<MethodKey, MethodMetrics> metrics;
+	private final ConcurrentMap<Method, MethodMetrics> dispatchTable;
+
+	public FusedMethodInterceptor(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass) {
+		this.metricRegistry = metricRegistry;
+		this.metricsSwitch = metricsSwitch;
+		this.targetClass = targetClass;
+		this.metrics = new HashMap<MethodKey, MethodMetrics>();
+		this.dispatchTable = new ConcurrentHashMap<Method, MethodMetrics>();
+
+		LOG.debug("Creating fused method interceptor for class {}", targetClass.getCanonicalName());
+
+		AnnotatedMembers.forClass(targetClass).doWithMethods(this, METHOD_FILTER);
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		final MethodMetrics methodMetrics = getMethodMetrics(invocation.getMethod());
+		if (methodMetrics == NO_METRICS) {
+			return invocation.proceed();
+		}
+		return invoke(invocation, methodMetrics);
+	}
+
+	/**
+	 * Records the metrics of a method around an invocation of it.
+	 */
+	static Object invoke(final MethodInvocation invocation, final MethodMetrics methodMetrics) throws Throwable {
+		final int enabled = methodMetrics.gate.state();
+		if (enabled == 0) {
+			return invocation.proceed();
+		}
+
+		// the metrics disabled by the switch are left null, and read once so that a change
+		// to the switch during the invocation can't unbalance the counter
+		final Counter counter = (enabled & methodMetrics.counterBit) != 0 ? methodMetrics.counter : null;
+		final Meter exceptionMeter = (enabled & methodMetrics.exceptionMeterBit) != 0 ? methodMetrics.exceptionMeter : null;
+
+		if (counter != null) {
+			counter.inc();
+		}
+		final Timer.Context timerCtx;
+		final Timer.Context taggedCtx;
+		if ((enabled & methodMetrics.timerBit) != 0) {
+			if (methodMetrics.sampledTimer != null) {
+				timerCtx = methodMetrics.sampledTimer.timeIfSampled();
+			}
+			else {
+				timerCtx = methodMetrics.timer.time();
+			}
+			taggedCtx = methodMetrics.taggedTimers != null ? TimedMethodInterceptor.time(methodMetrics.taggedTimers.forArguments(invocation.getArguments()))
+					: null;
+		}
+		else {
+			timerCtx = null;
+			taggedCtx = null;
+		}
+		boolean async = false;
+		try {
+			if ((enabled & methodMetrics.meterBit) != 0) {
+				methodMetrics.meter.mark();
+				if (methodMetrics.taggedMeters != null) {
+					methodMetrics.taggedMeters.forArguments(invocation.getArguments()).mark();
+				}
+			}
+			final Object result = invocation.proceed();
+			if ((timerCtx != null || taggedCtx != null || exceptionMeter != null) && AsyncResults.isAsync(result)) {
+				AsyncResults.whenComplete(result, new AsyncResults.Callback() {
+					@Override
+					public void complete(Throwable failure) {
+						TimedMethodInterceptor.close(timerCtx, taggedCtx);
+						if (failure != null && exceptionMeter != null && methodMetrics.exceptionCause.isAssignableFrom(failure.getClass())) {
+							exceptionMeter.mark();
+						}
+					}
+				});
+				async = true;
+			}
+			return result;
+		}
+		catch (Throwable t) {
+			if (exceptionMeter != null && methodMetrics.exceptionCause.isAssignableFrom(t.getClass())) {
+				exceptionMeter.mark();
+			}
+			throw t;
+		}
+		finally {
+			if (!async) {
+				TimedMethodInterceptor.close(timerCtx, taggedCtx);
+			}
+			if (counter != null && !methodMetrics.monotonic) {
+				counter.dec();
+			}
+		}
+	}
+
+	private MethodMetrics getMethodMetrics(final Method method) {
+		final MethodMetrics methodMetrics = dispatchTable.get(method);
+		if (methodMetrics != null) {
+			return methodMetrics;
+		}
+
+		final MethodMetrics resolved = resolveMethodMetrics(method);
+		final MethodMetrics existing = dispatchTable.putIfAbsent(method, resolved);
+		return existing != null ? existing : resolved;
+	}
+
+	private MethodMetrics resolveMethodMetrics(final Method method) {
+		MethodMetrics methodMetrics = metrics.get(MethodKey.forMethod(method));
+		if (methodMetrics == null) {
+			// See AbstractMetricMethodInterceptor
+			final Method specificMethod = BridgeMethodResolver.findBridgedMethod(ClassUtils.getMostSpecificMethod(method, targetClass));
+			if (specificMethod != method) {
+				methodMetrics = metrics.get(MethodKey.forMethod(specificMethod));
+			}
+		}
+		return methodMetrics != null ? methodMetrics : NO_METRICS;
+	}
+
+	@Override
+	public void doWith(Method method) throws IllegalAccessException {
+		final MethodMetrics methodMetrics = buildMethodMetrics(metricRegistry, metricsSwitch, targetClass, method);
+
+		final MethodKey methodKey = MethodKey.forMethod(method);
+		metrics.put(methodKey, methodMetrics);
+		dispatchTable.put(method, methodMetrics);
+
+		LOG.debug("Created fused metrics for method {}", methodKey);
+	}
+
+	/**
+	 * Builds the metrics of a method for each of the annotations it carries, without checking its modifiers.
+	 */
+	static MethodMetrics buildMethodMetrics(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass,
+			final Method method) {
+		final MethodMetrics methodMetrics = new MethodMetrics();
+		final List<Class<? extends Annotation>> annotationTypes = new ArrayList<Class<? extends Annotation>>(4);
+		final List<String> metricNames = new ArrayList<String>(4);
+
+		final Timed timed = method.getAnnotation(Timed.class);
+		if (timed != null) {
+			final String metricName = Util.forTimedMethod(targetClass, method, timed);
+			methodMetrics.timer = TimedMethodInterceptor.buildTimer(metricRegistry, metricName, method);
+			if (methodMetrics.timer instanceof SampledTimer) {
+				methodMetrics.sampledTimer = (SampledTimer) methodMetrics.timer;
+			}
+			if (TaggedMetrics.isTagged(method)) {
+				methodMetrics.taggedTimers = TimedMethodInterceptor.taggedTimers(metricRegistry, metricName, method);
+			}
+			methodMetrics.timerBit = bit(annotationTypes, metricNames, Timed.class, metricName);
+		}
+
+		final Metered metered = method.getAnnotation(Metered.class);
+		if (metered != null) {
+			final String metricName = Util.forMeteredMethod(targetClass, method, metered);
+			methodMetrics.meter = metricRegistry.meter(metricName);
+			if (TaggedMetrics.isTagged(method)) {
+				methodMetrics.taggedMeters = MeteredMethodInterceptor.taggedMeters(metricRegistry, metricName, method);
+			}
+			methodMetrics.meterBit = bit(annotationTypes, metricNames, Metered.class, metricName);
+		}
+
+		final ExceptionMetered exceptionMetered = method.getAnnotation(ExceptionMetered.class);
+		if (exceptionMetered != null) {
+			final String metricName = Util.forExceptionMeteredMethod(targetClass, method, exceptionMetered);
+			methodMetrics.exceptionMeter = metricRegistry.meter(metricName);
+			methodMetrics.exceptionCause = exceptionMetered.cause();
+			methodMetrics.exceptionMeterBit = bit(annotationTypes, metricNames, ExceptionMetered.class, metricName);
+		}
+
+		final Counted counted = method.getAnnotation(Counted.class);
+		if (counted != null) {
+			final String metricName = Util.forCountedMethod(targetClass, method, counted);
+			methodMetrics.counter = CountedMethodInterceptor.buildCounter(metricRegistry, metricName, method, counted);
+			methodMetrics.monotonic = counted.monotonic();
+			methodMetrics.counterBit = bit(annotationTypes, metricNames, Counted.class, metricName);
+		}
+
+		methodMetrics.gate = metricsSwitch.gate(annotationTypes, metricNames);
+		return methodMetrics;
+	}
+
+	private static int bit(final List<Class<? extends Annotation>> annotationTypes, final List<String> metricNames,
+			final Class<? extends Annotation> annotationType, final String metricName) {
+		annotationTypes.add(annotationType);
+		metricNames.add(metricName);
+		return 1 << (annotationTypes.size() - 1);
+	}
+
+	@Override
+	public int getOrder() {
+		return HIGHEST_PRECEDENCE;
+	}
+
+	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
+		return new AdviceFactory() {
+			@Override
+			public Advice getAdvice(Object bean, Class<?> targetClass) {
+				return new FusedMethodInterceptor(metricRegistry, metricsSwitch, targetClass);
+			}
+		};
+	}
+
+	/**
+	 * Metrics recorded for a single method, built once when the bean is proxied.
+	 * Any of the metrics may be {@code null} if the method lacks the corresponding annotation,
+	 * in which case its bit in the {@link MetricsSwitch.Gate} state is {@code 0}.
+	 */
+	static final class MethodMetrics {
+
+		MetricsSwitch.Gate gate;
+		int timerBit;
+		int meterBit;
+		int exceptionMeterBit;
+		int counterBit;
+		Timer timer;
+		SampledTimer sampledTimer;
+		TaggedMetrics<Timer> taggedTimers;
+		Meter meter;
+		TaggedMetrics<Meter> taggedMeters;
+		Meter exceptionMeter;
+		Class<? extends Throwable> exceptionCause;
+		Counter counter;
+		boolean monotonic;
+
+	}
+
+}
@@ -18,7 +18,6 @@ package com.ryantenney.metrics.spring;
 import java.lang.reflect.Field;
 
 import org.springframework.core.Ordered;
-import org.springframework.util.ReflectionUtils;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.annotation.Gauge;
@@ -38,21 +37,26 @@ class GaugeFieldAnnotationBeanPostProcessor extends AbstractAnnotationBeanPostPr
 
 	@Override
 	protected void withField(final Object bean, String beanName, Class<?> targetClass, final Field field) {
-		ReflectionUtils.makeAccessible(field);
-
 		final Gauge annotation = field.getAnnotation(Gauge.class);
 		final String metricName = Util.forGauge(targetClass, field, annotation);
 
-		metrics.register(metricName, new com.codahale.metrics.Gauge<Object>() {
-			@Override
-			public Object getValue() {
-				Object value = ReflectionUtils.getField(field, bean);
-				if (value instanceof com.codahale.metrics.Gauge) {
-					value = ((com.codahale.metrics.Gauge<?>) value).getValue();
+		if (PrimitiveGauges.isSupported(field.getType())) {
+			metrics.register(metricName, PrimitiveGauges.forField(bean, field));
+		}
+		else {
+			final MemberAccessor accessor = MemberAccessor.forField(field);
+
+			metrics.register(metricName, new com.codahale.metrics.Gauge<Object>() {
+				@Override
+				public Object getValue() {
+					Object value = accessor.get(bean);
+					if (value instanceof com.codahale.metrics.Gauge) {
+						value = ((com.codahale.metrics.Gauge<?>) value).getValue();
+					}
+					return value;
 				}
-				return value;
-			}
-		});
+			});
+		}
 
 		LOG.debug("Created gauge {} for field {}.{}", metricName, targetClass.getCanonicalName(), field.getName());
 	}
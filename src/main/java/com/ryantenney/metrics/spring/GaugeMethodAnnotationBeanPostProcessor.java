@@ -18,7 +18,6 @@ package com.ryantenney.metrics.spring;
 import java.lang.reflect.Method;
 
 import org.springframework.core.Ordered;
-import org.springframework.util.ReflectionUtils;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.annotation.Gauge;
@@ -30,6 +29,7 @@ class GaugeMethodAnnotationBeanPostProcessor extends AbstractAnnotationBeanPostP
 	private static final AnnotationFilter FILTER = new AnnotationFilter(Gauge.class, INSTANCE_METHODS);
 
 	private final MetricRegistry metrics;
+	private final PrimitiveGauges primitiveGauges = new PrimitiveGauges();
 
 	public GaugeMethodAnnotationBeanPostProcessor(final MetricRegistry metrics) {
 		super(Members.ALL, Phase.POST_INIT, FILTER);
@@ -45,12 +45,19 @@ class GaugeMethodAnnotationBeanPostProcessor extends AbstractAnnotationBeanPostP
 		final Gauge annotation = method.getAnnotation(Gauge.class);
 		final String metricName = Util.forGauge(targetClass, method, annotation);
 
-		metrics.register(metricName, new com.codahale.metrics.Gauge<Object>() {
-			@Override
-			public Object getValue() {
-				return ReflectionUtils.invokeMethod(method, bean);
-			}
-		});
+		if (PrimitiveGauges.isSupported(method.getReturnType())) {
+			metrics.register(metricName, primitiveGauges.forMethod(bean, method));
+		}
+		else {
+			final MemberAccessor accessor = MemberAccessor.forMethod(method);
+
+			metrics.register(metricName, new com.codahale.metrics.Gauge<Object>() {
+				@Override
+				public Object getValue() {
+					return accessor.get(bean);
+				}
+			});
+		}
 
 		LOG.debug("Created gauge {} for method {}.{}", metricName, targetClass.getCanonicalName(), method.getName());
 	}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.ryantenney.metrics.annotation.PeakConcurrency;
+
+/**
+ * A {@link Counter} of in-flight invocations which also tracks the largest count it has reached,
+ * for {@link PeakConcurrency}.
+ * <p>The count is striped, as a plain {@link Counter}'s is, so concurrent increments don't contend on
+ * a single value. After each increment the stripes are summed, which only reads them, and the peak
+ * is raised if the sum exceeds it; the peak is only written when it is exceeded. The sum isn't an
+ * atomic snapshot, so the peak is approximate: an increment or decrement racing with the sum may be
+ * missed, and a burst shorter than the sum may not be seen.
+ * <p>The peak is tracked over windows of a fixed length, rolled by the clock. {@link #getPeak()}
+ * reports the larger of the peaks of the current and the previous window, and doesn't change
+ * them, so any number of readers see the same peak.
+ */
+public class InFlightCounter extends Counter {
+
+	private final AtomicLong peak = new AtomicLong();
+	private volatile long previousPeak;
+
+	private final Clock clock;
+	private final long window;
+	private volatile long windowEnd;
+
+	public InFlightCounter() {
+		this(1, TimeUnit.MINUTES, Clock.defaultClock());
+	}
+
+	public InFlightCounter(final long window, final TimeUnit windowUnit, final Clock clock) {
+		if (window <= 0) {
+			throw new IllegalArgumentException("Window must be positive");
+		}
+		this.clock = clock;
+		this.window = windowUnit.toNanos(window);
+		this.windowEnd = clock.getTick() + this.window;
+	}
+
+	@Override
+	public void inc(long n) {
+		super.inc(n);
+		final long count = getCount();
+		long current = peak.get();
+		while (count > current) {
+			if (peak.compareAndSet(current, count)) {
+				break;
+			}
+			current = peak.get();
+		}
+	}
+
+	/**
+	 * @return the largest count reached in the current and the previous window
+	 */
+	public long getPeak() {
+		roll();
+		return Math.max(previousPeak, peak.get());
+	}
+
+	private void roll() {
+		final long tick = clock.getTick();
+		if (tick - windowEnd < 0) {
+			return;
+		}
+		synchronized (this) {
+			if (tick - windowEnd < 0) {
+				return;
+			}
+			// readers between these two writes still see the peak of the window being closed
+			previousPeak = peak.get();
+			// if several windows have passed unread, the previous peak covers all of them
+			previousPeak = peak.getAndSet(getCount());
+			final long windows = (tick - windowEnd) / window + 1;
+			windowEnd += windows * window;
+		}
+	}
+
+}
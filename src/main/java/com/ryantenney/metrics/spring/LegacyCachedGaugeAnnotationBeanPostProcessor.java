@@ -18,7 +18,6 @@ package com.ryantenney.metrics.spring;
 import java.lang.reflect.Method;
 
 import org.springframework.core.Ordered;
-import org.springframework.util.ReflectionUtils;
 
 import com.codahale.metrics.MetricRegistry;
 import com.ryantenney.metrics.annotation.CachedGauge;
@@ -46,10 +45,12 @@ class LegacyCachedGaugeAnnotationBeanPostProcessor extends AbstractAnnotationBea
 		final CachedGauge annotation = method.getAnnotation(CachedGauge.class);
 		final String metricName = Util.forCachedGauge(targetClass, method, annotation);
 
+		final MemberAccessor accessor = MemberAccessor.forMethod(method);
+
 		metrics.register(metricName, new com.codahale.metrics.CachedGauge<Object>(annotation.timeout(), annotation.timeoutUnit()) {
 			@Override
 			protected Object loadValue() {
-				return ReflectionUtils.invokeMethod(method, bean);
+				return accessor.get(bean);
 			}
 		});
 
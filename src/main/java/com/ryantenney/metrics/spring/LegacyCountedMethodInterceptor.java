@@ -36,8 +36,8 @@ class LegacyCountedMethodInterceptor extends AbstractMetricMethodInterceptor<Cou
 	public static final Pointcut POINTCUT = new AnnotationMatchingPointcut(null, ANNOTATION);
 	public static final MethodFilter METHOD_FILTER = new AnnotationFilter(ANNOTATION, PROXYABLE_METHODS);
 
-	public LegacyCountedMethodInterceptor(final MetricRegistry metricRegistry, final Class<?> targetClass) {
-		super(metricRegistry, targetClass, ANNOTATION, METHOD_FILTER);
+	public LegacyCountedMethodInterceptor(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass) {
+		super(metricRegistry, metricsSwitch, targetClass, ANNOTATION, METHOD_FILTER);
 	}
 
 	@Override
@@ -63,11 +63,11 @@ class LegacyCountedMethodInterceptor extends AbstractMetricMethodInterceptor<Cou
 		return Util.forCountedMethod(targetClass, method, annotation);
 	}
 
-	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry) {
+	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
 		return new AdviceFactory() {
 			@Override
 			public Advice getAdvice(Object bean, Class<?> targetClass) {
-				return new LegacyCountedMethodInterceptor(metricRegistry, targetClass);
+				return new LegacyCountedMethodInterceptor(metricRegistry, metricsSwitch, targetClass);
 			}
 		};
 	}
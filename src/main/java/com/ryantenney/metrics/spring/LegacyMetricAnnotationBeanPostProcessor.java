@@ -20,12 +20,9 @@ import java.lang.reflect.Field;
 import org.springframework.core.Ordered;
 import org.springframework.util.ReflectionUtils;
 
-import com.codahale.metrics.Counter;
-import com.codahale.metrics.Histogram;
-import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.Timer;
 import com.ryantenney.metrics.annotation.Metric;
+import com.ryantenney.metrics.annotation.Reservoir;
 
 import static com.ryantenney.metrics.spring.AnnotationFilter.INJECTABLE_FIELDS;
 
@@ -57,53 +54,35 @@ class LegacyMetricAnnotationBeanPostProcessor extends AbstractAnnotationBeanPost
 		// Get the value of the field annotated with @Metric
 		com.codahale.metrics.Metric metric = (com.codahale.metrics.Metric) ReflectionUtils.getField(field, bean);
 
-		if (metric == null) {
-			// If null, create a metric of the appropriate type and inject it
-			metric = getMetric(metrics, type, metricName);
-			ReflectionUtils.setField(field, bean, metric);
-			LOG.debug("Injected metric {} for field {}.{}", metricName, targetClass.getCanonicalName(), field.getName());
-		}
-		else {
-			// If non-null, register that instance of the metric
-			try {
-				// Attempt to register that instance of the metric
-				metrics.register(metricName, metric);
-				LOG.debug("Registered metric {} for field {}.{}", metricName, targetClass.getCanonicalName(), field.getName());
+		try {
+			if (metric == null) {
+				// If null, create a metric of the appropriate type and inject it
+				final Reservoir reservoir = field.getAnnotation(Reservoir.class);
+				if (reservoir == null) {
+					metric = MetricRegistries.getOrCreate(metrics, metricName, type.asSubclass(com.codahale.metrics.Metric.class));
+				}
+				else {
+					metric = MetricRegistries.getOrCreate(metrics, metricName, type.asSubclass(com.codahale.metrics.Metric.class), Reservoirs.forAnnotation(reservoir));
+				}
+				ReflectionUtils.setField(field, bean, metric);
+				LOG.debug("Injected metric {} for field {}.{}", metricName, targetClass.getCanonicalName(), field.getName());
 			}
-			catch (IllegalArgumentException ex1) {
-				// A metric is already registered under that name
-				// (Cannot determine the cause without parsing the Exception's message)
-				try {
-					metric = getMetric(metrics, type, metricName);
-					ReflectionUtils.setField(field, bean, metric);
-					LOG.debug("Injected metric {} for field {}.{}", metricName, targetClass.getCanonicalName(), field.getName());
+			else {
+				// If non-null, register that instance of the metric, or inject the metric already registered under that name
+				final com.codahale.metrics.Metric registered = MetricRegistries.getOrRegister(metrics, metricName, metric, type);
+				if (registered == metric) {
+					LOG.debug("Registered metric {} for field {}.{}", metricName, targetClass.getCanonicalName(), field.getName());
 				}
-				catch (IllegalArgumentException ex2) {
-					// A metric of a different type is already registered under that name
-					throw new IllegalArgumentException("Error injecting metric for field " + targetClass.getCanonicalName() + "." + field.getName(), ex2);
+				else {
+					ReflectionUtils.setField(field, bean, registered);
+					LOG.debug("Injected metric {} for field {}.{}", metricName, targetClass.getCanonicalName(), field.getName());
 				}
 			}
 		}
-	}
-
-	private com.codahale.metrics.Metric getMetric(MetricRegistry metricRegistry, Class<?> type, String metricName) {
-		com.codahale.metrics.Metric metric;
-		if (Meter.class == type) {
-			metric = metrics.meter(metricName);
-		}
-		else if (Timer.class == type) {
-			metric = metrics.timer(metricName);
-		}
-		else if (Counter.class == type) {
-			metric = metrics.counter(metricName);
-		}
-		else if (Histogram.class == type) {
-			metric = metrics.histogram(metricName);
-		}
-		else {
-			throw new IllegalArgumentException("Invalid @Metric type " + type.getCanonicalName());
+		catch (IllegalArgumentException ex) {
+			// A metric of a different type is already registered under that name
+			throw new IllegalArgumentException("Error injecting metric for field " + targetClass.getCanonicalName() + "." + field.getName(), ex);
 		}
-		return metric;
 	}
 
 	@Override
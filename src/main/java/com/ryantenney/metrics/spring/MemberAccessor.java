@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Reads the value of a gauged field or no-arg method from a bean.
+ * <p>Methods are invoked through a CGLIB {@link FastClass}, which dispatches to the
+ * method with a direct call rather than through reflection. Methods which a
+ * {@code FastClass} cannot invoke (private or protected methods, or classes for
+ * which code generation fails) fall back to reflection, as do all fields.
+ * <p>The primitive getters read primitive fields without boxing their values.
+ */
+abstract class MemberAccessor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MemberAccessor.class);
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+	public abstract Object get(Object target);
+
+	public int getInt(Object target) {
+		return ((Number) get(target)).intValue();
+	}
+
+	public long getLong(Object target) {
+		return ((Number) get(target)).longValue();
+	}
+
+	public double getDouble(Object target) {
+		return ((Number) get(target)).doubleValue();
+	}
+
+	public static MemberAccessor forMethod(final Method method) {
+		if (!Modifier.isPrivate(method.getModifiers()) && !Modifier.isProtected(method.getModifiers())) {
+			try {
+				final FastClass fastClass = FastClass.create(method.getDeclaringClass().getClassLoader(), method.getDeclaringClass());
+				final int index = fastClass.getIndex(method.getName(), method.getParameterTypes());
+				if (index >= 0) {
+					return new FastMethodAccessor(fastClass, index);
+				}
+			}
+			catch (Throwable ex) {
+				LOG.debug("Unable to generate accessor for method {}.{}, falling back to reflection", method.getDeclaringClass().getCanonicalName(),
+						method.getName(), ex);
+			}
+		}
+
+		ReflectionUtils.makeAccessible(method);
+		return new ReflectiveMethodAccessor(method);
+	}
+
+	public static MemberAccessor forField(final Field field) {
+		ReflectionUtils.makeAccessible(field);
+		return new ReflectiveFieldAccessor(field);
+	}
+
+	private static final class FastMethodAccessor extends MemberAccessor {
+
+		private final FastClass fastClass;
+		private final int index;
+
+		FastMethodAccessor(final FastClass fastClass, final int index) {
+			this.fastClass = fastClass;
+			this.index = index;
+		}
+
+		@Override
+		public Object get(Object target) {
+			try {
+				return fastClass.invoke(index, target, NO_ARGS);
+			}
+			catch (InvocationTargetException ex) {
+				ReflectionUtils.rethrowRuntimeException(ex.getTargetException());
+				throw new IllegalStateException("Should never get here");
+			}
+		}
+
+	}
+
+	private static final class ReflectiveMethodAccessor extends MemberAccessor {
+
+		private final Method method;
+
+		ReflectiveMethodAccessor(final Method method) {
+			this.method = method;
+		}
+
+		@Override
+		public Object get(Object target) {
+			return ReflectionUtils.invokeMethod(method, target);
+		}
+
+	}
+
+	private static final class ReflectiveFieldAccessor extends MemberAccessor {
+
+		private final Field field;
+
+		ReflectiveFieldAccessor(final Field field) {
+			this.field = field;
+		}
+
+		@Override
+		public Object get(Object target) {
+			return ReflectionUtils.getField(field, target);
+		}
+
+		@Override
+		public int getInt(Object target) {
+			try {
+				return field.getInt(target);
+			}
+			catch (IllegalAccessException ex) {
+				ReflectionUtils.handleReflectionException(ex);
+				throw new IllegalStateException("Should never get here");
+			}
+		}
+
+		@Override
+		public long getLong(Object target) {
+			try {
+				return field.getLong(target);
+			}
+			catch (IllegalAccessException ex) {
+				ReflectionUtils.handleReflectionException(ex);
+				throw new IllegalStateException("Should never get here");
+			}
+		}
+
+		@Override
+		public double getDouble(Object target) {
+			try {
+				return field.getDouble(target);
+			}
+			catch (IllegalAccessException ex) {
+				ReflectionUtils.handleReflectionException(ex);
+				throw new IllegalStateException("Should never get here");
+			}
+		}
+
+	}
+
+}
@@ -35,8 +35,8 @@ class MeteredMethodInterceptor extends AbstractMetricMethodInterceptor<Metered,
 	public static final Pointcut POINTCUT = new AnnotationMatchingPointcut(null, ANNOTATION);
 	public static final MethodFilter METHOD_FILTER = new AnnotationFilter(ANNOTATION, PROXYABLE_METHODS);
 
-	public MeteredMethodInterceptor(final MetricRegistry metricRegistry, final Class<?> targetClass) {
-		super(metricRegistry, targetClass, ANNOTATION, METHOD_FILTER);
+	public MeteredMethodInterceptor(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass) {
+		super(metricRegistry, metricsSwitch, targetClass, ANNOTATION, METHOD_FILTER);
 	}
 
 	@Override
@@ -45,21 +45,45 @@ class MeteredMethodInterceptor extends AbstractMetricMethodInterceptor<Metered,
 		return invocation.proceed();
 	}
 
+	@Override
+	protected Object invoke(MethodInvocation invocation, Meter meter, Meter taggedMeter, Metered annotation) throws Throwable {
+		meter.mark();
+		taggedMeter.mark();
+		return invocation.proceed();
+	}
+
 	@Override
 	protected Meter buildMetric(MetricRegistry metricRegistry, String metricName, Metered annotation) {
 		return metricRegistry.meter(metricName);
 	}
 
+	@Override
+	protected TaggedMetrics<?> buildTaggedMetrics(MetricRegistry metricRegistry, String metricName, Method method, Metered annotation) {
+		return taggedMeters(metricRegistry, metricName, method);
+	}
+
+	/**
+	 * Builds the per-tag meters of a {@code @Metered} method.
+	 */
+	static TaggedMetrics<Meter> taggedMeters(final MetricRegistry metricRegistry, final String metricName, final Method method) {
+		return new TaggedMetrics<Meter>(metricRegistry, metricName, method) {
+			@Override
+			protected Meter create(String name) {
+				return metricRegistry.meter(name);
+			}
+		};
+	}
+
 	@Override
 	protected String buildMetricName(Class<?> targetClass, Method method, Metered annotation) {
 		return Util.forMeteredMethod(targetClass, method, annotation);
 	}
 
-	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry) {
+	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
 		return new AdviceFactory() {
 			@Override
 			public Advice getAdvice(Object bean, Class<?> targetClass) {
-				return new MeteredMethodInterceptor(metricRegistry, targetClass);
+				return new MeteredMethodInterceptor(metricRegistry, metricsSwitch, targetClass);
 			}
 		};
 	}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.reflect.Modifier;
+
+import org.springframework.beans.BeanUtils;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.RefreshableMetricRegistry.RegistrationMode;
+
+/**
+ * Gets or registers metrics without relying on {@link MetricRegistry#register(String, Metric)}
+ * throwing when a name is taken. With a {@link RefreshableMetricRegistry} the check and the
+ * registration are a single atomic operation and no exception is thrown; with any other registry
+ * the exception is caught, as there is no other way to look up a single metric.
+ */
+final class MetricRegistries {
+
+	private MetricRegistries() {}
+
+	/**
+	 * Registers the metric, unless a metric of the given type is already registered under the name.
+	 * A {@link RefreshableMetricRegistry} in {@link RegistrationMode#REPLACE REPLACE} mode always
+	 * registers the metric.
+	 * @return the metric registered under the name
+	 * @throws IllegalArgumentException if a metric which isn't of the given type is registered under the name
+	 */
+	static Metric getOrRegister(final MetricRegistry registry, final String name, final Metric metric, final Class<?> type) {
+		Metric existing;
+		if (registry instanceof RefreshableMetricRegistry) {
+			final RefreshableMetricRegistry refreshable = (RefreshableMetricRegistry) registry;
+			if (refreshable.getRegistrationMode() == RegistrationMode.REPLACE) {
+				return refreshable.replace(name, metric);
+			}
+			existing = refreshable.registerIfAbsent(name, metric);
+		}
+		else {
+			try {
+				return registry.register(name, metric);
+			}
+			catch (IllegalArgumentException ex) {
+				existing = registry.getMetrics().get(name);
+			}
+		}
+
+		return existing == null ? metric : checkType(name, existing, type);
+	}
+
+	/**
+	 * Registers the metric, unless a metric of the given type is already registered under the name.
+	 * Unlike {@link #getOrRegister(MetricRegistry, String, Metric, Class)}, a registered metric is
+	 * never replaced, whatever the registration mode.
+	 * @return the metric registered under the name
+	 * @throws IllegalArgumentException if a metric which isn't of the given type is registered under the name
+	 */
+	static Metric getOrAdd(final MetricRegistry registry, final String name, final Metric metric, final Class<?> type) {
+		if (registry instanceof RefreshableMetricRegistry) {
+			final Metric existing = ((RefreshableMetricRegistry) registry).getMetric(name);
+			if (existing != null) {
+				return checkType(name, existing, type);
+			}
+		}
+		return getOrRegister(registry, name, metric, type);
+	}
+
+	/**
+	 * Gets the {@link Timer} or {@link Histogram} registered under the name, or creates and
+	 * registers one with a reservoir from the given factory.
+	 * @throws IllegalArgumentException if the type isn't {@link Timer} or {@link Histogram}, or if a
+	 *             metric which isn't of the given type is registered under the name
+	 */
+	static <T extends Metric> T getOrCreate(final MetricRegistry registry, final String name, final Class<T> type, final ReservoirFactory reservoirs) {
+		if (Timer.class == type) {
+			return type.cast(getOrAdd(registry, name, new Timer(reservoirs.newReservoir()), type));
+		}
+		else if (Histogram.class == type) {
+			return type.cast(getOrAdd(registry, name, new Histogram(reservoirs.newReservoir()), type));
+		}
+		throw new IllegalArgumentException("@Reservoir is only supported for Timer and Histogram, not " + type.getCanonicalName());
+	}
+
+	/**
+	 * @return a reservoir from the registry's {@link ReservoirFactory}, or the default reservoir
+	 */
+	static Reservoir newReservoir(final MetricRegistry registry) {
+		if (registry instanceof RefreshableMetricRegistry) {
+			final ReservoirFactory reservoirs = ((RefreshableMetricRegistry) registry).getReservoirFactory();
+			if (reservoirs != null) {
+				return reservoirs.newReservoir();
+			}
+		}
+		return new ExponentiallyDecayingReservoir();
+	}
+
+	/**
+	 * Gets the metric of the given type registered under the name, or creates and registers one.
+	 * {@link Meter}, {@link Timer}, {@link Counter} and {@link Histogram} are created by the
+	 * registry; any other type, such as a {@link Timer} subclass with its own reservoir, must have a
+	 * no-arg constructor.
+	 * @throws IllegalArgumentException if a metric which isn't of the given type is registered under the name
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends Metric> T getOrCreate(final MetricRegistry registry, final String name, final Class<T> type) {
+		if (Meter.class == type) {
+			return (T) registry.meter(name);
+		}
+		else if (Timer.class == type) {
+			return (T) registry.timer(name);
+		}
+		else if (Counter.class == type) {
+			return (T) registry.counter(name);
+		}
+		else if (Histogram.class == type) {
+			return (T) registry.histogram(name);
+		}
+
+		if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+			throw new IllegalArgumentException("Invalid @Metric type " + type.getCanonicalName());
+		}
+
+		if (registry instanceof RefreshableMetricRegistry) {
+			// avoid instantiating a metric which won't be registered
+			final Metric existing = ((RefreshableMetricRegistry) registry).getMetric(name);
+			if (existing != null) {
+				return type.cast(checkType(name, existing, type));
+			}
+		}
+		return type.cast(getOrAdd(registry, name, BeanUtils.instantiateClass(type), type));
+	}
+
+	private static Metric checkType(final String name, final Metric existing, final Class<?> type) {
+		if (!type.isInstance(existing)) {
+			throw new IllegalArgumentException(name + " is already used for a different type of metric");
+		}
+		return existing;
+	}
+
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * An AspectJ aspect recording {@code @Timed}, {@code @Metered}, {@code @ExceptionMetered} and
+ * {@code @Counted} on the methods it is woven into, by compile-time or load-time weaving, in place
+ * of the Spring AOP proxies. Unlike the proxies it covers private methods and calls a bean makes
+ * to itself.
+ *
+ * <p></p>
+ * The metrics are named and recorded as by the fused interceptor, after the class declaring the
+ * method. Until a registry is given to {@link #configure(MetricRegistry, MetricsSwitch)}, which is
+ * done by {@link MetricsAspectConfigurer}, woven methods proceed without recording anything.
+ * As the aspect is shared by the whole class loader, it records to a single registry at a time:
+ * the one configured most recently which hasn't been reset. Resetting it restores the registry
+ * configured before, so closing a second application context leaves the first one recording.
+ *
+ * <p></p>
+ * The aspect is compiled by the AspectJ compiler, which adds the {@code aspectOf()} method that
+ * classes woven at compile time call. Spring AOP doesn't apply aspects compiled by ajc, so it can't
+ * be used with {@code <aop:aspectj-autoproxy />}.
+ */
+@Aspect
+public class MetricsAspect {
+
+	// the configurations which haven't been reset, the last of which is the current configuration
+	private static final List<Configuration> configurations = new ArrayList<Configuration>();
+
+	private static volatile Configuration configuration;
+
+	@Pointcut("execution(@com.codahale.metrics.annotation.Timed * *(..)) || execution(@com.codahale.metrics.annotation.Metered * *(..))"
+			+ " || execution(@com.codahale.metrics.annotation.ExceptionMetered * *(..)) || execution(@com.codahale.metrics.annotation.Counted * *(..))")
+	public void annotatedMethod() {}
+
+	@Around("annotatedMethod()")
+	public Object record(final ProceedingJoinPoint joinPoint) throws Throwable {
+		final Configuration current = configuration;
+		if (current == null) {
+			return joinPoint.proceed();
+		}
+		return FusedMethodInterceptor.invoke(new JoinPointInvocation(joinPoint), current.getMethodMetrics(joinPoint.getStaticPart()));
+	}
+
+	/**
+	 * Sets the registry and switch of the metrics recorded by the aspect, in place of any set before
+	 * until it is reset.
+	 */
+	public static void configure(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
+		synchronized (configurations) {
+			configurations.add(new Configuration(metricRegistry, metricsSwitch));
+			configuration = configurations.get(configurations.size() - 1);
+		}
+	}
+
+	/**
+	 * Stops the aspect from recording metrics to the given registry, as last configured, so that it
+	 * records to the registry configured before it, if any.
+	 */
+	public static void reset(final MetricRegistry metricRegistry) {
+		synchronized (configurations) {
+			for (int i = configurations.size() - 1; i >= 0; i--) {
+				if (configurations.get(i).metricRegistry == metricRegistry) {
+					configurations.remove(i);
+					break;
+				}
+			}
+			configuration = !configurations.isEmpty() ? configurations.get(configurations.size() - 1) : null;
+		}
+	}
+
+	static MetricRegistry getMetricRegistry() {
+		final Configuration current = configuration;
+		return current != null ? current.metricRegistry : null;
+	}
+
+	private static final class Configuration {
+
+		private final MetricRegistry metricRegistry;
+		private final MetricsSwitch metricsSwitch;
+		private final ConcurrentMap<Method, FusedMethodInterceptor.MethodMetrics> methodMetrics;
+
+		Configuration(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
+			this.metricRegistry = metricRegistry;
+			this.metricsSwitch = metricsSwitch;
+			this.methodMetrics = new ConcurrentHashMap<Method, FusedMethodInterceptor.MethodMetrics>();
+		}
+
+		FusedMethodInterceptor.MethodMetrics getMethodMetrics(final JoinPoint.StaticPart staticPart) {
+			// woven join points cache the method of their signature
+			final MethodSignature signature = (MethodSignature) staticPart.getSignature();
+			final Method method = signature.getMethod();
+			final FusedMethodInterceptor.MethodMetrics existing = methodMetrics.get(method);
+			if (existing != null) {
+				return existing;
+			}
+
+			final FusedMethodInterceptor.MethodMetrics built = FusedMethodInterceptor.buildMethodMetrics(metricRegistry, metricsSwitch,
+					signature.getDeclaringType(), method);
+			final FusedMethodInterceptor.MethodMetrics raced = methodMetrics.putIfAbsent(method, built);
+			return raced != null ? raced : built;
+		}
+
+	}
+
+	/**
+	 * Adapts a join point to the {@link MethodInvocation} recorded by the fused interceptor.
+	 */
+	private static final class JoinPointInvocation implements MethodInvocation {
+
+		private final ProceedingJoinPoint joinPoint;
+
+		JoinPointInvocation(final ProceedingJoinPoint joinPoint) {
+			this.joinPoint = joinPoint;
+		}
+
+		@Override
+		public Method getMethod() {
+			return ((MethodSignature) joinPoint.getSignature()).getMethod();
+		}
+
+		@Override
+		public Object[] getArguments() {
+			return joinPoint.getArgs();
+		}
+
+		@Override
+		public Object proceed() throws Throwable {
+			return joinPoint.proceed();
+		}
+
+		@Override
+		public Object getThis() {
+			return joinPoint.getThis();
+		}
+
+		@Override
+		public AccessibleObject getStaticPart() {
+			return getMethod();
+		}
+
+	}
+
+}
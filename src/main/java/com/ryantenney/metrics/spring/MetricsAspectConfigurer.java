@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Configures the {@link MetricsAspect} to record to a registry for the lifetime of the bean,
+ * which is registered in place of the method interceptors when metrics are woven by AspectJ.
+ */
+public class MetricsAspectConfigurer implements InitializingBean, DisposableBean {
+
+	private final MetricRegistry metricRegistry;
+	private final MetricsSwitch metricsSwitch;
+
+	public MetricsAspectConfigurer(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
+		this.metricRegistry = metricRegistry;
+		this.metricsSwitch = metricsSwitch;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		MetricsAspect.configure(metricRegistry, metricsSwitch);
+	}
+
+	@Override
+	public void destroy() {
+		MetricsAspect.reset(metricRegistry);
+	}
+
+}
@@ -16,6 +16,7 @@
 package com.ryantenney.metrics.spring;
 
 import org.springframework.aop.framework.ProxyConfig;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheckRegistry;
@@ -25,20 +26,69 @@ public class MetricsBeanPostProcessorFactory {
 	private MetricsBeanPostProcessorFactory() {}
 
 	public static AdvisingBeanPostProcessor exceptionMetered(final MetricRegistry metricRegistry, final ProxyConfig proxyConfig) {
-		return new AdvisingBeanPostProcessor(ExceptionMeteredMethodInterceptor.POINTCUT, ExceptionMeteredMethodInterceptor.adviceFactory(metricRegistry),
-				proxyConfig);
+		return exceptionMetered(metricRegistry, new MetricsSwitch(), proxyConfig);
+	}
+
+	public static AdvisingBeanPostProcessor exceptionMetered(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final ProxyConfig proxyConfig) {
+		return new AdvisingBeanPostProcessor("exceptionMetered", ExceptionMeteredMethodInterceptor.POINTCUT,
+				ExceptionMeteredMethodInterceptor.adviceFactory(metricRegistry, metricsSwitch), proxyConfig);
 	}
 
 	public static AdvisingBeanPostProcessor metered(final MetricRegistry metricRegistry, final ProxyConfig proxyConfig) {
-		return new AdvisingBeanPostProcessor(MeteredMethodInterceptor.POINTCUT, MeteredMethodInterceptor.adviceFactory(metricRegistry), proxyConfig);
+		return metered(metricRegistry, new MetricsSwitch(), proxyConfig);
+	}
+
+	public static AdvisingBeanPostProcessor metered(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final ProxyConfig proxyConfig) {
+		return new AdvisingBeanPostProcessor("metered", MeteredMethodInterceptor.POINTCUT, MeteredMethodInterceptor.adviceFactory(metricRegistry, metricsSwitch), proxyConfig);
 	}
 
 	public static AdvisingBeanPostProcessor timed(final MetricRegistry metricRegistry, final ProxyConfig proxyConfig) {
-		return new AdvisingBeanPostProcessor(TimedMethodInterceptor.POINTCUT, TimedMethodInterceptor.adviceFactory(metricRegistry), proxyConfig);
+		return timed(metricRegistry, new MetricsSwitch(), proxyConfig);
+	}
+
+	public static AdvisingBeanPostProcessor timed(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final ProxyConfig proxyConfig) {
+		return new AdvisingBeanPostProcessor("timed", TimedMethodInterceptor.POINTCUT, TimedMethodInterceptor.adviceFactory(metricRegistry, metricsSwitch), proxyConfig);
 	}
 
 	public static AdvisingBeanPostProcessor counted(final MetricRegistry metricRegistry, final ProxyConfig proxyConfig) {
-		return new AdvisingBeanPostProcessor(CountedMethodInterceptor.POINTCUT, CountedMethodInterceptor.adviceFactory(metricRegistry), proxyConfig);
+		return counted(metricRegistry, new MetricsSwitch(), proxyConfig);
+	}
+
+	public static AdvisingBeanPostProcessor counted(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final ProxyConfig proxyConfig) {
+		return new AdvisingBeanPostProcessor("counted", CountedMethodInterceptor.POINTCUT, CountedMethodInterceptor.adviceFactory(metricRegistry, metricsSwitch), proxyConfig);
+	}
+
+	/**
+	 * Creates a single post-processor which records {@code @ExceptionMetered}, {@code @Metered},
+	 * {@code @Timed} and {@code @Counted} through one interceptor, in place of the four
+	 * post-processors created by {@link #exceptionMetered}, {@link #metered}, {@link #timed} and {@link #counted}.
+	 */
+	public static AdvisingBeanPostProcessor fused(final MetricRegistry metricRegistry, final ProxyConfig proxyConfig) {
+		return fused(metricRegistry, new MetricsSwitch(), proxyConfig);
+	}
+
+	public static AdvisingBeanPostProcessor fused(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final ProxyConfig proxyConfig) {
+		return new AdvisingBeanPostProcessor("fused", FusedMethodInterceptor.POINTCUT, FusedMethodInterceptor.adviceFactory(metricRegistry, metricsSwitch), proxyConfig);
+	}
+
+	/**
+	 * Creates a post-processor which returns every bean unchanged, for use in place of
+	 * post-processors which have been disabled by configuration.
+	 */
+	public static BeanPostProcessor noop() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return bean;
+			}
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return bean;
+			}
+
+		};
 	}
 
 	public static GaugeFieldAnnotationBeanPostProcessor gaugeField(final MetricRegistry metricRegistry) {
@@ -63,7 +113,13 @@ public class MetricsBeanPostProcessorFactory {
 
 	@Deprecated
 	public static AdvisingBeanPostProcessor legacyCounted(final MetricRegistry metricRegistry, final ProxyConfig proxyConfig) {
-		return new AdvisingBeanPostProcessor(LegacyCountedMethodInterceptor.POINTCUT, LegacyCountedMethodInterceptor.adviceFactory(metricRegistry), proxyConfig);
+		return legacyCounted(metricRegistry, new MetricsSwitch(), proxyConfig);
+	}
+
+	@Deprecated
+	public static AdvisingBeanPostProcessor legacyCounted(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final ProxyConfig proxyConfig) {
+		return new AdvisingBeanPostProcessor("legacyCounted", LegacyCountedMethodInterceptor.POINTCUT, LegacyCountedMethodInterceptor.adviceFactory(metricRegistry, metricsSwitch),
+				proxyConfig);
 	}
 
 	@Deprecated
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+import org.springframework.util.StringUtils;
+
+/**
+ * The metric annotated members declared by a single class, as recorded at compile time by
+ * the optional metrics-spring-processor annotation processor.
+ * <p>The index for a class is read from {@code META-INF/metrics-spring/<class name>}, which
+ * holds one tab separated line per annotation: the member kind ({@code field} or
+ * {@code method}), the annotation type, the member name, the comma separated parameter
+ * types of a method, and the metric name the processor expects. The name isn't read: metric
+ * names are always derived from the annotations at runtime, so that they can't go stale.
+ * <p>The processor also writes the marker {@code META-INF/metrics-spring.index}. A class loader is
+ * checked for the marker once, and the index of a class is only looked for if its class loader
+ * has the marker, so applications which don't use the processor pay for a single lookup.
+ */
+final class MetricsIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetricsIndex.class);
+
+	public static final String INDEX_LOCATION = "META-INF/metrics-spring/";
+
+	public static final String MARKER_LOCATION = "META-INF/metrics-spring.index";
+
+	private static final ConcurrentMap<ClassLoader, Boolean> markers = new ConcurrentReferenceHashMap<ClassLoader, Boolean>(16,
+			ReferenceType.WEAK);
+
+	private final List<Field> fields;
+	private final List<Method> methods;
+
+	private MetricsIndex(final List<Field> fields, final List<Method> methods) {
+		this.fields = fields;
+		this.methods = methods;
+	}
+
+	public List<Field> getFields() {
+		return fields;
+	}
+
+	public List<Method> getMethods() {
+		return methods;
+	}
+
+	/**
+	 * @return the index for the given class, or {@code null} if the class has no index or it could not be read
+	 */
+	public static MetricsIndex forClass(final Class<?> clazz) {
+		return forClass(clazz, clazz.getClassLoader());
+	}
+
+	static MetricsIndex forClass(final Class<?> clazz, final ClassLoader classLoader) {
+		if (classLoader == null || !hasMarker(classLoader)) {
+			return null;
+		}
+
+		final InputStream in = classLoader.getResourceAsStream(INDEX_LOCATION + clazz.getName());
+		if (in == null) {
+			return null;
+		}
+
+		try {
+			final MetricsIndex index = read(clazz, new BufferedReader(new InputStreamReader(in, "UTF-8")));
+			LOG.debug("Resolved annotated members of class {} from metrics index", clazz.getCanonicalName());
+			return index;
+		}
+		catch (Exception ex) {
+			LOG.debug("Unable to read metrics index for class {}, falling back to reflection", clazz.getCanonicalName(), ex);
+			return null;
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+	private static boolean hasMarker(final ClassLoader classLoader) {
+		Boolean marker = markers.get(classLoader);
+		if (marker == null) {
+			marker = classLoader.getResource(MARKER_LOCATION) != null;
+			markers.put(classLoader, marker);
+		}
+		return marker;
+	}
+
+	private static MetricsIndex read(final Class<?> clazz, final BufferedReader reader) throws IOException, ClassNotFoundException,
+			NoSuchFieldException, NoSuchMethodException {
+		final Set<Field> fields = new LinkedHashSet<Field>();
+		final Set<Method> methods = new LinkedHashSet<Method>();
+
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			final String[] columns = line.split("\t", -1);
+			if (columns.length != 5) {
+				throw new IOException("Malformed metrics index entry: " + line);
+			}
+
+			if ("field".equals(columns[0])) {
+				fields.add(clazz.getDeclaredField(columns[2]));
+			}
+			else if ("method".equals(columns[0])) {
+				methods.add(clazz.getDeclaredMethod(columns[2], parameterTypes(columns[3], clazz.getClassLoader())));
+			}
+			else {
+				throw new IOException("Malformed metrics index entry: " + line);
+			}
+		}
+
+		return new MetricsIndex(new ArrayList<Field>(fields), new ArrayList<Method>(methods));
+	}
+
+	private static Class<?>[] parameterTypes(final String parameterTypes, final ClassLoader classLoader) throws ClassNotFoundException {
+		final String[] typeNames = StringUtils.commaDelimitedListToStringArray(parameterTypes);
+		final Class<?>[] types = new Class<?>[typeNames.length];
+		for (int i = 0; i < typeNames.length; i++) {
+			types[i] = ClassUtils.forName(typeNames[i], classLoader);
+		}
+		return types;
+	}
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Turns the recording of method metrics on and off at runtime, for an annotation type such as
+ * {@code @Timed}, or for the metrics whose names start with a prefix.
+ *
+ * <p></p>
+ * Each intercepted method holds a {@link Gate}, whose state is recomputed when the switch changes.
+ * A method whose metrics are all disabled costs a single volatile read before the invocation
+ * proceeds. Beans remain proxied while disabled, so recording can be turned back on.
+ *
+ * <p></p>
+ * The switch is a standard MBean, and is exported by an {@code MBeanExporter} which autodetects
+ * MBeans, such as the one registered by {@code @EnableMBeanExport}.
+ */
+public class MetricsSwitch implements MetricsSwitchMBean {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetricsSwitch.class);
+
+	private final Set<String> disabled = new LinkedHashSet<String>();
+	private final List<WeakReference<Gate>> gates = new ArrayList<WeakReference<Gate>>();
+
+	public MetricsSwitch() {}
+
+	public MetricsSwitch(final String disabled) {
+		setDisabled(disabled);
+	}
+
+	@Override
+	public synchronized String getDisabled() {
+		return StringUtils.collectionToCommaDelimitedString(disabled);
+	}
+
+	@Override
+	public synchronized void setDisabled(final String disabled) {
+		this.disabled.clear();
+		for (String entry : StringUtils.commaDelimitedListToStringArray(disabled)) {
+			if (StringUtils.hasText(entry)) {
+				this.disabled.add(entry.trim());
+			}
+		}
+		update();
+	}
+
+	@Override
+	public synchronized void disable(final String entry) {
+		if (StringUtils.hasText(entry) && disabled.add(entry.trim())) {
+			update();
+		}
+	}
+
+	@Override
+	public synchronized void enable(final String entry) {
+		if (StringUtils.hasText(entry) && disabled.remove(entry.trim())) {
+			update();
+		}
+	}
+
+	@Override
+	public synchronized boolean isEnabled(final String annotationType, final String metricName) {
+		for (String entry : disabled) {
+			if (entry.startsWith("@")) {
+				final String type = entry.substring(1);
+				if (type.equals(annotationType) || type.equals(ClassUtils.getShortName(annotationType))) {
+					return false;
+				}
+			}
+			else if (metricName.startsWith(entry)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a gate for the metrics of an intercepted method.
+	 *
+	 * @param annotationTypes the annotation type of each metric
+	 * @param metricNames the name of each metric
+	 */
+	synchronized Gate gate(final List<Class<? extends Annotation>> annotationTypes, final List<String> metricNames) {
+		Assert.isTrue(annotationTypes.size() <= Integer.SIZE, "A gate holds at most " + Integer.SIZE + " metrics");
+		final Gate gate = new Gate(annotationTypes, metricNames);
+		gate.state = state(gate);
+		gates.add(new WeakReference<Gate>(gate));
+		return gate;
+	}
+
+	synchronized Gate gate(final Class<? extends Annotation> annotationType, final String metricName) {
+		final List<Class<? extends Annotation>> annotationTypes = new ArrayList<Class<? extends Annotation>>(1);
+		annotationTypes.add(annotationType);
+		final List<String> metricNames = new ArrayList<String>(1);
+		metricNames.add(metricName);
+		return gate(annotationTypes, metricNames);
+	}
+
+	private void update() {
+		LOG.info("Metrics disabled for [{}]", getDisabled());
+		final Iterator<WeakReference<Gate>> iterator = gates.iterator();
+		while (iterator.hasNext()) {
+			final Gate gate = iterator.next().get();
+			if (gate == null) {
+				iterator.remove();
+			}
+			else {
+				gate.state = state(gate);
+			}
+		}
+	}
+
+	private int state(final Gate gate) {
+		int state = 0;
+		for (int i = 0; i < gate.annotationTypes.length; i++) {
+			if (isEnabled(gate.annotationTypes[i].getName(), gate.metricNames[i])) {
+				state |= 1 << i;
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Whether each of the metrics of an intercepted method is enabled, as a bit mask in the
+	 * order the metrics were given to {@link MetricsSwitch#gate(List, List)}.
+	 */
+	static final class Gate {
+
+		private final Class<?>[] annotationTypes;
+		private final String[] metricNames;
+		private volatile int state;
+
+		private Gate(final List<Class<? extends Annotation>> annotationTypes, final List<String> metricNames) {
+			this.annotationTypes = annotationTypes.toArray(new Class<?>[annotationTypes.size()]);
+			this.metricNames = metricNames.toArray(new String[metricNames.size()]);
+		}
+
+		/**
+		 * @return the bit mask of enabled metrics, which is {@code 0} if all are disabled
+		 */
+		int state() {
+			return state;
+		}
+
+		boolean isEnabled() {
+			return state != 0;
+		}
+
+	}
+
+}
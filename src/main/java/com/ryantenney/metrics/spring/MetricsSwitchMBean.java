@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+/**
+ * The management interface of {@link MetricsSwitch}.
+ */
+public interface MetricsSwitchMBean {
+
+	/**
+	 * @return the comma-separated list of disabled annotation types and metric name prefixes
+	 */
+	String getDisabled();
+
+	void setDisabled(String disabled);
+
+	/**
+	 * Disables recording for an annotation type, given as {@code @Timed}, or for the metrics
+	 * whose names start with the given prefix.
+	 */
+	void disable(String entry);
+
+	/**
+	 * Enables recording again for an annotation type or metric name prefix given to {@link #disable(String)}.
+	 */
+	void enable(String entry);
+
+	boolean isEnabled(String annotationType, String metricName);
+
+}
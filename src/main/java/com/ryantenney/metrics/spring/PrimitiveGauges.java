@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.cglib.core.ReflectUtils;
+
+import com.codahale.metrics.Gauge;
+
+/**
+ * Creates {@link IntGauge}, {@link LongGauge} and {@link DoubleGauge} instances for gauged
+ * fields and methods of type {@code int}, {@code long} and {@code double}.
+ * <p>For non-private methods a subclass of the gauge type is generated which calls the method
+ * directly, so that reading the gauge neither boxes the value nor goes through reflection.
+ * Private methods, classes for which code generation fails, and fields are read through a
+ * {@link MemberAccessor}, which reads primitive fields without boxing.
+ */
+class PrimitiveGauges implements Opcodes {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PrimitiveGauges.class);
+
+	private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+	private static final String OBJECT_DESCRIPTOR = Type.getDescriptor(Object.class);
+
+	private final ConcurrentMap<Method, Constructor<?>> generated = new ConcurrentHashMap<Method, Constructor<?>>();
+
+	static boolean isSupported(final Class<?> type) {
+		return type == int.class || type == long.class || type == double.class;
+	}
+
+	Gauge<?> forMethod(final Object bean, final Method method) {
+		if (!Modifier.isPrivate(method.getModifiers())) {
+			try {
+				Constructor<?> constructor = generated.get(method);
+				if (constructor == null) {
+					constructor = generate(method).getConstructor(Object.class);
+					generated.putIfAbsent(method, constructor);
+				}
+				return (Gauge<?>) constructor.newInstance(bean);
+			}
+			catch (Throwable ex) {
+				LOG.debug("Unable to generate gauge for method {}.{}, falling back to accessor", method.getDeclaringClass().getCanonicalName(),
+						method.getName(), ex);
+			}
+		}
+
+		return forAccessor(bean, method.getReturnType(), MemberAccessor.forMethod(method));
+	}
+
+	static Gauge<?> forField(final Object bean, final Field field) {
+		return forAccessor(bean, field.getType(), MemberAccessor.forField(field));
+	}
+
+	private static Gauge<?> forAccessor(final Object bean, final Class<?> type, final MemberAccessor accessor) {
+		if (type == int.class) {
+			return new IntGauge() {
+				@Override
+				public int getIntValue() {
+					return accessor.getInt(bean);
+				}
+			};
+		}
+		else if (type == long.class) {
+			return new LongGauge() {
+				@Override
+				public long getLongValue() {
+					return accessor.getLong(bean);
+				}
+			};
+		}
+		else if (type == double.class) {
+			return new DoubleGauge() {
+				@Override
+				public double getDoubleValue() {
+					return accessor.getDouble(bean);
+				}
+			};
+		}
+		throw new IllegalArgumentException("Unsupported gauge type " + type.getName());
+	}
+
+	/**
+	 * Generates, in the package and class loader of the method's declaring class, a subclass of the
+	 * gauge type whose constructor accepts the bean and whose primitive getter invokes the method on it.
+	 */
+	private static Class<?> generate(final Method method) throws Exception {
+		final Class<?> declaringClass = method.getDeclaringClass();
+		final Class<?> returnType = method.getReturnType();
+
+		final Class<?> gaugeClass;
+		final String getterName;
+		if (returnType == int.class) {
+			gaugeClass = IntGauge.class;
+			getterName = "getIntValue";
+		}
+		else if (returnType == long.class) {
+			gaugeClass = LongGauge.class;
+			getterName = "getLongValue";
+		}
+		else if (returnType == double.class) {
+			gaugeClass = DoubleGauge.class;
+			getterName = "getDoubleValue";
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported gauge type " + returnType.getName());
+		}
+
+		final String className = declaringClass.getName() + "$$" + gaugeClass.getSimpleName() + "ByMetricsSpring$$" + CLASS_COUNTER.incrementAndGet();
+		final String internalName = className.replace('.', '/');
+		final String superName = Type.getInternalName(gaugeClass);
+		final String targetName = Type.getInternalName(declaringClass);
+
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, internalName, null, superName, null);
+		cw.visitField(ACC_PRIVATE | ACC_FINAL, "target", OBJECT_DESCRIPTOR, null, null).visitEnd();
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(" + OBJECT_DESCRIPTOR + ")V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitFieldInsn(PUTFIELD, internalName, "target", OBJECT_DESCRIPTOR);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		final boolean isInterface = declaringClass.isInterface();
+		mv = cw.visitMethod(ACC_PUBLIC, getterName, Type.getMethodDescriptor(method), null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, internalName, "target", OBJECT_DESCRIPTOR);
+		mv.visitTypeInsn(CHECKCAST, targetName);
+		mv.visitMethodInsn(isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL, targetName, method.getName(), Type.getMethodDescriptor(method), isInterface);
+		mv.visitInsn(Type.getType(returnType).getOpcode(IRETURN));
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		return ReflectUtils.defineClass(className, cw.toByteArray(), declaringClass.getClassLoader());
+	}
+
+}
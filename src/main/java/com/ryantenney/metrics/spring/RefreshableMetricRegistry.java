@@ -0,0 +1,274 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+
+/**
+ * A {@link MetricRegistry} which can look up a metric by name without copying the registry, and
+ * can register a metric under a name that is already taken without throwing an exception, as
+ * happens when a context is refreshed or a child context registers the same beans.
+ * <p>What {@link #register(String, Metric)} does when the name is taken is decided by the
+ * {@link RegistrationMode}. {@link #getOrRegister(String, Metric)} and
+ * {@link #replace(String, Metric)} are available whatever the mode. None of these take a lock;
+ * each is a single atomic operation on the registry's map, retried if it races with another.
+ */
+public class RefreshableMetricRegistry extends MetricRegistry {
+
+	public enum RegistrationMode {
+
+		/**
+		 * Throws an {@link IllegalArgumentException} when a name is taken, as {@link MetricRegistry} does.
+		 */
+		REJECT,
+
+		/**
+		 * Returns the metric registered under the name, if it is of the same type.
+		 */
+		REUSE,
+
+		/**
+		 * Replaces the metric registered under the name, notifying listeners of its removal.
+		 */
+		REPLACE
+
+	}
+
+	private ConcurrentMap<String, Metric> metrics;
+	private final List<MetricRegistryListener> listeners = new CopyOnWriteArrayList<MetricRegistryListener>();
+	private final RegistrationMode mode;
+	private volatile ReservoirFactory reservoirFactory;
+
+	public RefreshableMetricRegistry() {
+		this(RegistrationMode.REJECT);
+	}
+
+	public RefreshableMetricRegistry(final RegistrationMode mode) {
+		if (mode == null) {
+			throw new IllegalArgumentException("Registration mode must not be null");
+		}
+		this.mode = mode;
+	}
+
+	@Override
+	protected ConcurrentMap<String, Metric> buildMap() {
+		// called by the superclass constructor
+		metrics = new ConcurrentHashMap<String, Metric>();
+		return metrics;
+	}
+
+	public RegistrationMode getRegistrationMode() {
+		return mode;
+	}
+
+	/**
+	 * Sets the factory for the reservoirs of the timers and histograms created by
+	 * {@link #timer(String)} and {@link #histogram(String)}. By default they use an
+	 * {@link com.codahale.metrics.ExponentiallyDecayingReservoir ExponentiallyDecayingReservoir}.
+	 */
+	public void setReservoirFactory(final ReservoirFactory reservoirFactory) {
+		this.reservoirFactory = reservoirFactory;
+	}
+
+	public ReservoirFactory getReservoirFactory() {
+		return reservoirFactory;
+	}
+
+	@Override
+	public Timer timer(final String name) {
+		final ReservoirFactory factory = reservoirFactory;
+		if (factory == null) {
+			return super.timer(name);
+		}
+		Metric existing = metrics.get(name);
+		if (existing == null) {
+			final Timer timer = new Timer(factory.newReservoir());
+			existing = registerIfAbsent(name, timer);
+			if (existing == null) {
+				return timer;
+			}
+		}
+		if (existing instanceof Timer) {
+			return (Timer) existing;
+		}
+		throw new IllegalArgumentException(name + " is already used for a different type of metric");
+	}
+
+	@Override
+	public Histogram histogram(final String name) {
+		final ReservoirFactory factory = reservoirFactory;
+		if (factory == null) {
+			return super.histogram(name);
+		}
+		Metric existing = metrics.get(name);
+		if (existing == null) {
+			final Histogram histogram = new Histogram(factory.newReservoir());
+			existing = registerIfAbsent(name, histogram);
+			if (existing == null) {
+				return histogram;
+			}
+		}
+		if (existing instanceof Histogram) {
+			return (Histogram) existing;
+		}
+		throw new IllegalArgumentException(name + " is already used for a different type of metric");
+	}
+
+	@Override
+	public <T extends Metric> T register(final String name, final T metric) throws IllegalArgumentException {
+		if (mode == RegistrationMode.REJECT) {
+			return super.register(name, metric);
+		}
+		if (metric instanceof MetricSet) {
+			for (Map.Entry<String, Metric> entry : ((MetricSet) metric).getMetrics().entrySet()) {
+				register(name(name, entry.getKey()), entry.getValue());
+			}
+			return metric;
+		}
+		return mode == RegistrationMode.REUSE ? getOrRegister(name, metric) : replace(name, metric);
+	}
+
+	/**
+	 * @return the metric registered under the name, or null
+	 */
+	public Metric getMetric(final String name) {
+		return metrics.get(name);
+	}
+
+	/**
+	 * Registers the metric, unless a metric is already registered under the name.
+	 * @return the metric already registered under the name, or null if the metric was registered
+	 */
+	public Metric registerIfAbsent(final String name, final Metric metric) {
+		final Metric existing = metrics.get(name);
+		if (existing != null) {
+			return existing;
+		}
+		final Metric raced = metrics.putIfAbsent(name, metric);
+		if (raced == null) {
+			onMetricAdded(name, metric);
+		}
+		return raced;
+	}
+
+	/**
+	 * Registers the metric, unless a metric of the same class is already registered under the name.
+	 * @return the metric registered under the name
+	 * @throws IllegalArgumentException if a metric of another class is registered under the name
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Metric> T getOrRegister(final String name, final T metric) throws IllegalArgumentException {
+		final Metric existing = registerIfAbsent(name, metric);
+		if (existing == null) {
+			return metric;
+		}
+		if (metric.getClass().isInstance(existing)) {
+			return (T) existing;
+		}
+		throw new IllegalArgumentException(name + " is already used for a different type of metric");
+	}
+
+	/**
+	 * Registers the metric, replacing any metric already registered under the name.
+	 * @return the metric
+	 */
+	public <T extends Metric> T replace(final String name, final T metric) {
+		while (true) {
+			final Metric existing = metrics.get(name);
+			if (existing == metric) {
+				return metric;
+			}
+			if (existing == null) {
+				if (metrics.putIfAbsent(name, metric) == null) {
+					onMetricAdded(name, metric);
+					return metric;
+				}
+			}
+			else if (metrics.replace(name, existing, metric)) {
+				onMetricRemoved(name, existing);
+				onMetricAdded(name, metric);
+				return metric;
+			}
+		}
+	}
+
+	@Override
+	public void addListener(final MetricRegistryListener listener) {
+		super.addListener(listener);
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(final MetricRegistryListener listener) {
+		super.removeListener(listener);
+		listeners.remove(listener);
+	}
+
+	private void onMetricAdded(final String name, final Metric metric) {
+		for (MetricRegistryListener listener : listeners) {
+			if (metric instanceof Gauge) {
+				listener.onGaugeAdded(name, (Gauge<?>) metric);
+			}
+			else if (metric instanceof Counter) {
+				listener.onCounterAdded(name, (Counter) metric);
+			}
+			else if (metric instanceof Histogram) {
+				listener.onHistogramAdded(name, (Histogram) metric);
+			}
+			else if (metric instanceof Meter) {
+				listener.onMeterAdded(name, (Meter) metric);
+			}
+			else if (metric instanceof Timer) {
+				listener.onTimerAdded(name, (Timer) metric);
+			}
+		}
+	}
+
+	private void onMetricRemoved(final String name, final Metric metric) {
+		for (MetricRegistryListener listener : listeners) {
+			if (metric instanceof Gauge) {
+				listener.onGaugeRemoved(name);
+			}
+			else if (metric instanceof Counter) {
+				listener.onCounterRemoved(name);
+			}
+			else if (metric instanceof Histogram) {
+				listener.onHistogramRemoved(name);
+			}
+			else if (metric instanceof Meter) {
+				listener.onMeterRemoved(name);
+			}
+			else if (metric instanceof Timer) {
+				listener.onTimerRemoved(name);
+			}
+		}
+	}
+
+}
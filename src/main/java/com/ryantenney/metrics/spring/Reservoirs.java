@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.UniformReservoir;
+import com.ryantenney.metrics.annotation.Reservoir.Type;
+
+/**
+ * Creates {@link ReservoirFactory ReservoirFactories} for each type of
+ * {@link Type reservoir}.
+ */
+public final class Reservoirs {
+
+	private Reservoirs() {}
+
+	public static ReservoirFactory forAnnotation(final com.ryantenney.metrics.annotation.Reservoir annotation) {
+		return forType(annotation.value(), annotation.size(), annotation.window(), annotation.windowUnit());
+	}
+
+	/**
+	 * @param size the number of values kept by {@code UNIFORM} and {@code SLIDING_WINDOW} reservoirs
+	 * @param window the length of time covered by {@code SLIDING_TIME_WINDOW} and {@code HDR} reservoirs
+	 */
+	public static ReservoirFactory forType(final Type type, final int size, final long window, final TimeUnit windowUnit) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Reservoir size must be at least 1, was " + size);
+		}
+		if (window < 1) {
+			throw new IllegalArgumentException("Reservoir window must be at least 1, was " + window);
+		}
+		if (type == Type.EXPONENTIALLY_DECAYING) {
+			return new ReservoirFactory() {
+				@Override
+				public Reservoir newReservoir() {
+					return new ExponentiallyDecayingReservoir();
+				}
+			};
+		}
+		else if (type == Type.UNIFORM) {
+			return new ReservoirFactory() {
+				@Override
+				public Reservoir newReservoir() {
+					return new UniformReservoir(size);
+				}
+			};
+		}
+		else if (type == Type.SLIDING_WINDOW) {
+			return new ReservoirFactory() {
+				@Override
+				public Reservoir newReservoir() {
+					return new SlidingWindowReservoir(size);
+				}
+			};
+		}
+		else if (type == Type.SLIDING_TIME_WINDOW) {
+			return new ReservoirFactory() {
+				@Override
+				public Reservoir newReservoir() {
+					return new SlidingTimeWindowReservoir(window, windowUnit);
+				}
+			};
+		}
+		else if (type == Type.HDR) {
+			return new ReservoirFactory() {
+				@Override
+				public Reservoir newReservoir() {
+					return new BucketedReservoir(window, windowUnit);
+				}
+			};
+		}
+		else {
+			throw new IllegalArgumentException("Unknown reservoir type " + type);
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.annotation.Sampled;
+
+/**
+ * A {@link Timer} which times only a sample of the invocations of a {@link Sampled} method.
+ * Invocations which are not sampled only increment a counter; {@link #getCount()} includes them
+ * and the rates are scaled up by the ratio of all invocations to sampled invocations, while the
+ * snapshot covers the sampled invocations.
+ */
+public class SampledTimer extends Timer {
+
+	private final Sampler sampler;
+	private final Counter unsampled = new Counter();
+
+	SampledTimer(final Sampler sampler) {
+		this.sampler = sampler;
+	}
+
+	SampledTimer(final Sampler sampler, final Reservoir reservoir) {
+		super(reservoir);
+		this.sampler = sampler;
+	}
+
+	/**
+	 * @return a context for timing this invocation, or {@code null} if it was not sampled, in which case it has been counted
+	 */
+	public Context timeIfSampled() {
+		if (sampler.sample()) {
+			return time();
+		}
+		unsampled.inc();
+		return null;
+	}
+
+	/**
+	 * @return the number of invocations which were timed
+	 */
+	public long getSampledCount() {
+		return super.getCount();
+	}
+
+	@Override
+	public long getCount() {
+		return super.getCount() + unsampled.getCount();
+	}
+
+	@Override
+	public double getMeanRate() {
+		return scale(super.getMeanRate());
+	}
+
+	@Override
+	public double getOneMinuteRate() {
+		return scale(super.getOneMinuteRate());
+	}
+
+	@Override
+	public double getFiveMinuteRate() {
+		return scale(super.getFiveMinuteRate());
+	}
+
+	@Override
+	public double getFifteenMinuteRate() {
+		return scale(super.getFifteenMinuteRate());
+	}
+
+	private double scale(final double rate) {
+		final long sampled = super.getCount();
+		return sampled > 0 ? rate * ((double) (sampled + unsampled.getCount()) / sampled) : rate;
+	}
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import com.ryantenney.metrics.annotation.Sampled;
+
+/**
+ * Decides which invocations of a {@link Sampled} method are timed. The state is kept per
+ * thread, so sampling involves no shared writes.
+ */
+abstract class Sampler {
+
+	public abstract boolean sample();
+
+	public static Sampler forAnnotation(final Sampled sampled) {
+		if (sampled.value() < 1) {
+			throw new IllegalArgumentException("@Sampled value must be at least 1, was " + sampled.value());
+		}
+		return sampled.random() ? random(sampled.value()) : everyNth(sampled.value());
+	}
+
+	/**
+	 * Samples the first and then every {@code n}th invocation on each thread.
+	 */
+	public static Sampler everyNth(final int n) {
+		return new Sampler() {
+
+			private final ThreadLocal<int[]> countdown = new ThreadLocal<int[]>() {
+				@Override
+				protected int[] initialValue() {
+					return new int[1];
+				}
+			};
+
+			@Override
+			public boolean sample() {
+				final int[] remaining = countdown.get();
+				if (remaining[0] == 0) {
+					remaining[0] = n - 1;
+					return true;
+				}
+				remaining[0]--;
+				return false;
+			}
+
+		};
+	}
+
+	/**
+	 * Samples each invocation with probability {@code 1 / n}, using a per-thread xorshift generator.
+	 */
+	public static Sampler random(final int n) {
+		return new Sampler() {
+
+			private final ThreadLocal<long[]> seed = new ThreadLocal<long[]>() {
+				@Override
+				protected long[] initialValue() {
+					final long seed = System.nanoTime() ^ (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L);
+					return new long[] { seed != 0 ? seed : 1 };
+				}
+			};
+
+			@Override
+			public boolean sample() {
+				final long[] state = seed.get();
+				long x = state[0];
+				x ^= x << 13;
+				x ^= x >>> 7;
+				x ^= x << 17;
+				state[0] = x;
+				return (x >>> 1) % n == 0;
+			}
+
+		};
+	}
+
+}
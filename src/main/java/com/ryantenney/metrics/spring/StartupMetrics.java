@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.HierarchicalBeanFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Records the time metrics-spring itself spends while the application context starts, as timers
+ * named under {@value #PREFIX} in a registry. Each stage of startup is timed per post-processor or
+ * reporter, in a timer named {@code <prefix>.<stage>.<name>}:
+ * <ul>
+ * <li>{@code process} - finding the annotated members of each bean and registering their metrics</li>
+ * <li>{@code proxy} - building the advice of each advised bean and proxying it</li>
+ * <li>{@code reporter} - creating each reporter declared in XML</li>
+ * </ul>
+ * The time spent on each bean, across all stages, is totalled too, and a report of the stages and
+ * the slowest beans is logged once the context is refreshed.
+ *
+ * <p></p>
+ * metrics-spring's post-processors record to the {@code StartupMetrics} bean of their bean factory,
+ * or of its nearest ancestor which has one, if that bean is enabled, so declaring one opts in.
+ */
+public class StartupMetrics implements ApplicationListener<ContextRefreshedEvent> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StartupMetrics.class);
+
+	public static final String PREFIX = "com.ryantenney.metrics.spring.startup";
+
+	private final MetricRegistry metricRegistry;
+	private final boolean enabled;
+
+	private final ConcurrentMap<String, AtomicLong> stageTimes = new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentMap<String, AtomicLong> beanTimes = new ConcurrentHashMap<String, AtomicLong>();
+
+	public StartupMetrics(final MetricRegistry metricRegistry) {
+		this(metricRegistry, true);
+	}
+
+	public StartupMetrics(final MetricRegistry metricRegistry, final boolean enabled) {
+		this.metricRegistry = metricRegistry;
+		this.enabled = enabled;
+	}
+
+	public MetricRegistry getMetricRegistry() {
+		return metricRegistry;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return the timer with the given name under {@value #PREFIX}
+	 */
+	public Timer timer(final String... names) {
+		return metricRegistry.timer(MetricRegistry.name(PREFIX, names));
+	}
+
+	/**
+	 * Records the time spent on a bean in a stage of startup.
+	 * @param stage the stage, such as {@code process}
+	 * @param name the post-processor or reporter, such as {@code timed}
+	 * @param beanName the bean, or {@code null} if it has no name
+	 * @param nanos the time spent, in nanoseconds
+	 */
+	public void record(final String stage, final String name, final String beanName, final long nanos) {
+		timer(stage, name).update(nanos, TimeUnit.NANOSECONDS);
+		add(stageTimes, MetricRegistry.name(stage, name), nanos);
+		if (beanName != null) {
+			add(beanTimes, beanName, nanos);
+		}
+	}
+
+	/**
+	 * @return the total time in nanoseconds recorded for each stage and post-processor or reporter,
+	 *         keyed by {@code <stage>.<name>}
+	 */
+	public Map<String, Long> getStageTimes() {
+		return snapshot(stageTimes);
+	}
+
+	/**
+	 * @return the total time in nanoseconds recorded for each bean, across all stages
+	 */
+	public Map<String, Long> getBeanTimes() {
+		return snapshot(beanTimes);
+	}
+
+	/**
+	 * @param limit the number of beans to list
+	 * @return a report of the time spent in each stage, and the slowest beans
+	 */
+	public String report(final int limit) {
+		final StringBuilder report = new StringBuilder("metrics-spring startup");
+		for (Map.Entry<String, Long> stage : new TreeMap<String, Long>(getStageTimes()).entrySet()) {
+			report.append("\n  ").append(stage.getKey()).append(": ").append(millis(stage.getValue()));
+		}
+
+		final List<Map.Entry<String, Long>> beans = new ArrayList<Map.Entry<String, Long>>(getBeanTimes().entrySet());
+		Collections.sort(beans, new Comparator<Map.Entry<String, Long>>() {
+
+			@Override
+			public int compare(Map.Entry<String, Long> left, Map.Entry<String, Long> right) {
+				return right.getValue().compareTo(left.getValue());
+			}
+
+		});
+		if (!beans.isEmpty()) {
+			report.append("\n  slowest beans:");
+			for (Map.Entry<String, Long> bean : beans.subList(0, Math.min(limit, beans.size()))) {
+				report.append("\n    ").append(bean.getKey()).append(": ").append(millis(bean.getValue()));
+			}
+		}
+		return report.toString();
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (enabled && !stageTimes.isEmpty()) {
+			LOG.info(report(10));
+		}
+	}
+
+	private static void add(final ConcurrentMap<String, AtomicLong> times, final String key, final long nanos) {
+		AtomicLong time = times.get(key);
+		if (time == null) {
+			final AtomicLong created = new AtomicLong();
+			time = times.putIfAbsent(key, created);
+			if (time == null) {
+				time = created;
+			}
+		}
+		time.addAndGet(nanos);
+	}
+
+	private static Map<String, Long> snapshot(final ConcurrentMap<String, AtomicLong> times) {
+		final Map<String, Long> snapshot = new LinkedHashMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> time : times.entrySet()) {
+			snapshot.put(time.getKey(), time.getValue().get());
+		}
+		return snapshot;
+	}
+
+	private static String millis(final long nanos) {
+		return String.format("%.3f ms", nanos / 1e6);
+	}
+
+	/**
+	 * @return the enabled {@code StartupMetrics} bean of the bean factory or, if it has none, of its
+	 *         nearest ancestor which has one; or {@code null} if there is none
+	 */
+	public static StartupMetrics forBeanFactory(final BeanFactory beanFactory) {
+		BeanFactory factory = beanFactory;
+		while (factory instanceof ListableBeanFactory) {
+			final String[] beanNames = ((ListableBeanFactory) factory).getBeanNamesForType(StartupMetrics.class, true, false);
+			if (beanNames.length > 1) {
+				LOG.warn("Not recording startup metrics, found {} StartupMetrics beans", beanNames.length);
+				return null;
+			}
+			else if (beanNames.length == 1) {
+				try {
+					final StartupMetrics startupMetrics = factory.getBean(beanNames[0], StartupMetrics.class);
+					return startupMetrics.isEnabled() ? startupMetrics : null;
+				}
+				catch (BeansException ex) {
+					LOG.warn("Not recording startup metrics, StartupMetrics bean could not be created", ex);
+					return null;
+				}
+			}
+			factory = factory instanceof HierarchicalBeanFactory ? ((HierarchicalBeanFactory) factory).getParentBeanFactory() : null;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,300 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.ryantenney.metrics.annotation.MetricTag;
+import com.ryantenney.metrics.annotation.TagCardinality;
+
+/**
+ * The metrics of a method with {@link MetricTag} annotated parameters, one per combination of
+ * tag values, named by {@link Util#forTags(String, String[], Object[])}. Tagged parameters must be
+ * of a type whose values are equal when they render the same, so that each combination of tag values
+ * is tracked once: a {@code String}, an enum, or a primitive or its wrapper.
+ *
+ * <p></p>
+ * At most {@link TagCardinality#value()} combinations are tracked. Once the limit is reached,
+ * every combination which has been idle for longer than {@link TagCardinality#idle()} is evicted
+ * and its metric removed from the registry, unless another combination of this or another method
+ * still records to a metric of the same name; if none are idle, the invocation is recorded by the
+ * overflow metric whose tag values are all {@value #OTHER}. A real tag value is never rendered as
+ * {@value #OTHER}, see {@link Util#tagValue(Object)}.
+ *
+ * <p></p>
+ * Looking up a combination which is already tracked does not allocate if the method has a single
+ * tag, as the argument itself is the key, and takes no lock.
+ */
+abstract class TaggedMetrics<M extends Metric> {
+
+	static final String OTHER = "other";
+
+	private static final Object NULL_KEY = new Object();
+
+	// the number of tracked combinations recording to each metric name, per registry, as different
+	// values may render the same name, and methods may share a name
+	private static final ConcurrentMap<MetricRegistry, Map<String, Integer>> REFERENCES =
+			new ConcurrentReferenceHashMap<MetricRegistry, Map<String, Integer>>(16, ReferenceType.WEAK);
+
+	private final MetricRegistry metricRegistry;
+	private final String metricName;
+	private final int[] parameters;
+	private final String[] tagNames;
+	private final int limit;
+	private final long idle;
+	private final Clock clock;
+	private final ConcurrentMap<Object, Entry<M>> entries;
+	private final Map<String, Integer> references;
+
+	private volatile int size;
+	private volatile long nextSweep;
+	private volatile M other;
+
+	TaggedMetrics(final MetricRegistry metricRegistry, final String metricName, final Method method) {
+		this(metricRegistry, metricName, method, Clock.defaultClock());
+	}
+
+	TaggedMetrics(final MetricRegistry metricRegistry, final String metricName, final Method method, final Clock clock) {
+		final TagCardinality cardinality = method.getAnnotation(TagCardinality.class);
+		final List<Integer> parameters = new ArrayList<Integer>();
+		final List<String> tagNames = new ArrayList<String>();
+		final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+		for (int i = 0; i < parameterAnnotations.length; i++) {
+			final MetricTag tag = findTag(parameterAnnotations[i]);
+			if (tag != null) {
+				Assert.hasText(tag.value(), "@MetricTag on method " + method + " must have a name");
+				Assert.isTrue(isValueType(method.getParameterTypes()[i]), "@MetricTag parameter " + i + " of method " + method
+						+ " must be a String, an enum, or a primitive or its wrapper");
+				parameters.add(i);
+				tagNames.add(tag.value());
+			}
+		}
+		Assert.notEmpty(parameters, "Method " + method + " has no @MetricTag parameters");
+
+		this.metricRegistry = metricRegistry;
+		this.metricName = metricName;
+		this.parameters = new int[parameters.size()];
+		for (int i = 0; i < this.parameters.length; i++) {
+			this.parameters[i] = parameters.get(i);
+		}
+		this.tagNames = tagNames.toArray(new String[tagNames.size()]);
+		this.limit = cardinality != null ? cardinality.value() : 100;
+		this.idle = cardinality != null ? cardinality.idleUnit().toNanos(cardinality.idle()) : TimeUnit.MINUTES.toNanos(10);
+		this.clock = clock;
+		this.entries = new ConcurrentHashMap<Object, Entry<M>>();
+		this.references = references(metricRegistry);
+		this.nextSweep = clock.getTick();
+
+		Assert.isTrue(limit > 0, "@TagCardinality on method " + method + " must allow at least one combination");
+		Assert.isTrue(idle > 0, "@TagCardinality on method " + method + " must have a positive idle time");
+	}
+
+	/**
+	 * @return whether any of the method's parameters are annotated with {@link MetricTag}
+	 */
+	static boolean isTagged(final Method method) {
+		for (Annotation[] annotations : method.getParameterAnnotations()) {
+			if (findTag(annotations) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isValueType(final Class<?> type) {
+		return type.isPrimitive() || type == String.class || Enum.class.isAssignableFrom(type) || type == Boolean.class || type == Character.class
+				|| type == Byte.class || type == Short.class || type == Integer.class || type == Long.class || type == Float.class
+				|| type == Double.class;
+	}
+
+	private static MetricTag findTag(final Annotation[] annotations) {
+		for (Annotation annotation : annotations) {
+			if (annotation instanceof MetricTag) {
+				return (MetricTag) annotation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates, or gets from the registry, the metric with the given name.
+	 */
+	protected abstract M create(String name);
+
+	/**
+	 * @return the metric for the tag values of an invocation with the given arguments
+	 */
+	M forArguments(final Object[] arguments) {
+		final Object key = key(arguments);
+		final Entry<M> entry = entries.get(key);
+		if (entry != null) {
+			entry.lastUsed = clock.getTick();
+			return entry.metric;
+		}
+
+		final M overflow = other;
+		if (overflow != null && size >= limit && clock.getTick() - nextSweep < 0) {
+			return overflow;
+		}
+		return add(key, arguments);
+	}
+
+	private Object key(final Object[] arguments) {
+		if (parameters.length == 1) {
+			final Object value = arguments[parameters[0]];
+			return value != null ? value : NULL_KEY;
+		}
+		final Object[] values = new Object[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			values[i] = arguments[parameters[i]];
+		}
+		return Arrays.asList(values);
+	}
+
+	private synchronized M add(final Object key, final Object[] arguments) {
+		Entry<M> entry = entries.get(key);
+		if (entry != null) {
+			return entry.metric;
+		}
+
+		final long now = clock.getTick();
+		if (size >= limit && !sweep(now)) {
+			return other();
+		}
+
+		final Object[] values = new Object[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			values[i] = arguments[parameters[i]];
+		}
+		final String name = Util.forTags(metricName, tagNames, values);
+		entry = new Entry<M>(name, acquire(name), now);
+		entries.put(key, entry);
+		size++;
+		return entry.metric;
+	}
+
+	/**
+	 * Evicts the combinations which have been idle for longer than the idle time, and
+	 * schedules the next sweep for when the least recently used of the rest becomes idle.
+	 * Must be called holding the lock.
+	 *
+	 * @return whether there is room for another combination
+	 */
+	private boolean sweep(final long now) {
+		if (now - nextSweep < 0) {
+			return false;
+		}
+
+		long oldest = now;
+		final Iterator<Map.Entry<Object, Entry<M>>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Entry<M> entry = iterator.next().getValue();
+			final long lastUsed = entry.lastUsed;
+			if (now - lastUsed >= idle) {
+				// An invocation which raced with the eviction may still record to the removed metric
+				iterator.remove();
+				release(entry.name);
+				size--;
+			}
+			else if (lastUsed - oldest < 0) {
+				oldest = lastUsed;
+			}
+		}
+		nextSweep = oldest + idle;
+		return size < limit;
+	}
+
+	/**
+	 * Creates, or gets from the registry, the metric with the given name, counting the reference to it.
+	 */
+	private M acquire(final String name) {
+		synchronized (references) {
+			final Integer count = references.get(name);
+			references.put(name, count == null ? 1 : count + 1);
+			return create(name);
+		}
+	}
+
+	/**
+	 * Removes the metric with the given name from the registry, if nothing else references it.
+	 */
+	private void release(final String name) {
+		synchronized (references) {
+			final Integer count = references.get(name);
+			if (count == null || count <= 1) {
+				references.remove(name);
+				metricRegistry.remove(name);
+			}
+			else {
+				references.put(name, count - 1);
+			}
+		}
+	}
+
+	private static Map<String, Integer> references(final MetricRegistry metricRegistry) {
+		final Map<String, Integer> references = REFERENCES.get(metricRegistry);
+		if (references != null) {
+			return references;
+		}
+		final Map<String, Integer> created = new HashMap<String, Integer>();
+		final Map<String, Integer> raced = REFERENCES.putIfAbsent(metricRegistry, created);
+		return raced != null ? raced : created;
+	}
+
+	private M other() {
+		if (other == null) {
+			// not rendered by Util.tagValue, which would escape it
+			final StringBuilder name = new StringBuilder(metricName);
+			for (String tagName : tagNames) {
+				name.append('.').append(tagName).append('.').append(OTHER);
+			}
+			other = create(name.toString());
+		}
+		return other;
+	}
+
+	private static final class Entry<M> {
+
+		final String name;
+		final M metric;
+		volatile long lastUsed;
+
+		Entry(final String name, final M metric, final long lastUsed) {
+			this.name = name;
+			this.metric = metric;
+			this.lastUsed = lastUsed;
+		}
+
+	}
+
+}
@@ -19,6 +19,7 @@ import java.lang.reflect.Method;
 
 import org.aopalliance.aop.Advice;
 import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.LoggerFactory;
 import org.springframework.aop.Pointcut;
 import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
 import org.springframework.core.Ordered;
@@ -28,6 +29,8 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
 import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.annotation.Reservoir;
+import com.ryantenney.metrics.annotation.Sampled;
 
 import static com.ryantenney.metrics.spring.AnnotationFilter.PROXYABLE_METHODS;
 
@@ -37,19 +40,59 @@ class TimedMethodInterceptor extends AbstractMetricMethodInterceptor<Timed, Time
 	public static final Pointcut POINTCUT = new AnnotationMatchingPointcut(null, ANNOTATION);
 	public static final MethodFilter METHOD_FILTER = new AnnotationFilter(ANNOTATION, PROXYABLE_METHODS);
 
-	public TimedMethodInterceptor(final MetricRegistry metricRegistry, final Class<?> targetClass) {
-		super(metricRegistry, targetClass, ANNOTATION, METHOD_FILTER);
+	public TimedMethodInterceptor(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch, final Class<?> targetClass) {
+		super(metricRegistry, metricsSwitch, targetClass, ANNOTATION, METHOD_FILTER);
 	}
 
 	@Override
 	protected Object invoke(MethodInvocation invocation, Timer timer, Timed annotation) throws Throwable {
-		final Context timerCtx = timer.time();
-		try {
+		return invoke(invocation, timer, null, annotation);
+	}
+
+	@Override
+	protected Object invoke(MethodInvocation invocation, Timer timer, Timer taggedTimer, Timed annotation) throws Throwable {
+		final Context timerCtx = time(timer);
+		final Context taggedCtx = taggedTimer != null ? time(taggedTimer) : null;
+		if (timerCtx == null && taggedCtx == null) {
 			return invocation.proceed();
 		}
+
+		boolean async = false;
+		try {
+			final Object result = invocation.proceed();
+			if (AsyncResults.isAsync(result)) {
+				AsyncResults.whenComplete(result, new AsyncResults.Callback() {
+					@Override
+					public void complete(Throwable failure) {
+						close(timerCtx, taggedCtx);
+					}
+				});
+				async = true;
+			}
+			return result;
+		}
 		finally {
+			if (!async) {
+				close(timerCtx, taggedCtx);
+			}
+		}
+	}
+
+	/**
+	 * @return a context for timing an invocation, or {@code null} if the timer is a {@link SampledTimer}
+	 *         which did not sample it
+	 */
+	static Context time(final Timer timer) {
+		return timer instanceof SampledTimer ? ((SampledTimer) timer).timeIfSampled() : timer.time();
+	}
+
+	static void close(final Context timerCtx, final Context taggedCtx) {
+		if (timerCtx != null) {
 			timerCtx.close();
 		}
+		if (taggedCtx != null) {
+			taggedCtx.close();
+		}
 	}
 
 	@Override
@@ -57,6 +100,55 @@ class TimedMethodInterceptor extends AbstractMetricMethodInterceptor<Timed, Time
 		return metricRegistry.timer(metricName);
 	}
 
+	@Override
+	protected Timer buildMetric(MetricRegistry metricRegistry, String metricName, Method method, Timed annotation) {
+		return buildTimer(metricRegistry, metricName, method);
+	}
+
+	/**
+	 * Gets or registers the timer for a {@code @Timed} method, which is a {@link SampledTimer}
+	 * if the method is also annotated with {@link Sampled}, and uses the reservoir given by
+	 * {@link Reservoir} if the method is annotated with it.
+	 */
+	static Timer buildTimer(final MetricRegistry metricRegistry, final String metricName, final Method method) {
+		final Sampled sampled = method.getAnnotation(Sampled.class);
+		final Reservoir reservoir = method.getAnnotation(Reservoir.class);
+		if (sampled == null) {
+			if (reservoir == null) {
+				return metricRegistry.timer(metricName);
+			}
+			return MetricRegistries.getOrCreate(metricRegistry, metricName, Timer.class, Reservoirs.forAnnotation(reservoir));
+		}
+
+		final Sampler sampler = Sampler.forAnnotation(sampled);
+		final SampledTimer candidate = new SampledTimer(sampler, reservoir != null ? Reservoirs.forAnnotation(reservoir).newReservoir()
+				: MetricRegistries.newReservoir(metricRegistry));
+		final Timer timer = (Timer) MetricRegistries.getOrAdd(metricRegistry, metricName, candidate, Timer.class);
+		if (!(timer instanceof SampledTimer)) {
+			LoggerFactory.getLogger(TimedMethodInterceptor.class).warn(
+					"Ignoring @Sampled on method {}.{}, timer {} is already registered without sampling", method.getDeclaringClass()
+							.getCanonicalName(), method.getName(), metricName);
+		}
+		return timer;
+	}
+
+	@Override
+	protected TaggedMetrics<?> buildTaggedMetrics(MetricRegistry metricRegistry, String metricName, Method method, Timed annotation) {
+		return taggedTimers(metricRegistry, metricName, method);
+	}
+
+	/**
+	 * Builds the per-tag timers of a {@code @Timed} method, which are built like the method's own timer.
+	 */
+	static TaggedMetrics<Timer> taggedTimers(final MetricRegistry metricRegistry, final String metricName, final Method method) {
+		return new TaggedMetrics<Timer>(metricRegistry, metricName, method) {
+			@Override
+			protected Timer create(String name) {
+				return buildTimer(metricRegistry, name, method);
+			}
+		};
+	}
+
 	@Override
 	protected String buildMetricName(Class<?> targetClass, Method method, Timed annotation) {
 		return Util.forTimedMethod(targetClass, method, annotation);
@@ -67,11 +159,11 @@ class TimedMethodInterceptor extends AbstractMetricMethodInterceptor<Timed, Time
 		return HIGHEST_PRECEDENCE;
 	}
 
-	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry) {
+	static AdviceFactory adviceFactory(final MetricRegistry metricRegistry, final MetricsSwitch metricsSwitch) {
 		return new AdviceFactory() {
 			@Override
 			public Advice getAdvice(Object bean, Class<?> targetClass) {
-				return new TimedMethodInterceptor(metricRegistry, targetClass);
+				return new TimedMethodInterceptor(metricRegistry, metricsSwitch, targetClass);
 			}
 		};
 	}
@@ -18,6 +18,7 @@ package com.ryantenney.metrics.spring;
 import static com.codahale.metrics.MetricRegistry.name;
 
 import java.lang.reflect.Member;
+import java.util.regex.Pattern;
 
 import com.codahale.metrics.annotation.CachedGauge;
 import com.codahale.metrics.annotation.Counted;
@@ -29,6 +30,8 @@ import com.codahale.metrics.annotation.Timed;
 
 class Util {
 
+	private static final Pattern OTHER_TAG_VALUE = Pattern.compile("^_*" + TaggedMetrics.OTHER + "$");
+
 	private Util() {}
 
 	static String forTimedMethod(Class<?> klass, Member member, Timed annotation) {
@@ -84,4 +87,30 @@ class Util {
 		return name(name(klass.getCanonicalName(), member.getName()), suffixes);
 	}
 
+	static String forTags(String metricName, String[] tagNames, Object[] tagValues) {
+		final StringBuilder name = new StringBuilder(metricName);
+		for (int i = 0; i < tagNames.length; i++) {
+			name.append('.').append(tagNames[i]).append('.').append(tagValue(tagValues[i]));
+		}
+		return name.toString();
+	}
+
+	/**
+	 * Renders a tag value, replacing dots and whitespace with underscores. A value which would render
+	 * as {@code other}, optionally preceded by underscores, is given another leading underscore, so
+	 * that it can't be confused with the overflow metric of {@link TaggedMetrics}.
+	 */
+	static String tagValue(Object value) {
+		final String string = String.valueOf(value);
+		final StringBuilder sanitized = new StringBuilder(string.length() + 1);
+		for (int i = 0; i < string.length(); i++) {
+			final char c = string.charAt(i);
+			sanitized.append(c == '.' || Character.isWhitespace(c) ? '_' : c);
+		}
+		if (OTHER_TAG_VALUE.matcher(sanitized).matches()) {
+			sanitized.insert(0, '_');
+		}
+		return sanitized.toString();
+	}
+
 }
@@ -28,9 +28,12 @@ import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.util.StringUtils;
 import org.w3c.dom.Element;
 
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheckRegistry;
+import com.ryantenney.metrics.spring.MetricsAspectConfigurer;
 import com.ryantenney.metrics.spring.MetricsBeanPostProcessorFactory;
+import com.ryantenney.metrics.spring.MetricsSwitch;
+import com.ryantenney.metrics.spring.RefreshableMetricRegistry;
+import com.ryantenney.metrics.spring.StartupMetrics;
 
 class AnnotationDrivenBeanDefinitionParser implements BeanDefinitionParser {
 
@@ -43,7 +46,7 @@ class AnnotationDrivenBeanDefinitionParser implements BeanDefinitionParser {
 
 		String metricsBeanName = element.getAttribute("metric-registry");
 		if (!StringUtils.hasText(metricsBeanName)) {
-			metricsBeanName = registerComponent(parserContext, build(MetricRegistry.class, source, ROLE_APPLICATION));
+			metricsBeanName = registerComponent(parserContext, build(RefreshableMetricRegistry.class, source, ROLE_APPLICATION));
 		}
 
 		String healthCheckBeanName = element.getAttribute("health-check-registry");
@@ -61,31 +64,62 @@ class AnnotationDrivenBeanDefinitionParser implements BeanDefinitionParser {
 			proxyConfig.setProxyTargetClass(Boolean.valueOf(element.getAttribute("proxy-target-class")));
 		}
 
-		//@formatter:off
+		final boolean fuseInterceptors = Boolean.valueOf(element.getAttribute("fuse-interceptors"));
+		final boolean aspectJ = "aspectj".equals(element.getAttribute("mode"));
 
-		registerComponent(parserContext,
-				build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
-					.setFactoryMethod("exceptionMetered")
-					.addConstructorArgReference(metricsBeanName)
-					.addConstructorArgValue(proxyConfig));
+		final String metricsSwitchBeanName = registerComponent(parserContext,
+				build(MetricsSwitch.class, source, ROLE_APPLICATION).addConstructorArgValue(element.getAttribute("disabled")));
 
-		registerComponent(parserContext,
-				build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
-					.setFactoryMethod("metered")
-					.addConstructorArgReference(metricsBeanName)
-					.addConstructorArgValue(proxyConfig));
+		if (Boolean.valueOf(element.getAttribute("startup-metrics"))) {
+			registerComponent(parserContext,
+					build(StartupMetrics.class, source, ROLE_INFRASTRUCTURE).addConstructorArgReference(metricsBeanName));
+		}
 
-		registerComponent(parserContext,
-				build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
-					.setFactoryMethod("timed")
-					.addConstructorArgReference(metricsBeanName)
-					.addConstructorArgValue(proxyConfig));
+		//@formatter:off
 
-		registerComponent(parserContext,
-				build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
-					.setFactoryMethod("counted")
-					.addConstructorArgReference(metricsBeanName)
-					.addConstructorArgValue(proxyConfig));
+		if (aspectJ) {
+			registerComponent(parserContext,
+					build(MetricsAspectConfigurer.class, source, ROLE_INFRASTRUCTURE)
+						.addConstructorArgReference(metricsBeanName)
+						.addConstructorArgReference(metricsSwitchBeanName));
+		}
+		else if (fuseInterceptors) {
+			registerComponent(parserContext,
+					build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
+						.setFactoryMethod("fused")
+						.addConstructorArgReference(metricsBeanName)
+						.addConstructorArgReference(metricsSwitchBeanName)
+						.addConstructorArgValue(proxyConfig));
+		}
+		else {
+			registerComponent(parserContext,
+					build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
+						.setFactoryMethod("exceptionMetered")
+						.addConstructorArgReference(metricsBeanName)
+						.addConstructorArgReference(metricsSwitchBeanName)
+						.addConstructorArgValue(proxyConfig));
+
+			registerComponent(parserContext,
+					build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
+						.setFactoryMethod("metered")
+						.addConstructorArgReference(metricsBeanName)
+						.addConstructorArgReference(metricsSwitchBeanName)
+						.addConstructorArgValue(proxyConfig));
+
+			registerComponent(parserContext,
+					build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
+						.setFactoryMethod("timed")
+						.addConstructorArgReference(metricsBeanName)
+						.addConstructorArgReference(metricsSwitchBeanName)
+						.addConstructorArgValue(proxyConfig));
+
+			registerComponent(parserContext,
+					build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
+						.setFactoryMethod("counted")
+						.addConstructorArgReference(metricsBeanName)
+						.addConstructorArgReference(metricsSwitchBeanName)
+						.addConstructorArgValue(proxyConfig));
+		}
 
 		registerComponent(parserContext,
 				build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
@@ -116,6 +150,7 @@ class AnnotationDrivenBeanDefinitionParser implements BeanDefinitionParser {
 				build(MetricsBeanPostProcessorFactory.class, source, ROLE_INFRASTRUCTURE)
 					.setFactoryMethod("legacyCounted")
 					.addConstructorArgReference(metricsBeanName)
+					.addConstructorArgReference(metricsSwitchBeanName)
 					.addConstructorArgValue(proxyConfig));
 
 		registerComponent(parserContext,
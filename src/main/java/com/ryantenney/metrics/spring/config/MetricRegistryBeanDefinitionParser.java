@@ -17,6 +17,12 @@ package com.ryantenney.metrics.spring.config;
 
 import static org.springframework.beans.factory.config.BeanDefinition.ROLE_APPLICATION;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.AbstractBeanDefinitionParser;
@@ -24,26 +30,52 @@ import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.util.StringUtils;
 import org.w3c.dom.Element;
 
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
+import com.ryantenney.metrics.spring.RefreshableMetricRegistry;
+import com.ryantenney.metrics.spring.Reservoirs;
 
 /**
  * Has the side effect of registering 'name' as aliases
  */
 class MetricRegistryBeanDefinitionParser extends AbstractBeanDefinitionParser {
 
+	private static final Pattern DURATION_STRING_PATTERN = Pattern.compile("^(\\d+)\\s?(ns|us|ms|s|m|h|d)$");
+	private static final Map<String, TimeUnit> TIME_UNITS = new HashMap<String, TimeUnit>();
+
+	static {
+		TIME_UNITS.put("ns", TimeUnit.NANOSECONDS);
+		TIME_UNITS.put("us", TimeUnit.MICROSECONDS);
+		TIME_UNITS.put("ms", TimeUnit.MILLISECONDS);
+		TIME_UNITS.put("s", TimeUnit.SECONDS);
+		TIME_UNITS.put("m", TimeUnit.MINUTES);
+		TIME_UNITS.put("h", TimeUnit.HOURS);
+		TIME_UNITS.put("d", TimeUnit.DAYS);
+	}
+
 	@Override
 	protected AbstractBeanDefinition parseInternal(Element element, ParserContext parserContext) {
 		final Object source = parserContext.extractSource(element);
 		final String name = element.getAttribute("name");
+		final String registrationMode = element.getAttribute("registration-mode");
+		final String reservoir = element.getAttribute("reservoir");
 		if (StringUtils.hasText(name)) {
+			if (StringUtils.hasText(registrationMode) || StringUtils.hasText(reservoir)) {
+				parserContext.getReaderContext().error("A shared metric registry must not specify 'registration-mode' or 'reservoir'", element);
+			}
 			final BeanDefinitionBuilder beanDefBuilder = build(SharedMetricRegistries.class, source);
 			beanDefBuilder.setFactoryMethod("getOrCreate");
 			beanDefBuilder.addConstructorArgValue(name);
 			return beanDefBuilder.getBeanDefinition();
 		}
 		else {
-			return build(MetricRegistry.class, source).getBeanDefinition();
+			final BeanDefinitionBuilder beanDefBuilder = build(RefreshableMetricRegistry.class, source);
+			if (StringUtils.hasText(registrationMode)) {
+				beanDefBuilder.addConstructorArgValue(registrationMode.toUpperCase());
+			}
+			if (StringUtils.hasText(reservoir)) {
+				beanDefBuilder.addPropertyValue("reservoirFactory", buildReservoirFactory(element, parserContext, reservoir, source));
+			}
+			return beanDefBuilder.getBeanDefinition();
 		}
 	}
 
@@ -52,6 +84,26 @@ class MetricRegistryBeanDefinitionParser extends AbstractBeanDefinitionParser {
 		return true;
 	}
 
+	private AbstractBeanDefinition buildReservoirFactory(Element element, ParserContext parserContext, String reservoir, Object source) {
+		final BeanDefinitionBuilder beanDefBuilder = build(Reservoirs.class, source);
+		beanDefBuilder.setFactoryMethod("forType");
+		beanDefBuilder.addConstructorArgValue(reservoir.toUpperCase().replace('-', '_'));
+
+		final String size = element.getAttribute("reservoir-size");
+		beanDefBuilder.addConstructorArgValue(StringUtils.hasText(size) ? size : "1028");
+
+		final String window = element.getAttribute("reservoir-window");
+		final Matcher matcher = DURATION_STRING_PATTERN.matcher(StringUtils.hasText(window) ? window : "1m");
+		if (!matcher.matches()) {
+			parserContext.getReaderContext().error("Reservoir window must be in the form '\\d+(ns|us|ms|s|m|h|d)'", element);
+		}
+		else {
+			beanDefBuilder.addConstructorArgValue(matcher.group(1));
+			beanDefBuilder.addConstructorArgValue(TIME_UNITS.get(matcher.group(2)));
+		}
+		return beanDefBuilder.getBeanDefinition();
+	}
+
 	private BeanDefinitionBuilder build(Class<?> klazz, Object source) {
 		final BeanDefinitionBuilder beanDefBuilder = BeanDefinitionBuilder.rootBeanDefinition(klazz);
 		beanDefBuilder.setRole(ROLE_APPLICATION);
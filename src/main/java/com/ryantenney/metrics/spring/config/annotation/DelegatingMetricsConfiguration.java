@@ -56,7 +56,7 @@ public class DelegatingMetricsConfiguration extends MetricsConfigurationSupport
 	@Override
 	public MetricRegistry getMetricRegistry() {
 		if (this.metricRegistry == null) {
-			this.metricRegistry = this.delegates.getMetricRegistry();
+			this.metricRegistry = configureMetricRegistry(this.delegates.getMetricRegistry());
 			this.configureReporters(this.metricRegistry);
 		}
 		return this.metricRegistry;
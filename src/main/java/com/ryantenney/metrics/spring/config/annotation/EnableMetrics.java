@@ -20,9 +20,13 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.context.annotation.AdviceMode;
 import org.springframework.context.annotation.Import;
 
+import com.ryantenney.metrics.annotation.Reservoir;
+
 /**
  * Add this annotation to an {@code @Configuration} class to have the Spring MVC
  * configuration defined in {@link MetricsConfigurationSupport} imported.
@@ -36,7 +40,7 @@ import org.springframework.context.annotation.Import;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
-@Import(DelegatingMetricsConfiguration.class)
+@Import({ MetricsConfigurationSelector.class, StartupMetricsConfigurationSelector.class })
 public @interface EnableMetrics {
 
 	/**
@@ -64,4 +68,55 @@ public @interface EnableMetrics {
 	 */
 	boolean proxyTargetClass() default false;
 
+	/**
+	 * Set whether {@code @Timed}, {@code @Metered}, {@code @ExceptionMetered} and
+	 * {@code @Counted} should be recorded by a single interceptor per bean, rather
+	 * than by one interceptor per annotation. Default is "false".
+	 * <p>Set this to "true" to reduce the per-call overhead of beans which combine
+	 * several of these annotations; each proxied method then incurs a single
+	 * interceptor invocation regardless of how many annotations it carries.
+	 */
+	boolean fuseInterceptors() default false;
+
+	/**
+	 * Set how {@code @Timed}, {@code @Metered}, {@code @ExceptionMetered} and {@code @Counted}
+	 * are applied. Default is "PROXY".
+	 * <p>Set this to "ASPECTJ" to record them by the {@link com.ryantenney.metrics.spring.MetricsAspect
+	 * MetricsAspect}, woven into the annotated classes by the AspectJ compiler or load-time weaver,
+	 * in place of proxying the beans. The aspect also records calls a bean makes to itself, and
+	 * calls to private methods, and classes which are not beans.
+	 */
+	AdviceMode mode() default AdviceMode.PROXY;
+
+	/**
+	 * Set whether the time metrics-spring spends starting up should be recorded, by timers
+	 * named under {@value com.ryantenney.metrics.spring.StartupMetrics#PREFIX}. Default is "false".
+	 * @see com.ryantenney.metrics.spring.StartupMetrics
+	 */
+	boolean startupMetrics() default false;
+
+	/**
+	 * Set the type of reservoir of the timers and histograms created by the registry,
+	 * including those of {@code @Timed} methods and {@code @Metric} fields without a
+	 * {@link Reservoir @Reservoir} of their own. Default is "EXPONENTIALLY_DECAYING".
+	 * <p>This requires the registry to be a {@link com.ryantenney.metrics.spring.RefreshableMetricRegistry
+	 * RefreshableMetricRegistry}, as the registry created by default is.
+	 */
+	Reservoir.Type reservoir() default Reservoir.Type.EXPONENTIALLY_DECAYING;
+
+	/**
+	 * Set the number of values kept by "UNIFORM" and "SLIDING_WINDOW" reservoirs. Default is 1028.
+	 */
+	int reservoirSize() default 1028;
+
+	/**
+	 * Set the length of time covered by "SLIDING_TIME_WINDOW" and "HDR" reservoirs. Default is 1.
+	 */
+	long reservoirWindow() default 1;
+
+	/**
+	 * Set the unit of {@link #reservoirWindow()}. Default is "MINUTES".
+	 */
+	TimeUnit reservoirWindowUnit() default TimeUnit.MINUTES;
+
 }
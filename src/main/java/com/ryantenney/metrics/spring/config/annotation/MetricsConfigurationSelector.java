@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.config.annotation;
+
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.AdviceModeImportSelector;
+
+/**
+ * Selects the configuration imported by {@link EnableMetrics @EnableMetrics}, adding
+ * {@link AspectJMetricsConfiguration} to {@link DelegatingMetricsConfiguration} when its
+ * {@link EnableMetrics#mode() mode} is {@link AdviceMode#ASPECTJ}.
+ *
+ * @see EnableMetrics
+ */
+public class MetricsConfigurationSelector extends AdviceModeImportSelector<EnableMetrics> {
+
+	@Override
+	protected String[] selectImports(AdviceMode adviceMode) {
+		if (adviceMode == AdviceMode.ASPECTJ) {
+			return new String[] { DelegatingMetricsConfiguration.class.getName(), AspectJMetricsConfiguration.class.getName() };
+		}
+		return new String[] { DelegatingMetricsConfiguration.class.getName() };
+	}
+
+}
@@ -15,19 +15,30 @@
  */
 package com.ryantenney.metrics.spring.config.annotation;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.springframework.aop.framework.ProxyConfig;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.AdviceMode;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ImportAware;
 import org.springframework.context.annotation.Role;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.util.Assert;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheckRegistry;
+import com.ryantenney.metrics.annotation.Reservoir;
 import com.ryantenney.metrics.spring.MetricsBeanPostProcessorFactory;
+import com.ryantenney.metrics.spring.MetricsSwitch;
+import com.ryantenney.metrics.spring.RefreshableMetricRegistry;
+import com.ryantenney.metrics.spring.ReservoirFactory;
+import com.ryantenney.metrics.spring.Reservoirs;
 
 /**
  * This is the main class providing the configuration behind the Metrics Java config.
@@ -39,14 +50,28 @@ import com.ryantenney.metrics.spring.MetricsBeanPostProcessorFactory;
  * @author Ryan Tenney
  * @since 3.0
  */
-public class MetricsConfigurationSupport implements ImportAware {
+public class MetricsConfigurationSupport implements ImportAware, EnvironmentAware {
 
-	private final Object lock = new Object();
+	/**
+	 * The property holding the comma-separated annotation types and metric name prefixes
+	 * for which recording is initially disabled, see {@link MetricsSwitch}.
+	 */
+	public static final String DISABLED_PROPERTY = "metrics.disabled";
 
-	private volatile MetricRegistry metricRegistry;
-	private volatile HealthCheckRegistry healthCheckRegistry;
+	private final AtomicReference<MetricRegistry> metricRegistry = new AtomicReference<MetricRegistry>();
+	private final AtomicReference<MetricsSwitch> metricsSwitch = new AtomicReference<MetricsSwitch>();
+	private final AtomicReference<HealthCheckRegistry> healthCheckRegistry = new AtomicReference<HealthCheckRegistry>();
 
 	private ProxyConfig proxyConfig;
+	private boolean fuseInterceptors;
+	private boolean aspectJ;
+	private ReservoirFactory reservoirFactory;
+	private Environment environment;
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		this.environment = environment;
+	}
 
 	@Override
 	public void setImportMetadata(AnnotationMetadata importMetadata) {
@@ -56,30 +81,74 @@ public class MetricsConfigurationSupport implements ImportAware {
 		this.proxyConfig = new ProxyConfig();
 		this.proxyConfig.setExposeProxy(enableMetrics.getBoolean("exposeProxy"));
 		this.proxyConfig.setProxyTargetClass(enableMetrics.getBoolean("proxyTargetClass"));
+		this.fuseInterceptors = enableMetrics.getBoolean("fuseInterceptors");
+		this.aspectJ = enableMetrics.<AdviceMode> getEnum("mode") == AdviceMode.ASPECTJ;
+
+		final Reservoir.Type reservoir = enableMetrics.getEnum("reservoir");
+		if (reservoir != Reservoir.Type.EXPONENTIALLY_DECAYING) {
+			this.reservoirFactory = Reservoirs.forType(reservoir, enableMetrics.<Integer> getNumber("reservoirSize"),
+					enableMetrics.<Long> getNumber("reservoirWindow"), enableMetrics.<TimeUnit> getEnum("reservoirWindowUnit"));
+		}
 	}
 
 	@Bean
 	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
 	public BeanPostProcessor exceptionMeteredAnnotationBeanPostProcessor() {
-		return MetricsBeanPostProcessorFactory.exceptionMetered(getMetricRegistry(), proxyConfig);
+		if (fuseInterceptors || aspectJ) {
+			return MetricsBeanPostProcessorFactory.noop();
+		}
+		return MetricsBeanPostProcessorFactory.exceptionMetered(getMetricRegistry(), metricsSwitch(), proxyConfig);
 	}
 
 	@Bean
 	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
 	public BeanPostProcessor meteredAnnotationBeanPostProcessor() {
-		return MetricsBeanPostProcessorFactory.metered(getMetricRegistry(), proxyConfig);
+		if (fuseInterceptors || aspectJ) {
+			return MetricsBeanPostProcessorFactory.noop();
+		}
+		return MetricsBeanPostProcessorFactory.metered(getMetricRegistry(), metricsSwitch(), proxyConfig);
 	}
 
 	@Bean
 	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
 	public BeanPostProcessor timedAnnotationBeanPostProcessor() {
-		return MetricsBeanPostProcessorFactory.timed(getMetricRegistry(), proxyConfig);
+		if (fuseInterceptors || aspectJ) {
+			return MetricsBeanPostProcessorFactory.noop();
+		}
+		return MetricsBeanPostProcessorFactory.timed(getMetricRegistry(), metricsSwitch(), proxyConfig);
 	}
 
 	@Bean
 	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
 	public BeanPostProcessor countedAnnotationBeanPostProcessor() {
-		return MetricsBeanPostProcessorFactory.counted(getMetricRegistry(), proxyConfig);
+		if (fuseInterceptors || aspectJ) {
+			return MetricsBeanPostProcessorFactory.noop();
+		}
+		return MetricsBeanPostProcessorFactory.counted(getMetricRegistry(), metricsSwitch(), proxyConfig);
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public BeanPostProcessor fusedAnnotationBeanPostProcessor() {
+		if (!fuseInterceptors || aspectJ) {
+			return MetricsBeanPostProcessorFactory.noop();
+		}
+		return MetricsBeanPostProcessorFactory.fused(getMetricRegistry(), metricsSwitch(), proxyConfig);
+	}
+
+	/**
+	 * The switch turning the recording of {@code @Timed}, {@code @Metered}, {@code @ExceptionMetered}
+	 * and {@code @Counted} on and off at runtime, initially disabled for the entries of the
+	 * {@value #DISABLED_PROPERTY} property.
+	 */
+	@Bean
+	public MetricsSwitch metricsSwitch() {
+		final MetricsSwitch existing = metricsSwitch.get();
+		if (existing != null) {
+			return existing;
+		}
+		metricsSwitch.compareAndSet(null, new MetricsSwitch(environment != null ? environment.getProperty(DISABLED_PROPERTY) : null));
+		return metricsSwitch.get();
 	}
 
 	@Bean
@@ -116,7 +185,7 @@ public class MetricsConfigurationSupport implements ImportAware {
 	@Bean
 	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
 	public BeanPostProcessor legacyCountedAnnotationBeanPostProcessor() {
-		return MetricsBeanPostProcessorFactory.legacyCounted(getMetricRegistry(), proxyConfig);
+		return MetricsBeanPostProcessorFactory.legacyCounted(getMetricRegistry(), metricsSwitch(), proxyConfig);
 	}
 
 	@Deprecated
@@ -134,25 +203,40 @@ public class MetricsConfigurationSupport implements ImportAware {
 	}
 
 	protected MetricRegistry getMetricRegistry() {
-		if (metricRegistry == null) {
-			synchronized (lock) {
-				if (metricRegistry == null) {
-					metricRegistry = new MetricRegistry();
-				}
+		final MetricRegistry registry = metricRegistry.get();
+		if (registry != null) {
+			return registry;
+		}
+		// a registry has no resources to release, so losing the race is harmless
+		metricRegistry.compareAndSet(null, configureMetricRegistry(new RefreshableMetricRegistry()));
+		return metricRegistry.get();
+	}
+
+	/**
+	 * Applies the registry-wide settings of {@link EnableMetrics @EnableMetrics} to the registry.
+	 * @return the registry
+	 */
+	protected MetricRegistry configureMetricRegistry(final MetricRegistry metricRegistry) {
+		if (reservoirFactory != null) {
+			if (!(metricRegistry instanceof RefreshableMetricRegistry)) {
+				throw new IllegalStateException("@" + EnableMetrics.class.getSimpleName() + "(reservoir) requires a "
+						+ RefreshableMetricRegistry.class.getSimpleName() + ", not " + metricRegistry.getClass().getName());
+			}
+			final RefreshableMetricRegistry refreshable = (RefreshableMetricRegistry) metricRegistry;
+			if (refreshable.getReservoirFactory() == null) {
+				refreshable.setReservoirFactory(reservoirFactory);
 			}
 		}
 		return metricRegistry;
 	}
 
 	protected HealthCheckRegistry getHealthCheckRegistry() {
-		if (healthCheckRegistry == null) {
-			synchronized (lock) {
-				if (healthCheckRegistry == null) {
-					healthCheckRegistry = new HealthCheckRegistry();
-				}
-			}
+		final HealthCheckRegistry registry = healthCheckRegistry.get();
+		if (registry != null) {
+			return registry;
 		}
-		return healthCheckRegistry;
+		healthCheckRegistry.compareAndSet(null, new HealthCheckRegistry());
+		return healthCheckRegistry.get();
 	}
 
 }
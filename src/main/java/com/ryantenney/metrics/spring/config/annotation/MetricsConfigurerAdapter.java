@@ -18,13 +18,17 @@ package com.ryantenney.metrics.spring.config.annotation;
 import java.io.Closeable;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
 import com.codahale.metrics.health.HealthCheckRegistry;
+import com.ryantenney.metrics.spring.reporter.ReporterScheduler;
 
 /**
  * An implementation of {@link MetricsConfigurer} with empty methods allowing
@@ -40,6 +44,7 @@ public abstract class MetricsConfigurerAdapter implements MetricsConfigurer, Dis
 	private static final Logger LOG = LoggerFactory.getLogger(MetricsConfigurerAdapter.class);
 
 	private Set<Closeable> reporters;
+	private ReporterScheduler reporterScheduler;
 
 	/**
 	 * {@inheritDoc}
@@ -81,6 +86,9 @@ public abstract class MetricsConfigurerAdapter implements MetricsConfigurer, Dis
 				}
 			}
 		}
+		if (this.reporterScheduler != null) {
+			this.reporterScheduler.destroy();
+		}
 	}
 
 	/**
@@ -96,4 +104,39 @@ public abstract class MetricsConfigurerAdapter implements MetricsConfigurer, Dis
 		return reporter;
 	}
 
+	/**
+	 * Starts a reporter on the scheduler returned by {@link #getReporterScheduler()}, rather than on
+	 * a thread of its own, and registers it for destruction on Spring context close
+	 * @param reporter a reporter which has not been started
+	 * @param period the amount of time between reports
+	 * @param unit the unit for {@code period}
+	 * @return the reporter
+	 */
+	protected <R extends ScheduledReporter> R scheduleReporter(final R reporter, final long period, final TimeUnit unit) {
+		final ScheduledFuture<?> scheduledReport = getReporterScheduler().schedule(reporter, period, unit);
+		registerReporter(new Closeable() {
+
+			@Override
+			public void close() {
+				scheduledReport.cancel(false);
+				reporter.close();
+			}
+
+		});
+		return reporter;
+	}
+
+	/**
+	 * Returns the scheduler used by {@link #scheduleReporter}. This implementation lazily creates a
+	 * single-threaded scheduler without jitter, which is stopped on Spring context close; override
+	 * to share a {@link ReporterScheduler} bean, or to configure threads and jitter.
+	 * @return the scheduler
+	 */
+	protected synchronized ReporterScheduler getReporterScheduler() {
+		if (this.reporterScheduler == null) {
+			this.reporterScheduler = new ReporterScheduler();
+		}
+		return this.reporterScheduler;
+	}
+
 }
@@ -21,6 +21,7 @@ import java.util.List;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheckRegistry;
+import com.ryantenney.metrics.spring.RefreshableMetricRegistry;
 
 /**
  * A {@link MetricsConfigurer} implementation that delegates to other {@link MetricsConfigurer} instances.
@@ -56,7 +57,7 @@ public class MetricsConfigurerComposite implements MetricsConfigurer {
 		}
 		MetricRegistry instance = selectSingleInstance(candidates, MetricRegistry.class);
 		if (instance == null) {
-			instance = new MetricRegistry();
+			instance = new RefreshableMetricRegistry();
 		}
 		return instance;
 	}
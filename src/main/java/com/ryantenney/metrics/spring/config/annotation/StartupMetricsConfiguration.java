@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.config.annotation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import com.ryantenney.metrics.spring.StartupMetrics;
+
+/**
+ * This is the class imported alongside {@link DelegatingMetricsConfiguration} by
+ * {@link EnableMetrics#startupMetrics() @EnableMetrics(startupMetrics = true)}, which
+ * records the time metrics-spring spends starting up.
+ *
+ * @see StartupMetricsConfigurationSelector
+ */
+@Configuration
+public class StartupMetricsConfiguration {
+
+	@Autowired
+	private MetricsConfigurationSupport metricsConfiguration;
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public StartupMetrics startupMetrics() {
+		return new StartupMetrics(metricsConfiguration.getMetricRegistry());
+	}
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.config.annotation;
+
+import org.springframework.context.annotation.ImportSelector;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.AnnotationMetadata;
+
+/**
+ * Imports {@link StartupMetricsConfiguration} when {@link EnableMetrics#startupMetrics() startupMetrics}
+ * is set, so that a {@link com.ryantenney.metrics.spring.StartupMetrics StartupMetrics} bean is only
+ * defined for applications which opt in.
+ *
+ * @see EnableMetrics
+ */
+public class StartupMetricsConfigurationSelector implements ImportSelector {
+
+	@Override
+	public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+		final AnnotationAttributes enableMetrics = AnnotationAttributes.fromMap(importingClassMetadata.getAnnotationAttributes(
+				EnableMetrics.class.getName(), false));
+		if (enableMetrics != null && enableMetrics.getBoolean("startupMetrics")) {
+			return new String[] { StartupMetricsConfiguration.class.getName() };
+		}
+		return new String[0];
+	}
+
+}
@@ -15,11 +15,14 @@
  */
 package com.ryantenney.metrics.spring.reporter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -30,8 +33,10 @@ import org.springframework.core.convert.support.DefaultConversionService;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.ryantenney.metrics.spring.StartupMetrics;
 
-public abstract class AbstractReporterFactoryBean<T> implements FactoryBean<T>, InitializingBean, BeanFactoryAware {
+public abstract class AbstractReporterFactoryBean<T> implements FactoryBean<T>, InitializingBean, BeanFactoryAware, BeanNameAware {
 
 	protected static final String FILTER_PATTERN = "filter";
 	protected static final String FILTER_REF = "filter-ref";
@@ -41,11 +46,15 @@ public abstract class AbstractReporterFactoryBean<T> implements FactoryBean<T>,
 
 	private MetricRegistry metricRegistry;
 	private BeanFactory beanFactory;
+	private String beanName;
 	private ConversionService conversionService;
 
 	private Map<String, String> properties;
 	private T instance;
 
+	private MetricFilter metricFilterPattern;
+	private final List<MetricRegistryListener> listeners = new ArrayList<MetricRegistryListener>();
+
 	private boolean enabled = true;
 	private boolean initialized = false;
 
@@ -70,7 +79,12 @@ public abstract class AbstractReporterFactoryBean<T> implements FactoryBean<T>,
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
+		final StartupMetrics startupMetrics = StartupMetrics.forBeanFactory(this.beanFactory);
+		final long start = System.nanoTime();
 		this.instance = createInstance();
+		if (startupMetrics != null) {
+			startupMetrics.record("reporter", getObjectType().getSimpleName(), this.beanName, System.nanoTime() - start);
+		}
 		this.initialized = true;
 	}
 
@@ -84,6 +98,11 @@ public abstract class AbstractReporterFactoryBean<T> implements FactoryBean<T>,
 		}
 	}
 
+	@Override
+	public void setBeanName(final String beanName) {
+		this.beanName = beanName;
+	}
+
 	public BeanFactory getBeanFactory() {
 		return this.beanFactory;
 	}
@@ -160,9 +179,18 @@ public abstract class AbstractReporterFactoryBean<T> implements FactoryBean<T>,
 		return this.beanFactory.getBean(value, requiredType);
 	}
 
+	/**
+	 * Returns the filter given by the {@code filter} or {@code filter-ref} property. A {@code filter}
+	 * pattern is compiled once, and its decision for each metric name is cached.
+	 */
 	protected MetricFilter getMetricFilter() {
 		if (hasProperty(FILTER_PATTERN)) {
-			return metricFilterPattern(getProperty(FILTER_PATTERN));
+			synchronized (this) {
+				if (metricFilterPattern == null) {
+					metricFilterPattern = addListener(new CachingMetricFilter(metricFilterPattern(getProperty(FILTER_PATTERN))));
+				}
+				return metricFilterPattern;
+			}
 		}
 		else if (hasProperty(FILTER_REF)) {
 			return getPropertyRef(FILTER_REF, MetricFilter.class);
@@ -197,4 +225,28 @@ public abstract class AbstractReporterFactoryBean<T> implements FactoryBean<T>,
 		};
 	}
 
+	/**
+	 * Registers a listener with the metric registry, to be removed by {@link #removeListeners()}.
+	 * @return the listener
+	 */
+	protected <L extends MetricRegistryListener> L addListener(final L listener) {
+		this.metricRegistry.addListener(listener);
+		synchronized (this.listeners) {
+			this.listeners.add(listener);
+		}
+		return listener;
+	}
+
+	/**
+	 * Removes the listeners registered by {@link #addListener}, when the reporter is destroyed.
+	 */
+	protected void removeListeners() {
+		synchronized (this.listeners) {
+			for (MetricRegistryListener listener : this.listeners) {
+				this.metricRegistry.removeListener(listener);
+			}
+			this.listeners.clear();
+		}
+	}
+
 }
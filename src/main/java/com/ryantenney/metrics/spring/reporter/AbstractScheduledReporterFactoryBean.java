@@ -19,6 +19,7 @@ import com.codahale.metrics.ScheduledReporter;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.SmartLifecycle;
 
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,14 +27,29 @@ import java.util.regex.Pattern;
 public abstract class AbstractScheduledReporterFactoryBean<T extends ScheduledReporter> extends AbstractReporterFactoryBean<T> implements SmartLifecycle,
 		DisposableBean {
 
+	protected static final String SCHEDULER_REF = "scheduler-ref";
+	protected static final String DELTA = "delta";
+	protected static final String DELTA_REFRESH = "delta-refresh";
+
 	private static final Pattern DURATION_STRING_PATTERN = Pattern.compile("^(\\d+)\\s?(ns|us|ms|s|m|h|d)?$");
 
+	private ReporterScheduler scheduler;
+	private ScheduledFuture<?> scheduledReport;
+	private DeltaReporter deltaReporter;
+
+	private boolean multiplexed;
 	private boolean running;
 
 	@Override
 	public void start() {
-		if (isEnabled() && !isRunning()) {
-			getObject().start(getPeriod(), TimeUnit.NANOSECONDS);
+		if (isEnabled() && !isRunning() && !multiplexed) {
+			final ReporterScheduler scheduler = getScheduler();
+			if (scheduler != null) {
+				scheduledReport = scheduler.schedule(getScheduledReporter(), getPeriod(), TimeUnit.NANOSECONDS);
+			}
+			else {
+				getScheduledReporter().start(getPeriod(), TimeUnit.NANOSECONDS);
+			}
 			running = true;
 		}
 	}
@@ -41,7 +57,11 @@ public abstract class AbstractScheduledReporterFactoryBean<T extends ScheduledRe
 	@Override
 	public void stop() {
 		if (isEnabled() && isRunning()) {
-			getObject().stop();
+			if (scheduledReport != null) {
+				scheduledReport.cancel(false);
+				scheduledReport = null;
+			}
+			getScheduledReporter().stop();
 			running = false;
 		}
 	}
@@ -54,10 +74,50 @@ public abstract class AbstractScheduledReporterFactoryBean<T extends ScheduledRe
 	@Override
 	public void destroy() throws Exception {
 		stop();
+		removeListeners();
+	}
+
+	/**
+	 * @return the reporter to be scheduled: the reporter itself, or when the {@code delta} property
+	 * is true a {@link DeltaReporter} which passes it only the metrics which have changed. Every metric
+	 * is passed again at least once per {@code delta-refresh}, which defaults to ten periods.
+	 */
+	protected synchronized ScheduledReporter getScheduledReporter() {
+		if (!getProperty(DELTA, Boolean.class, Boolean.FALSE)) {
+			return getObject();
+		}
+		if (deltaReporter == null) {
+			final long refresh = hasProperty(DELTA_REFRESH) ? convertDurationString(getProperty(DELTA_REFRESH)) : getPeriod() * 10;
+			deltaReporter = new DeltaReporter(getMetricRegistry(), getObject(), getMetricFilter(), refresh, TimeUnit.NANOSECONDS);
+		}
+		return deltaReporter;
 	}
 
 	protected abstract long getPeriod();
 
+	/**
+	 * Sets a scheduler shared with other reporters, which takes precedence over the
+	 * {@code scheduler-ref} property. Without either the reporter uses its own thread.
+	 */
+	public void setScheduler(final ReporterScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Marks the reporter as a child of a {@link MultiplexingReporter}, which reports it,
+	 * so that it isn't started itself.
+	 */
+	void setMultiplexed(final boolean multiplexed) {
+		this.multiplexed = multiplexed;
+	}
+
+	public ReporterScheduler getScheduler() {
+		if (scheduler == null && getProperties() != null && hasProperty(SCHEDULER_REF)) {
+			scheduler = getPropertyRef(SCHEDULER_REF, ReporterScheduler.class);
+		}
+		return scheduler;
+	}
+
 	/**
 	 * Parses and converts to nanoseconds a string representing
 	 * a duration, ie: 500ms, 30s, 5m, 1h, etc
@@ -65,6 +125,10 @@ public abstract class AbstractScheduledReporterFactoryBean<T extends ScheduledRe
 	 * @return the duration in nanoseconds
 	 */
 	protected long convertDurationString(String duration) {
+		return toNanos(duration);
+	}
+
+	static long toNanos(String duration) {
 		final Matcher m = DURATION_STRING_PATTERN.matcher(duration);
 		if (!m.matches()) {
 			throw new IllegalArgumentException("Invalid duration string format");
@@ -101,6 +165,26 @@ public abstract class AbstractScheduledReporterFactoryBean<T extends ScheduledRe
 		return sourceUnit.toNanos(sourceDuration);
 	}
 
+	/**
+	 * Parses a string representing a size in bytes, ie: 65536, 512k, 16m, 1g
+	 * @param size a string representing a size
+	 * @return the size in bytes
+	 */
+	protected long convertSizeString(String size) {
+		final String lower = size.trim().toLowerCase();
+		final char unit = lower.charAt(lower.length() - 1);
+		if (unit == 'k') {
+			return Long.parseLong(lower.substring(0, lower.length() - 1)) << 10;
+		}
+		else if (unit == 'm') {
+			return Long.parseLong(lower.substring(0, lower.length() - 1)) << 20;
+		}
+		else if (unit == 'g') {
+			return Long.parseLong(lower.substring(0, lower.length() - 1)) << 30;
+		}
+		return Long.parseLong(lower);
+	}
+
 	@Override
 	public int getPhase() {
 		return 0;
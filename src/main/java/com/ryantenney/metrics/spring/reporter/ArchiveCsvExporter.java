@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Converts an archive written by {@link ArchiveReporter} to a single CSV file, with a
+ * {@code t} column of the time in seconds, as written by {@code CsvReporter}, followed by a
+ * column for each archived value. Values a metric didn't have are left empty.
+ * <pre>
+ * java -cp ... com.ryantenney.metrics.spring.reporter.ArchiveCsvExporter &lt;archive directory&gt; [output file]
+ * </pre>
+ */
+public class ArchiveCsvExporter {
+
+	private final File directory;
+
+	public ArchiveCsvExporter(final File directory) {
+		this.directory = directory;
+	}
+
+	public void export(final Writer out) throws IOException {
+		// the first pass finds every column, so the header can be written before the rows
+		final List<String> columns;
+		ArchiveReader reader = new ArchiveReader(directory);
+		try {
+			while (reader.next()) {}
+			columns = reader.getColumns();
+		}
+		finally {
+			reader.close();
+		}
+
+		final PrintWriter writer = new PrintWriter(out);
+		writer.print('t');
+		for (String column : columns) {
+			writer.print(',');
+			writer.print(quote(column));
+		}
+		writer.println();
+
+		reader = new ArchiveReader(directory);
+		try {
+			while (reader.next()) {
+				writer.print(reader.getTimestamp() / 1000);
+				final double[] values = reader.getValues();
+				for (int i = 0; i < columns.size(); i++) {
+					writer.print(',');
+					if (i < values.length && !Double.isNaN(values[i])) {
+						writer.print(values[i]);
+					}
+				}
+				writer.println();
+			}
+		}
+		finally {
+			reader.close();
+		}
+		writer.flush();
+	}
+
+	private static String quote(final String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: ArchiveCsvExporter <archive directory> [output file]");
+			System.exit(1);
+		}
+		final ArchiveCsvExporter exporter = new ArchiveCsvExporter(new File(args[0]));
+		final Writer out = new OutputStreamWriter(args.length > 1 ? new FileOutputStream(args[1]) : System.out, ArchiveFormat.UTF_8);
+		try {
+			exporter.export(out);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * The layout of a metric archive, written by {@link ArchiveReporter} and read by {@link ArchiveReader}.
+ * <p>An archive is a directory of segment files, each starting with the magic number and version
+ * as two ints, followed by records. Each record starts with a type byte:
+ * <ul>
+ * <li>{@link #COLUMN}: an int column id, and the column's name as a short length and UTF-8 bytes.
+ * Ids are numbered from 0 in each segment, which declares a column before the first row in which
+ * it has a value, so that each segment can be read on its own. Columns are matched across segments
+ * by name.</li>
+ * <li>{@link #ROW}: a long timestamp in milliseconds, an int number of columns, and a double value
+ * for each column declared so far in the segment in order of id, NaN where a metric had no value.</li>
+ * <li>{@link #END}: the end of the segment. As segments are zero-filled, it follows the last record.</li>
+ * </ul>
+ * The type byte of a record is written last, so a partly written record reads as the end.
+ */
+final class ArchiveFormat {
+
+	static final int MAGIC = 0x4d534152; // MSAR
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+
+	static final byte END = 0;
+	static final byte COLUMN = 1;
+	static final byte ROW = 2;
+
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String SUFFIX = ".archive";
+	private static final Pattern SEGMENT_NAME = Pattern.compile("^metrics-\\d{8}\\.archive$");
+
+	private ArchiveFormat() {}
+
+	static File segmentFile(final File directory, final int index) {
+		return new File(directory, String.format("metrics-%08d%s", index, SUFFIX));
+	}
+
+	static int segmentIndex(final File segment) {
+		final String name = segment.getName();
+		return Integer.parseInt(name.substring("metrics-".length(), name.length() - SUFFIX.length()));
+	}
+
+	/**
+	 * @return the segments of the archive in the directory, oldest first
+	 */
+	static File[] listSegments(final File directory) {
+		final File[] segments = directory.listFiles(new FilenameFilter() {
+
+			@Override
+			public boolean accept(File dir, String name) {
+				return SEGMENT_NAME.matcher(name).matches();
+			}
+
+		});
+		if (segments == null) {
+			return new File[0];
+		}
+		Arrays.sort(segments);
+		return segments;
+	}
+
+}
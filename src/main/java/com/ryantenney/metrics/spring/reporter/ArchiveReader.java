@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of an archive written by {@link ArchiveReporter}, oldest first, across all of
+ * its segments. Column ids are only unique within a segment, so columns are matched across
+ * segments by name, and numbered in the order the reader first sees them.
+ * <pre>
+ * ArchiveReader reader = new ArchiveReader(directory);
+ * try {
+ *     while (reader.next()) {
+ *         double requests = reader.getValue("requests.count");
+ *     }
+ * }
+ * finally {
+ *     reader.close();
+ * }
+ * </pre>
+ */
+public class ArchiveReader implements Closeable {
+
+	private final File[] segments;
+	private int segmentIndex = -1;
+	private MappedByteBuffer segment;
+
+	private final List<String> columns = new ArrayList<String>();
+	private final Map<String, Integer> columnIds = new HashMap<String, Integer>();
+	// the column of each of the current segment's ids
+	private int[] segmentColumns = new int[64];
+	private int segmentColumnCount;
+	private long timestamp;
+	private double[] values = new double[0];
+
+	public ArchiveReader(final File directory) {
+		this.segments = ArchiveFormat.listSegments(directory);
+	}
+
+	/**
+	 * Advances to the next row.
+	 * @return false if there are no more rows
+	 * @throws IOException if a segment can't be read, or isn't a metric archive
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			if (segment == null && !nextSegment()) {
+				return false;
+			}
+			final byte type = segment.remaining() > 0 ? segment.get() : ArchiveFormat.END;
+			if (type == ArchiveFormat.COLUMN) {
+				readColumn();
+			}
+			else if (type == ArchiveFormat.ROW) {
+				readRow();
+				return true;
+			}
+			else if (type == ArchiveFormat.END) {
+				segment = null;
+			}
+			else {
+				throw new IOException("Unknown record type " + type + " in " + segments[segmentIndex]);
+			}
+		}
+	}
+
+	/**
+	 * @return the time of the current row in milliseconds
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the names of the columns read so far, in the order they were first read
+	 */
+	public List<String> getColumns() {
+		return Collections.unmodifiableList(columns);
+	}
+
+	/**
+	 * @return the values of the current row in the order of {@link #getColumns()}, NaN where there was
+	 *         no value; the array is shorter than the list of columns if columns were read after the row
+	 */
+	public double[] getValues() {
+		return values.clone();
+	}
+
+	/**
+	 * @return the value of the column in the current row, or NaN if it had no value
+	 */
+	public double getValue(final String column) {
+		final Integer id = columnIds.get(column);
+		return id != null && id < values.length ? values[id] : Double.NaN;
+	}
+
+	@Override
+	public void close() {
+		segment = null;
+		segmentIndex = segments.length;
+	}
+
+	private boolean nextSegment() throws IOException {
+		if (++segmentIndex >= segments.length) {
+			return false;
+		}
+		final RandomAccessFile file = new RandomAccessFile(segments[segmentIndex], "r");
+		try {
+			segment = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+		}
+		finally {
+			file.close();
+		}
+		if (segment.remaining() < ArchiveFormat.HEADER_SIZE || segment.getInt() != ArchiveFormat.MAGIC) {
+			throw new IOException(segments[segmentIndex] + " is not a metric archive");
+		}
+		final int version = segment.getInt();
+		if (version != ArchiveFormat.VERSION) {
+			throw new IOException("Unsupported metric archive version " + version + " in " + segments[segmentIndex]);
+		}
+		segmentColumnCount = 0;
+		return true;
+	}
+
+	private void readColumn() {
+		final int id = segment.getInt();
+		final byte[] bytes = new byte[segment.getShort() & 0xffff];
+		segment.get(bytes);
+		if (id == segmentColumnCount) {
+			final String name = new String(bytes, ArchiveFormat.UTF_8);
+			Integer column = columnIds.get(name);
+			if (column == null) {
+				column = columns.size();
+				columns.add(name);
+				columnIds.put(name, column);
+			}
+			if (id == segmentColumns.length) {
+				segmentColumns = Arrays.copyOf(segmentColumns, id * 2);
+			}
+			segmentColumns[id] = column;
+			segmentColumnCount++;
+		}
+	}
+
+	private void readRow() {
+		timestamp = segment.getLong();
+		final int count = segment.getInt();
+		if (values.length != columns.size()) {
+			values = new double[columns.size()];
+		}
+		Arrays.fill(values, Double.NaN);
+		for (int i = 0; i < count; i++) {
+			final double value = segment.getDouble();
+			if (i < segmentColumnCount) {
+				values[segmentColumns[i]] = value;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,367 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.DoubleGauge;
+import com.ryantenney.metrics.spring.IntGauge;
+import com.ryantenney.metrics.spring.LongGauge;
+
+/**
+ * A reporter which appends every metric to a single archive, one row per report, in place of a
+ * CSV file per metric. The archive is a directory of memory-mapped segments of a fixed size; see
+ * {@link ArchiveFormat}. Each value of a metric is a column, named as by {@code CsvReporter}
+ * (ie: {@code name.count}, {@code name.p99}), and is declared in each segment the first time it
+ * has a value there. A column is identified by its name, so a metric registered again as another type
+ * keeps any columns of the same name.
+ * <p>{@link LongGauge}, {@link DoubleGauge} and {@link IntGauge} values are read without boxing.
+ * <p>A new segment is started when the reporter starts, and when a segment is full. Read an
+ * archive with {@link ArchiveReader}, or convert it to CSV with {@link ArchiveCsvExporter}.
+ */
+public class ArchiveReporter extends ScheduledReporter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ArchiveReporter.class);
+
+	private static final String[] COUNTER_COLUMNS = { "count" };
+	private static final String[] METERED_COLUMNS = { "count", "mean_rate", "m1_rate", "m5_rate", "m15_rate" };
+	private static final String[] SNAPSHOT_COLUMNS = { "max", "mean", "min", "stddev", "p50", "p75", "p95", "p98", "p99", "p999" };
+	private static final String[] HISTOGRAM_COLUMNS = concat(COUNTER_COLUMNS, SNAPSHOT_COLUMNS);
+	private static final String[] TIMER_COLUMNS = concat(METERED_COLUMNS, SNAPSHOT_COLUMNS);
+
+	private final File directory;
+	private final int segmentSize;
+	private final int maxSegments;
+	private final Clock clock;
+
+	// every column reported since the reporter started, indexed by the row
+	private final List<String> columns = new ArrayList<String>();
+	private final Map<String, Integer> columnIds = new HashMap<String, Integer>();
+	private final Map<String, int[]> gaugeColumns = new HashMap<String, int[]>();
+	private final Map<String, int[]> counterColumns = new HashMap<String, int[]>();
+	private final Map<String, int[]> histogramColumns = new HashMap<String, int[]>();
+	private final Map<String, int[]> meterColumns = new HashMap<String, int[]>();
+	private final Map<String, int[]> timerColumns = new HashMap<String, int[]>();
+	private double[] row = new double[64];
+
+	// the columns declared in the current segment: the segment's id of each column, or -1, and the
+	// column of each of the segment's ids
+	private int[] segmentIds = filled(64, -1);
+	private int[] segmentColumns = new int[64];
+	private int segmentColumnCount;
+
+	private int segmentIndex = -1;
+	private RandomAccessFile segmentFile;
+	private MappedByteBuffer segment;
+
+	/**
+	 * @param directory the directory of the archive, which is created if necessary
+	 * @param segmentSize the size of each segment file in bytes
+	 * @param maxSegments the number of segments to keep, or 0 to keep every segment
+	 */
+	public ArchiveReporter(final MetricRegistry registry, final MetricFilter filter, final TimeUnit rateUnit, final TimeUnit durationUnit,
+			final Clock clock, final File directory, final int segmentSize, final int maxSegments) {
+		super(registry, "archive-reporter", filter, rateUnit, durationUnit);
+		if (!directory.mkdirs() && !directory.isDirectory()) {
+			throw new IllegalArgumentException("Directory doesn't exist or couldn't be created");
+		}
+		if (segmentSize < 1024) {
+			throw new IllegalArgumentException("Segment size must be at least 1k");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegments = maxSegments;
+		this.clock = clock;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public synchronized void report(final SortedMap<String, Gauge> gauges, final SortedMap<String, Counter> counters,
+			final SortedMap<String, Histogram> histograms, final SortedMap<String, Meter> meters, final SortedMap<String, Timer> timers) {
+		try {
+			if (segment == null) {
+				nextSegment();
+			}
+
+			Arrays.fill(row, Double.NaN);
+
+			for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+				final Gauge gauge = entry.getValue();
+				if (gauge instanceof LongGauge) {
+					set(gaugeColumns, entry.getKey(), null, 0, ((LongGauge) gauge).getLongValue());
+				}
+				else if (gauge instanceof DoubleGauge) {
+					set(gaugeColumns, entry.getKey(), null, 0, ((DoubleGauge) gauge).getDoubleValue());
+				}
+				else if (gauge instanceof IntGauge) {
+					set(gaugeColumns, entry.getKey(), null, 0, ((IntGauge) gauge).getIntValue());
+				}
+				else {
+					final Object value = gauge.getValue();
+					if (value instanceof Number) {
+						set(gaugeColumns, entry.getKey(), null, 0, ((Number) value).doubleValue());
+					}
+					else if (value instanceof Boolean) {
+						set(gaugeColumns, entry.getKey(), null, 0, ((Boolean) value) ? 1 : 0);
+					}
+				}
+			}
+
+			for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+				set(counterColumns, entry.getKey(), COUNTER_COLUMNS, 0, entry.getValue().getCount());
+			}
+
+			for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+				final Histogram histogram = entry.getValue();
+				final int[] ids = set(histogramColumns, entry.getKey(), HISTOGRAM_COLUMNS, 0, histogram.getCount());
+				setSnapshot(ids, 1, histogram.getSnapshot(), false);
+			}
+
+			for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+				setMetered(set(meterColumns, entry.getKey(), METERED_COLUMNS, 0, entry.getValue().getCount()), entry.getValue());
+			}
+
+			for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+				final Timer timer = entry.getValue();
+				final int[] ids = set(timerColumns, entry.getKey(), TIMER_COLUMNS, 0, timer.getCount());
+				setMetered(ids, timer);
+				setSnapshot(ids, METERED_COLUMNS.length, timer.getSnapshot(), true);
+			}
+
+			writeRow(clock.getTime());
+		}
+		catch (IOException ex) {
+			LOG.warn("Unable to write to metric archive {}", directory, ex);
+			closeSegment();
+		}
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		synchronized (this) {
+			closeSegment();
+		}
+	}
+
+	/**
+	 * Sets the value of one column of a metric, finding the metric's columns when it's first seen.
+	 * Metrics of each type are kept apart, as they have different columns.
+	 * @return the columns of the metric
+	 */
+	private int[] set(final Map<String, int[]> metrics, final String name, final String[] suffixes, final int index, final double value) {
+		int[] ids = metrics.get(name);
+		if (ids == null) {
+			final int count = suffixes == null ? 1 : suffixes.length;
+			ids = new int[count];
+			for (int i = 0; i < count; i++) {
+				ids[i] = column(suffixes == null ? name : name + "." + suffixes[i]);
+			}
+			metrics.put(name, ids);
+		}
+		if (index < ids.length) {
+			row[ids[index]] = value;
+		}
+		return ids;
+	}
+
+	private void setMetered(final int[] ids, final Metered metered) {
+		row[ids[1]] = convertRate(metered.getMeanRate());
+		row[ids[2]] = convertRate(metered.getOneMinuteRate());
+		row[ids[3]] = convertRate(metered.getFiveMinuteRate());
+		row[ids[4]] = convertRate(metered.getFifteenMinuteRate());
+	}
+
+	private void setSnapshot(final int[] ids, final int offset, final Snapshot snapshot, final boolean durations) {
+		final double[] values = { snapshot.getMax(), snapshot.getMean(), snapshot.getMin(), snapshot.getStdDev(), snapshot.getMedian(),
+				snapshot.get75thPercentile(), snapshot.get95thPercentile(), snapshot.get98thPercentile(), snapshot.get99thPercentile(),
+				snapshot.get999thPercentile() };
+		for (int i = 0; i < values.length; i++) {
+			row[ids[offset + i]] = durations ? convertDuration(values[i]) : values[i];
+		}
+	}
+
+	private int column(final String name) {
+		final Integer existing = columnIds.get(name);
+		if (existing != null) {
+			return existing;
+		}
+		final int id = columns.size();
+		columns.add(name);
+		columnIds.put(name, id);
+		if (id == row.length) {
+			row = Arrays.copyOf(row, id * 2);
+			segmentIds = Arrays.copyOf(segmentIds, id * 2);
+			Arrays.fill(segmentIds, id, id * 2, -1);
+		}
+		row[id] = Double.NaN;
+		return id;
+	}
+
+	/**
+	 * Writes the row, first declaring in the segment the columns which have a value and haven't
+	 * been declared in it yet. A new segment is started if the records don't fit in this one.
+	 */
+	private void writeRow(final long timestamp) throws IOException {
+		// leave room for the end marker
+		if (segment.remaining() < rowLength() + 1) {
+			nextSegment();
+			final int length = rowLength();
+			if (segment.remaining() < length + 1) {
+				throw new IOException("Row of " + length + " bytes is too large for a segment of " + segmentSize + " bytes");
+			}
+		}
+
+		for (int id = 0; id < columns.size(); id++) {
+			if (segmentIds[id] < 0 && !Double.isNaN(row[id])) {
+				declareColumn(id);
+			}
+		}
+
+		final int start = segment.position();
+		segment.position(start + 1);
+		segment.putLong(timestamp);
+		segment.putInt(segmentColumnCount);
+		for (int i = 0; i < segmentColumnCount; i++) {
+			segment.putDouble(row[segmentColumns[i]]);
+		}
+		// the type byte is written last, so a partly written record reads as the end
+		segment.put(start, ArchiveFormat.ROW);
+	}
+
+	/**
+	 * @return the length of the row record, and of the column records to be written before it
+	 */
+	private int rowLength() {
+		int length = 0;
+		int count = segmentColumnCount;
+		for (int id = 0; id < columns.size(); id++) {
+			if (segmentIds[id] < 0 && !Double.isNaN(row[id])) {
+				length += 1 + 4 + 2 + columns.get(id).getBytes(ArchiveFormat.UTF_8).length;
+				count++;
+			}
+		}
+		return length + 1 + 8 + 4 + 8 * count;
+	}
+
+	private void declareColumn(final int id) {
+		final int segmentId = segmentColumnCount++;
+		if (segmentId == segmentColumns.length) {
+			segmentColumns = Arrays.copyOf(segmentColumns, segmentId * 2);
+		}
+		segmentColumns[segmentId] = id;
+		segmentIds[id] = segmentId;
+
+		final byte[] bytes = columns.get(id).getBytes(ArchiveFormat.UTF_8);
+		final int start = segment.position();
+		segment.position(start + 1);
+		segment.putInt(segmentId);
+		segment.putShort((short) bytes.length);
+		segment.put(bytes);
+		segment.put(start, ArchiveFormat.COLUMN);
+	}
+
+	private void nextSegment() throws IOException {
+		closeSegment();
+
+		if (segmentIndex < 0) {
+			final File[] existing = ArchiveFormat.listSegments(directory);
+			segmentIndex = existing.length == 0 ? 0 : ArchiveFormat.segmentIndex(existing[existing.length - 1]) + 1;
+		}
+		else {
+			segmentIndex++;
+		}
+
+		final File file = ArchiveFormat.segmentFile(directory, segmentIndex);
+		segmentFile = new RandomAccessFile(file, "rw");
+		segmentFile.setLength(0);
+		segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		segment.putInt(ArchiveFormat.MAGIC);
+		segment.putInt(ArchiveFormat.VERSION);
+
+		// ids start again in each segment, so that each segment can be read on its own
+		Arrays.fill(segmentIds, -1);
+		segmentColumnCount = 0;
+
+		deleteOldSegments();
+	}
+
+	private void deleteOldSegments() {
+		if (maxSegments > 0) {
+			final File[] segments = ArchiveFormat.listSegments(directory);
+			for (int i = 0; i < segments.length - maxSegments; i++) {
+				if (!segments[i].delete()) {
+					LOG.warn("Unable to delete metric archive segment {}", segments[i]);
+				}
+			}
+		}
+	}
+
+	private void closeSegment() {
+		if (segment != null) {
+			segment.force();
+			segment = null;
+		}
+		if (segmentFile != null) {
+			try {
+				segmentFile.close();
+			}
+			catch (IOException ex) {
+				LOG.warn("Unable to close metric archive segment", ex);
+			}
+			segmentFile = null;
+		}
+	}
+
+	private static int[] filled(final int length, final int value) {
+		final int[] array = new int[length];
+		Arrays.fill(array, value);
+		return array;
+	}
+
+	private static String[] concat(final String[] a, final String[] b) {
+		final String[] result = new String[a.length + b.length];
+		System.arraycopy(a, 0, result, 0, a.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Clock;
+
+public class ArchiveReporterFactoryBean extends AbstractScheduledReporterFactoryBean<ArchiveReporter> {
+
+	// Required
+	public static final String PERIOD = "period";
+	public static final String DIRECTORY = "directory";
+
+	// Optional
+	public static final String SEGMENT_SIZE = "segment-size";
+	public static final String MAX_SEGMENTS = "max-segments";
+	public static final String CLOCK_REF = "clock-ref";
+	public static final String DURATION_UNIT = "duration-unit";
+	public static final String RATE_UNIT = "rate-unit";
+
+	@Override
+	public Class<ArchiveReporter> getObjectType() {
+		return ArchiveReporter.class;
+	}
+
+	@Override
+	protected ArchiveReporter createInstance() {
+		final long segmentSize = convertSizeString(getProperty(SEGMENT_SIZE, "64m"));
+		if (segmentSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Segment size must be less than 2g");
+		}
+
+		return new ArchiveReporter(getMetricRegistry(), getMetricFilter(), getProperty(RATE_UNIT, TimeUnit.class, TimeUnit.SECONDS),
+				getProperty(DURATION_UNIT, TimeUnit.class, TimeUnit.MILLISECONDS),
+				hasProperty(CLOCK_REF) ? getPropertyRef(CLOCK_REF, Clock.class) : Clock.defaultClock(), new File(getProperty(DIRECTORY)),
+				(int) segmentSize, getProperty(MAX_SEGMENTS, Integer.TYPE, 0));
+	}
+
+	@Override
+	protected long getPeriod() {
+		return convertDurationString(getProperty(PERIOD));
+	}
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Timer;
+
+/**
+ * A filter which remembers the decision of another filter for each metric name, so that a
+ * reporter filtering a large registry on every tick only looks the name up. Register it as a
+ * listener with the registry: a decision is forgotten when a metric of that name is added or
+ * removed, as the decision may depend on the metric as well as its name.
+ * <p>The filter being cached must always make the same decision for the same metric.
+ */
+public class CachingMetricFilter extends MetricRegistryListener.Base implements MetricFilter {
+
+	private final MetricFilter filter;
+	private final ConcurrentMap<String, Boolean> decisions = new ConcurrentHashMap<String, Boolean>();
+
+	public CachingMetricFilter(final MetricFilter filter) {
+		this.filter = filter;
+	}
+
+	@Override
+	public boolean matches(final String name, final Metric metric) {
+		Boolean decision = decisions.get(name);
+		if (decision == null) {
+			decision = filter.matches(name, metric);
+			decisions.put(name, decision);
+		}
+		return decision;
+	}
+
+	@Override
+	public void onGaugeAdded(final String name, final Gauge<?> gauge) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onGaugeRemoved(final String name) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onCounterAdded(final String name, final Counter counter) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onCounterRemoved(final String name) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onHistogramAdded(final String name, final Histogram histogram) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onHistogramRemoved(final String name) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onMeterAdded(final String name, final Meter meter) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onMeterRemoved(final String name) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onTimerAdded(final String name, final Timer timer) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public void onTimerRemoved(final String name) {
+		decisions.remove(name);
+	}
+
+	@Override
+	public String toString() {
+		return filter.toString();
+	}
+
+}
@@ -46,6 +46,9 @@ public class ConsoleReporterElementParser extends AbstractReporterElementParser
 
 		c.optional(FILTER_PATTERN);
 		c.optional(FILTER_REF);
+		c.optional(SCHEDULER_REF);
+		c.optional(DELTA, "^true|false$", "Delta must be true or false");
+		c.optional(DELTA_REFRESH, DURATION_STRING_REGEX, "Delta refresh must be in the form '\\d+(ns|us|ms|s|m|h|d)'");
 		if (c.has(FILTER_PATTERN) && c.has(FILTER_REF)) {
 			c.reject(FILTER_REF, "Reporter element must not specify both the 'filter' and 'filter-ref' attributes");
 		}
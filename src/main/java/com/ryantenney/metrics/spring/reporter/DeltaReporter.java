@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.DoubleGauge;
+import com.ryantenney.metrics.spring.IntGauge;
+import com.ryantenney.metrics.spring.LongGauge;
+
+/**
+ * A reporter which passes to another reporter only the metrics which have changed since they
+ * were last sent. A gauge has changed when its value is no longer equal; a counter when its count
+ * has changed; a meter or timer when its count or its one-, five- or fifteen-minute rate has
+ * changed, so an idle meter is sent while its rates decay; and a histogram or timer when its count
+ * or the summary of its snapshot has changed, so a reservoir whose values expire is sent as they do.
+ * The mean rate isn't compared, as it changes with time alone. Every metric is sent again once the
+ * refresh period has passed since it was last sent, whether or not it has changed.
+ * <p>Each gauge is read once per tick, and the other reporter is given a gauge which returns the
+ * value read, of the same primitive gauge type if it has one. The values are remembered as sent
+ * only once the other reporter's {@code report} method has returned, so a report which throws is
+ * sent again in full on the next tick. The other reporter should not be started, and is stopped
+ * with this one.
+ */
+public class DeltaReporter extends ScheduledReporter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DeltaReporter.class);
+
+	private final ScheduledReporter reporter;
+	private final long refreshNanos;
+	private final Clock clock;
+
+	// replaced after each successful report, so metrics which are no longer reported are forgotten
+	private Map<String, Sent> sent = new HashMap<String, Sent>();
+
+	public DeltaReporter(final MetricRegistry registry, final ScheduledReporter reporter, final MetricFilter filter, final long refreshPeriod,
+			final TimeUnit unit) {
+		this(registry, reporter, filter, refreshPeriod, unit, Clock.defaultClock());
+	}
+
+	public DeltaReporter(final MetricRegistry registry, final ScheduledReporter reporter, final MetricFilter filter, final long refreshPeriod,
+			final TimeUnit unit, final Clock clock) {
+		super(registry, "delta-reporter", filter != null ? filter : MetricFilter.ALL, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+		this.reporter = reporter;
+		this.refreshNanos = unit.toNanos(refreshPeriod);
+		this.clock = clock;
+	}
+
+	public ScheduledReporter getReporter() {
+		return reporter;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public synchronized void report(final SortedMap<String, Gauge> gauges, final SortedMap<String, Counter> counters,
+			final SortedMap<String, Histogram> histograms, final SortedMap<String, Meter> meters, final SortedMap<String, Timer> timers) {
+		final long tick = clock.getTick();
+		final Map<String, Sent> next = new HashMap<String, Sent>();
+
+		final SortedMap<String, Gauge> changedGauges = new TreeMap<String, Gauge>();
+		for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+			final Gauge constant = constant(entry.getValue());
+			final Sent current = new Sent(entry.getValue(), constant.getValue(), tick);
+			if (changed(entry.getKey(), current, next)) {
+				changedGauges.put(entry.getKey(), constant);
+			}
+		}
+
+		final SortedMap<String, Counter> changedCounters = changed(counters, tick, next);
+		final SortedMap<String, Histogram> changedHistograms = changed(histograms, tick, next);
+		final SortedMap<String, Meter> changedMeters = changed(meters, tick, next);
+		final SortedMap<String, Timer> changedTimers = changed(timers, tick, next);
+
+		reporter.report(changedGauges, changedCounters, changedHistograms, changedMeters, changedTimers);
+		sent = next;
+	}
+
+	/**
+	 * Stops the other reporter, then this reporter.
+	 */
+	@Override
+	public void stop() {
+		try {
+			reporter.stop();
+		}
+		catch (RuntimeException ex) {
+			LOG.warn("Problem stopping reporter", ex);
+		}
+		super.stop();
+	}
+
+	private <M extends Metric & Counting> SortedMap<String, M> changed(final SortedMap<String, M> metrics, final long tick,
+			final Map<String, Sent> next) {
+		final SortedMap<String, M> changed = new TreeMap<String, M>();
+		for (Map.Entry<String, M> entry : metrics.entrySet()) {
+			if (changed(entry.getKey(), new Sent(entry.getValue(), sentValue(entry.getValue()), tick), next)) {
+				changed.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Records in {@code next} what will have been sent for the metric if the report succeeds.
+	 * @return whether the metric should be sent
+	 */
+	private boolean changed(final String name, final Sent current, final Map<String, Sent> next) {
+		final Sent last = sent.get(name);
+		if (last == null || last.metric != current.metric || !equal(last.value, current.value) || current.tick - last.tick >= refreshNanos) {
+			next.put(name, current);
+			return true;
+		}
+		next.put(name, last);
+		return false;
+	}
+
+	/**
+	 * @return the count of a counter, or the count, moving rates and snapshot summary of another counting metric
+	 */
+	private static Object sentValue(final Counting metric) {
+		if (!(metric instanceof Metered) && !(metric instanceof Sampling)) {
+			return metric.getCount();
+		}
+		final double[] values = new double[14];
+		values[0] = metric.getCount();
+		if (metric instanceof Metered) {
+			final Metered metered = (Metered) metric;
+			values[1] = metered.getOneMinuteRate();
+			values[2] = metered.getFiveMinuteRate();
+			values[3] = metered.getFifteenMinuteRate();
+		}
+		if (metric instanceof Sampling) {
+			final Snapshot snapshot = ((Sampling) metric).getSnapshot();
+			values[4] = snapshot.getMin();
+			values[5] = snapshot.getMax();
+			values[6] = snapshot.getMean();
+			values[7] = snapshot.getStdDev();
+			values[8] = snapshot.getMedian();
+			values[9] = snapshot.get75thPercentile();
+			values[10] = snapshot.get95thPercentile();
+			values[11] = snapshot.get98thPercentile();
+			values[12] = snapshot.get99thPercentile();
+			values[13] = snapshot.get999thPercentile();
+		}
+		return values;
+	}
+
+	/**
+	 * @return a gauge returning the value of the given gauge as read now, of the same primitive gauge type if it has one
+	 */
+	@SuppressWarnings("rawtypes")
+	private static Gauge constant(final Gauge gauge) {
+		if (gauge instanceof LongGauge) {
+			final long value = ((LongGauge) gauge).getLongValue();
+			return new LongGauge() {
+
+				@Override
+				public long getLongValue() {
+					return value;
+				}
+
+			};
+		}
+		else if (gauge instanceof DoubleGauge) {
+			final double value = ((DoubleGauge) gauge).getDoubleValue();
+			return new DoubleGauge() {
+
+				@Override
+				public double getDoubleValue() {
+					return value;
+				}
+
+			};
+		}
+		else if (gauge instanceof IntGauge) {
+			final int value = ((IntGauge) gauge).getIntValue();
+			return new IntGauge() {
+
+				@Override
+				public int getIntValue() {
+					return value;
+				}
+
+			};
+		}
+		final Object value = gauge.getValue();
+		return new Gauge<Object>() {
+
+			@Override
+			public Object getValue() {
+				return value;
+			}
+
+		};
+	}
+
+	private static boolean equal(final Object a, final Object b) {
+		if (a instanceof double[] && b instanceof double[]) {
+			return Arrays.equals((double[]) a, (double[]) b);
+		}
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static class Sent {
+
+		private final Metric metric;
+		private final Object value;
+		private final long tick;
+
+		Sent(final Metric metric, final Object value, final long tick) {
+			this.metric = metric;
+			this.value = value;
+			this.tick = tick;
+		}
+
+	}
+
+}
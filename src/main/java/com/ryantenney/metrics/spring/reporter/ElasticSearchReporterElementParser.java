@@ -16,6 +16,9 @@
 package com.ryantenney.metrics.spring.reporter;
 
 import static com.ryantenney.metrics.spring.reporter.AbstractReporterFactoryBean.*;
+import static com.ryantenney.metrics.spring.reporter.AbstractScheduledReporterFactoryBean.SCHEDULER_REF;
+import static com.ryantenney.metrics.spring.reporter.AbstractScheduledReporterFactoryBean.DELTA;
+import static com.ryantenney.metrics.spring.reporter.AbstractScheduledReporterFactoryBean.DELTA_REFRESH;
 
 /**
  * Configuration of Metrics reporter using ES.
@@ -46,6 +49,9 @@ public class ElasticSearchReporterElementParser
 
         c.optional(FILTER_PATTERN);
         c.optional(FILTER_REF);
+        c.optional(SCHEDULER_REF);
+        c.optional(DELTA, "^true|false$", "Delta must be true or false");
+        c.optional(DELTA_REFRESH, DURATION_STRING_REGEX, "Delta refresh must be in the form '\\d+(ns|us|ms|s|m|h|d)'");
         if (c.has(FILTER_PATTERN) && c.has(FILTER_REF)) {
             c.reject(FILTER_REF, "Reporter element must not specify both the 'filter' and 'filter-ref' attributes");
         }
@@ -35,8 +35,8 @@ public class GraphiteReporterElementParser extends AbstractReporterElementParser
 
 		c.optional(TRANSPORT);
 
-		// TCP, UDP, Pickle
-		if (!c.has(TRANSPORT) || c.get(TRANSPORT).matches("^tcp|udp|pickle$")) {
+		// TCP, UDP, Pickle, NIO
+		if (!c.has(TRANSPORT) || c.get(TRANSPORT).matches("^tcp|udp|pickle|nio$")) {
 			c.require(HOST);
 			c.require(PORT, PORT_NUMBER_REGEX, "Port number is required and must be between 1-65536");
 
@@ -45,12 +45,25 @@ public class GraphiteReporterElementParser extends AbstractReporterElementParser
 			if ("pickle".equals(c.get(TRANSPORT))) {
 				c.optional(BATCH_SIZE);
 			}
+			else if ("nio".equals(c.get(TRANSPORT))) {
+				c.optional(QUEUE_SIZE, INTEGER_REGEX, "Queue size must be a positive integer");
+			}
 		}
 		else if (c.get(TRANSPORT).equals("rabbitmq")) {
 			c.require(CONNECTION_FACTORY_REF);
 			c.require(EXCHANGE);
 		}
 
+		c.optional(SPOOL_FILE);
+		if (c.has(SPOOL_FILE)) {
+			if ("nio".equals(c.get(TRANSPORT))) {
+				// the NIO transport queues reports and never fails a send, so nothing would be spooled
+				c.reject(SPOOL_FILE, "Reporter element must not specify 'spool-file' with the 'nio' transport");
+			}
+			c.optional(SPOOL_SIZE, SIZE_STRING_REGEX, "Spool size must be a number of bytes, optionally followed by k, m or g");
+			c.optional(SPOOL_REPLAY, INTEGER_REGEX, "Spool replay must be a positive integer");
+		}
+
 		c.optional(CLOCK_REF);
 
 		c.optional(RATE_UNIT, TIMEUNIT_STRING_REGEX, "Rate unit must be one of the enum constants from java.util.concurrent.TimeUnit");
@@ -64,6 +77,9 @@ public class GraphiteReporterElementParser extends AbstractReporterElementParser
 
 		c.optional(FILTER_PATTERN);
 		c.optional(FILTER_REF);
+		c.optional(SCHEDULER_REF);
+		c.optional(DELTA, "^true|false$", "Delta must be true or false");
+		c.optional(DELTA_REFRESH, DURATION_STRING_REGEX, "Delta refresh must be in the form '\\d+(ns|us|ms|s|m|h|d)'");
 		if (c.has(FILTER_PATTERN) && c.has(FILTER_REF)) {
 			c.reject(FILTER_REF, "Reporter element must not specify both the 'filter' and 'filter-ref' attributes");
 		}
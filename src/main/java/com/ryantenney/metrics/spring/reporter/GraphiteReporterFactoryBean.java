@@ -15,6 +15,8 @@
  */
 package com.ryantenney.metrics.spring.reporter;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.concurrent.TimeUnit;
 
@@ -46,6 +48,14 @@ public class GraphiteReporterFactoryBean extends AbstractScheduledReporterFactor
 	// Pickle Optional
 	public static final String BATCH_SIZE = "batch-size";
 
+	// NIO Optional
+	public static final String QUEUE_SIZE = "queue-size";
+
+	// Spool Optional
+	public static final String SPOOL_FILE = "spool-file";
+	public static final String SPOOL_SIZE = "spool-size";
+	public static final String SPOOL_REPLAY = "spool-replay";
+
 	// RabbitMQ Required
 	public static final String CONNECTION_FACTORY_REF = "connection-factory-ref";
 	public static final String EXCHANGE = "exchange";
@@ -57,7 +67,7 @@ public class GraphiteReporterFactoryBean extends AbstractScheduledReporterFactor
 
 	@SuppressWarnings("resource")
 	@Override
-	protected GraphiteReporter createInstance() {
+	protected GraphiteReporter createInstance() throws IOException {
 		final GraphiteReporter.Builder reporter = GraphiteReporter.forRegistry(getMetricRegistry());
 
 		if (hasProperty(CLOCK_REF)) {
@@ -77,7 +87,7 @@ public class GraphiteReporterFactoryBean extends AbstractScheduledReporterFactor
 
 		final String transport = getProperty(TRANSPORT, "tcp");
 		final Charset charset = Charset.forName(getProperty(CHARSET, "UTF-8"));
-		final GraphiteSender graphite;
+		GraphiteSender graphite;
 
 		if ("rabbitmq".equals(transport)) {
 			ConnectionFactory connectionFactory = getPropertyRef(CONNECTION_FACTORY_REF, ConnectionFactory.class);
@@ -97,11 +107,19 @@ public class GraphiteReporterFactoryBean extends AbstractScheduledReporterFactor
 			else if ("pickle".equals(transport)) {
 				graphite = new PickledGraphite(hostname, port, SocketFactory.getDefault(), charset, getProperty(BATCH_SIZE, Integer.TYPE, 100));
 			}
+			else if ("nio".equals(transport)) {
+				graphite = new NioGraphite(hostname, port, charset, getProperty(QUEUE_SIZE, Integer.TYPE, 16), 5000, 100, 60000);
+			}
 			else {
 				throw new IllegalArgumentException("Invalid graphite transport: " + transport);
 			}
 		}
 
+		if (hasProperty(SPOOL_FILE)) {
+			graphite = new SpoolingGraphiteSender(graphite, new File(getProperty(SPOOL_FILE)), convertSizeString(getProperty(SPOOL_SIZE, "16m")),
+					getProperty(SPOOL_REPLAY, Integer.TYPE, 10));
+		}
+
 		return reporter.build(graphite);
 	}
 
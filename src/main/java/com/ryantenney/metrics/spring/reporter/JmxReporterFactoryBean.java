@@ -86,6 +86,7 @@ public class JmxReporterFactoryBean extends AbstractReporterFactoryBean<JmxRepor
 	@Override
 	public void destroy() throws Exception {
 		stop();
+		removeListeners();
 	}
 
 	@Override
@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A FIFO queue of byte records in a memory-mapped file of fixed size, so that its contents are
+ * held off the heap and survive a restart. When a record doesn't fit, the oldest records are
+ * evicted to make room for it. Records may wrap around the end of the file.
+ * <p>The file starts with a header of the magic number, the capacity of the data region, the
+ * offset of the oldest record, the number of bytes used and the number of records. When the file
+ * is opened its records are walked, and if their lengths don't add up to the header the file is
+ * treated as corrupt and emptied.
+ */
+final class MappedRingBuffer implements Closeable {
+
+	private static final int MAGIC = 0x4d535231; // MSR1
+
+	private static final int CAPACITY_OFFSET = 4;
+	private static final int HEAD_OFFSET = 12;
+	private static final int USED_OFFSET = 20;
+	private static final int COUNT_OFFSET = 28;
+	private static final int HEADER_SIZE = 32;
+
+	private final RandomAccessFile file;
+	private final MappedByteBuffer buffer;
+	private final long capacity;
+
+	private long head;
+	private long used;
+	private int count;
+	private long evicted;
+
+	MappedRingBuffer(final File file, final long size) throws IOException {
+		if (size <= HEADER_SIZE + 4 || size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Spool size must be between " + (HEADER_SIZE + 5) + " bytes and 2 GB");
+		}
+		this.file = new RandomAccessFile(file, "rw");
+		try {
+			this.buffer = this.file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+		catch (IOException ex) {
+			this.file.close();
+			throw ex;
+		}
+		this.capacity = size - HEADER_SIZE;
+
+		final long head = buffer.getLong(HEAD_OFFSET);
+		final long used = buffer.getLong(USED_OFFSET);
+		final int count = buffer.getInt(COUNT_OFFSET);
+		if (buffer.getInt(0) == MAGIC && buffer.getLong(CAPACITY_OFFSET) == capacity && head >= 0 && head < capacity && used >= 0
+				&& used <= capacity && count >= 0 && (count == 0) == (used == 0) && valid(head, used, count)) {
+			// Records spooled before a restart
+			this.head = head;
+			this.used = used;
+			this.count = count;
+		}
+		else {
+			buffer.putInt(0, MAGIC);
+			buffer.putLong(CAPACITY_OFFSET, capacity);
+			writeHeader();
+		}
+	}
+
+	/**
+	 * @return whether {@code count} records, starting at {@code head}, exactly fill {@code used} bytes
+	 */
+	private boolean valid(final long head, final long used, final int count) {
+		long position = head;
+		long remaining = used;
+		for (int i = 0; i < count; i++) {
+			if (remaining < 4) {
+				return false;
+			}
+			final int length = recordLength(position);
+			if (length < 0 || length > remaining - 4) {
+				return false;
+			}
+			position = (position + 4 + length) % capacity;
+			remaining -= 4L + length;
+		}
+		return remaining == 0;
+	}
+
+	/**
+	 * Appends a record, evicting the oldest records if necessary.
+	 * @return false if the record is larger than the buffer, and so wasn't appended
+	 */
+	synchronized boolean append(final byte[] record) {
+		final long length = 4L + record.length;
+		if (length > capacity) {
+			return false;
+		}
+		while (capacity - used < length) {
+			removeOldest();
+			evicted++;
+		}
+
+		final long tail = (head + used) % capacity;
+		write(tail, intBytes(record.length));
+		write((tail + 4) % capacity, record);
+		used += length;
+		count++;
+		writeHeader();
+		return true;
+	}
+
+	/**
+	 * @return the oldest record, or null if the buffer is empty
+	 */
+	synchronized byte[] peek() {
+		if (count == 0) {
+			return null;
+		}
+		final int length = recordLength(head);
+		if (length < 0 || length > used - 4) {
+			// the file has been corrupted since it was opened
+			clear();
+			return null;
+		}
+		final byte[] record = new byte[length];
+		read((head + 4) % capacity, record);
+		return record;
+	}
+
+	/**
+	 * Removes the oldest record, if any.
+	 */
+	synchronized void remove() {
+		if (count > 0) {
+			removeOldest();
+			writeHeader();
+		}
+	}
+
+	synchronized int size() {
+		return count;
+	}
+
+	/**
+	 * @return the number of records evicted to make room for newer records
+	 */
+	synchronized long getEvicted() {
+		return evicted;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		buffer.force();
+		file.close();
+	}
+
+	private void removeOldest() {
+		final int recordLength = recordLength(head);
+		if (recordLength < 0 || recordLength > used - 4) {
+			clear();
+			return;
+		}
+		final long length = 4L + recordLength;
+		head = (head + length) % capacity;
+		used -= length;
+		count--;
+	}
+
+	private void clear() {
+		head = 0;
+		used = 0;
+		count = 0;
+		writeHeader();
+	}
+
+	private int recordLength(final long position) {
+		final byte[] length = new byte[4];
+		read(position, length);
+		return ((length[0] & 0xff) << 24) | ((length[1] & 0xff) << 16) | ((length[2] & 0xff) << 8) | (length[3] & 0xff);
+	}
+
+	private void writeHeader() {
+		buffer.putLong(HEAD_OFFSET, head);
+		buffer.putLong(USED_OFFSET, used);
+		buffer.putInt(COUNT_OFFSET, count);
+	}
+
+	private void write(final long position, final byte[] bytes) {
+		final int first = (int) Math.min(bytes.length, capacity - position);
+		final MappedByteBuffer buffer = this.buffer;
+		buffer.position(HEADER_SIZE + (int) position);
+		buffer.put(bytes, 0, first);
+		if (first < bytes.length) {
+			buffer.position(HEADER_SIZE);
+			buffer.put(bytes, first, bytes.length - first);
+		}
+	}
+
+	private void read(final long position, final byte[] bytes) {
+		final int first = (int) Math.min(bytes.length, capacity - position);
+		final MappedByteBuffer buffer = this.buffer;
+		buffer.position(HEADER_SIZE + (int) position);
+		buffer.get(bytes, 0, first);
+		if (first < bytes.length) {
+			buffer.position(HEADER_SIZE);
+			buffer.get(bytes, first, bytes.length - first);
+		}
+	}
+
+	private static byte[] intBytes(final int value) {
+		return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+	}
+
+}
@@ -0,0 +1,454 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.DoubleGauge;
+import com.ryantenney.metrics.spring.IntGauge;
+import com.ryantenney.metrics.spring.LongGauge;
+
+/**
+ * A reporter which reads the registry once per tick and passes what it read to several child
+ * reporters, each with its own filter. The children are never started themselves.
+ * <p>Within a tick each gauge is read, and the snapshot of each histogram and timer is taken, at
+ * most once however many children report it. Children are given views which return the value or
+ * snapshot read first; other methods delegate to the registered metric. Views of a {@link LongGauge},
+ * {@link DoubleGauge} or {@link IntGauge} are of the same type, so children can read them without boxing.
+ * <p>A metric's view is kept from one tick to the next, and what it read is forgotten at the start of
+ * each tick. Views of metrics which are no longer reported, or have been replaced, are dropped.
+ */
+public class MultiplexingReporter extends ScheduledReporter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MultiplexingReporter.class);
+
+	private final List<Child> children = new ArrayList<Child>();
+
+	// replaced on each report, so views of metrics which are no longer reported are forgotten
+	private Map<String, View> views = new HashMap<String, View>();
+
+	public MultiplexingReporter(final MetricRegistry registry, final MetricFilter filter) {
+		super(registry, "multiplexing-reporter", filter, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Adds a child reporter. It should not be started, as the multiplexing reporter reports it.
+	 * @param reporter the child reporter
+	 * @param filter the filter for the child, which is matched against the same views the child is given
+	 */
+	public void addReporter(final ScheduledReporter reporter, final MetricFilter filter) {
+		synchronized (children) {
+			children.add(new Child(reporter, filter != null ? filter : MetricFilter.ALL));
+		}
+	}
+
+	public List<ScheduledReporter> getReporters() {
+		synchronized (children) {
+			final List<ScheduledReporter> reporters = new ArrayList<ScheduledReporter>(children.size());
+			for (Child child : children) {
+				reporters.add(child.reporter);
+			}
+			return reporters;
+		}
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public synchronized void report(final SortedMap<String, Gauge> gauges, final SortedMap<String, Counter> counters,
+			final SortedMap<String, Histogram> histograms, final SortedMap<String, Meter> meters, final SortedMap<String, Timer> timers) {
+		final Map<String, View> next = new HashMap<String, View>();
+		final SortedMap<String, Gauge> gaugeViews = views(gauges, next);
+		final SortedMap<String, Histogram> histogramViews = views(histograms, next);
+		final SortedMap<String, Timer> timerViews = views(timers, next);
+		views = next;
+
+		final List<Child> children;
+		synchronized (this.children) {
+			children = new ArrayList<Child>(this.children);
+		}
+
+		for (Child child : children) {
+			try {
+				child.reporter.report(filter(gauges, gaugeViews, child.filter), filter(counters, counters, child.filter),
+						filter(histograms, histogramViews, child.filter), filter(meters, meters, child.filter), filter(timers, timerViews, child.filter));
+			}
+			catch (RuntimeException ex) {
+				LOG.error("RuntimeException thrown from {}#report. Exception was suppressed.", child.reporter.getClass().getSimpleName(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Stops the children, then this reporter.
+	 */
+	@Override
+	public void stop() {
+		synchronized (children) {
+			for (Child child : children) {
+				try {
+					child.reporter.stop();
+				}
+				catch (RuntimeException ex) {
+					LOG.warn("Problem stopping reporter", ex);
+				}
+			}
+		}
+		super.stop();
+	}
+
+	/**
+	 * Reuses the view of each metric from the last tick, once reset, or creates one, and records it in {@code next}.
+	 */
+	@SuppressWarnings("unchecked")
+	private <M extends Metric> SortedMap<String, M> views(final SortedMap<String, M> metrics, final Map<String, View> next) {
+		final SortedMap<String, M> views = new TreeMap<String, M>();
+		for (Map.Entry<String, M> entry : metrics.entrySet()) {
+			View view = this.views.get(entry.getKey());
+			if (view != null && view.getMetric() == entry.getValue()) {
+				view.reset();
+			}
+			else {
+				view = view(entry.getValue());
+			}
+			next.put(entry.getKey(), view);
+			views.put(entry.getKey(), (M) view);
+		}
+		return views;
+	}
+
+	private static <M extends Metric> SortedMap<String, M> filter(final SortedMap<String, M> metrics, final SortedMap<String, M> views,
+			final MetricFilter filter) {
+		if (filter == MetricFilter.ALL) {
+			return views;
+		}
+		final SortedMap<String, M> filtered = new TreeMap<String, M>();
+		for (Map.Entry<String, M> entry : metrics.entrySet()) {
+			// the filter is given the view, so a filter which reads values doesn't read the registry again
+			final M view = views.get(entry.getKey());
+			if (filter.matches(entry.getKey(), view)) {
+				filtered.put(entry.getKey(), view);
+			}
+		}
+		return filtered;
+	}
+
+	private static class Child {
+
+		private final ScheduledReporter reporter;
+		private final MetricFilter filter;
+
+		Child(final ScheduledReporter reporter, final MetricFilter filter) {
+			this.reporter = reporter;
+			this.filter = filter;
+		}
+
+	}
+
+	/**
+	 * @return a view of the metric, of the same primitive gauge type if it has one
+	 */
+	@SuppressWarnings("rawtypes")
+	private static View view(final Metric metric) {
+		if (metric instanceof LongGauge) {
+			return new LongGaugeView((LongGauge) metric);
+		}
+		else if (metric instanceof DoubleGauge) {
+			return new DoubleGaugeView((DoubleGauge) metric);
+		}
+		else if (metric instanceof IntGauge) {
+			return new IntGaugeView((IntGauge) metric);
+		}
+		else if (metric instanceof Gauge) {
+			return new GaugeView((Gauge) metric);
+		}
+		else if (metric instanceof Histogram) {
+			return new HistogramView((Histogram) metric);
+		}
+		else if (metric instanceof Timer) {
+			return new TimerView((Timer) metric);
+		}
+		throw new IllegalArgumentException("No view for metric of type " + metric.getClass().getName());
+	}
+
+	/**
+	 * A view of a registered metric, which remembers what it read until it is reset.
+	 */
+	private interface View extends Metric {
+
+		Metric getMetric();
+
+		void reset();
+
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static class GaugeView implements Gauge, View {
+
+		private final Gauge gauge;
+		private volatile boolean read;
+		private volatile Object value;
+
+		GaugeView(final Gauge gauge) {
+			this.gauge = gauge;
+		}
+
+		@Override
+		public Metric getMetric() {
+			return gauge;
+		}
+
+		@Override
+		public void reset() {
+			read = false;
+		}
+
+		@Override
+		public Object getValue() {
+			if (!read) {
+				value = gauge.getValue();
+				read = true;
+			}
+			return value;
+		}
+
+	}
+
+	private static class LongGaugeView extends LongGauge implements View {
+
+		private final LongGauge gauge;
+		private volatile boolean read;
+		private volatile long value;
+
+		LongGaugeView(final LongGauge gauge) {
+			this.gauge = gauge;
+		}
+
+		@Override
+		public Metric getMetric() {
+			return gauge;
+		}
+
+		@Override
+		public void reset() {
+			read = false;
+		}
+
+		@Override
+		public long getLongValue() {
+			if (!read) {
+				value = gauge.getLongValue();
+				read = true;
+			}
+			return value;
+		}
+
+	}
+
+	private static class DoubleGaugeView extends DoubleGauge implements View {
+
+		private final DoubleGauge gauge;
+		private volatile boolean read;
+		private volatile double value;
+
+		DoubleGaugeView(final DoubleGauge gauge) {
+			this.gauge = gauge;
+		}
+
+		@Override
+		public Metric getMetric() {
+			return gauge;
+		}
+
+		@Override
+		public void reset() {
+			read = false;
+		}
+
+		@Override
+		public double getDoubleValue() {
+			if (!read) {
+				value = gauge.getDoubleValue();
+				read = true;
+			}
+			return value;
+		}
+
+	}
+
+	private static class IntGaugeView extends IntGauge implements View {
+
+		private final IntGauge gauge;
+		private volatile boolean read;
+		private volatile int value;
+
+		IntGaugeView(final IntGauge gauge) {
+			this.gauge = gauge;
+		}
+
+		@Override
+		public Metric getMetric() {
+			return gauge;
+		}
+
+		@Override
+		public void reset() {
+			read = false;
+		}
+
+		@Override
+		public int getIntValue() {
+			if (!read) {
+				value = gauge.getIntValue();
+				read = true;
+			}
+			return value;
+		}
+
+	}
+
+	private static class HistogramView extends Histogram implements View {
+
+		private final Histogram histogram;
+		private volatile Snapshot snapshot;
+
+		HistogramView(final Histogram histogram) {
+			super(null);
+			this.histogram = histogram;
+		}
+
+		@Override
+		public Metric getMetric() {
+			return histogram;
+		}
+
+		@Override
+		public void reset() {
+			snapshot = null;
+		}
+
+		@Override
+		public void update(long value) {
+			histogram.update(value);
+		}
+
+		@Override
+		public long getCount() {
+			return histogram.getCount();
+		}
+
+		@Override
+		public Snapshot getSnapshot() {
+			Snapshot snapshot = this.snapshot;
+			if (snapshot == null) {
+				this.snapshot = snapshot = histogram.getSnapshot();
+			}
+			return snapshot;
+		}
+
+	}
+
+	private static class TimerView extends Timer implements View {
+
+		private final Timer timer;
+		private volatile Snapshot snapshot;
+
+		TimerView(final Timer timer) {
+			super(null);
+			this.timer = timer;
+		}
+
+		@Override
+		public Metric getMetric() {
+			return timer;
+		}
+
+		@Override
+		public void reset() {
+			snapshot = null;
+		}
+
+		@Override
+		public void update(long duration, TimeUnit unit) {
+			timer.update(duration, unit);
+		}
+
+		@Override
+		public <T> T time(Callable<T> event) throws Exception {
+			return timer.time(event);
+		}
+
+		@Override
+		public Context time() {
+			return timer.time();
+		}
+
+		@Override
+		public long getCount() {
+			return timer.getCount();
+		}
+
+		@Override
+		public double getFifteenMinuteRate() {
+			return timer.getFifteenMinuteRate();
+		}
+
+		@Override
+		public double getFiveMinuteRate() {
+			return timer.getFiveMinuteRate();
+		}
+
+		@Override
+		public double getMeanRate() {
+			return timer.getMeanRate();
+		}
+
+		@Override
+		public double getOneMinuteRate() {
+			return timer.getOneMinuteRate();
+		}
+
+		@Override
+		public Snapshot getSnapshot() {
+			Snapshot snapshot = this.snapshot;
+			if (snapshot == null) {
+				this.snapshot = snapshot = timer.getSnapshot();
+			}
+			return snapshot;
+		}
+
+	}
+
+}
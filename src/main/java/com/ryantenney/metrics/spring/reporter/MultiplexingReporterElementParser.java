@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import static com.ryantenney.metrics.spring.reporter.MultiplexingReporterFactoryBean.*;
+
+public class MultiplexingReporterElementParser extends AbstractReporterElementParser {
+
+	@Override
+	public String getType() {
+		return "multiplexing";
+	}
+
+	@Override
+	protected Class<?> getBeanClass() {
+		return MultiplexingReporterFactoryBean.class;
+	}
+
+	@Override
+	protected void validate(ValidationContext c) {
+		c.require(PERIOD, DURATION_STRING_REGEX, "Period is required and must be in the form '\\d+(ns|us|ms|s|m|h|d)'");
+		c.require(REPORTER_REFS);
+
+		c.optional(FILTER_PATTERN);
+		c.optional(FILTER_REF);
+		c.optional(SCHEDULER_REF);
+		c.optional(DELTA, "^true|false$", "Delta must be true or false");
+		c.optional(DELTA_REFRESH, DURATION_STRING_REGEX, "Delta refresh must be in the form '\\d+(ns|us|ms|s|m|h|d)'");
+		if (c.has(FILTER_PATTERN) && c.has(FILTER_REF)) {
+			c.reject(FILTER_REF, "Reporter element must not specify both the 'filter' and 'filter-ref' attributes");
+		}
+
+		c.rejectUnmatchedProperties();
+	}
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.util.StringUtils;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.ScheduledReporter;
+
+public class MultiplexingReporterFactoryBean extends AbstractScheduledReporterFactoryBean<MultiplexingReporter> {
+
+	// Required
+	public static final String PERIOD = "period";
+	public static final String REPORTER_REFS = "reporter-refs";
+
+	@Override
+	public Class<MultiplexingReporter> getObjectType() {
+		return MultiplexingReporter.class;
+	}
+
+	@Override
+	protected MultiplexingReporter createInstance() {
+		final MultiplexingReporter reporter = new MultiplexingReporter(getMetricRegistry(), getMetricFilter());
+
+		for (String reporterRef : StringUtils.commaDelimitedListToStringArray(getProperty(REPORTER_REFS))) {
+			addReporter(reporter, reporterRef.trim());
+		}
+
+		return reporter;
+	}
+
+	@Override
+	protected long getPeriod() {
+		return convertDurationString(getProperty(PERIOD));
+	}
+
+	/**
+	 * A child declared with {@code <metrics:reporter />} is prevented from starting itself, and
+	 * keeps its filter and its delta mode; any other child is reported unfiltered.
+	 */
+	private void addReporter(final MultiplexingReporter reporter, final String reporterRef) {
+		final BeanFactory beanFactory = getBeanFactory();
+		MetricFilter filter = MetricFilter.ALL;
+		ScheduledReporter child = null;
+		if (beanFactory instanceof ConfigurableBeanFactory && ((ConfigurableBeanFactory) beanFactory).isFactoryBean(reporterRef)) {
+			final Object factoryBean = beanFactory.getBean(BeanFactory.FACTORY_BEAN_PREFIX + reporterRef);
+			if (factoryBean instanceof AbstractScheduledReporterFactoryBean) {
+				final AbstractScheduledReporterFactoryBean<?> childFactoryBean = (AbstractScheduledReporterFactoryBean<?>) factoryBean;
+				if (!childFactoryBean.isEnabled()) {
+					return;
+				}
+				childFactoryBean.setMultiplexed(true);
+				filter = childFactoryBean.getMetricFilter();
+				child = childFactoryBean.getScheduledReporter();
+			}
+		}
+		if (child == null) {
+			child = beanFactory.getBean(reporterRef, ScheduledReporter.class);
+		}
+		reporter.addReporter(child, filter);
+	}
+
+}
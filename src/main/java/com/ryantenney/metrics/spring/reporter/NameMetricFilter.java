@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+
+/**
+ * A filter on metric names combining any number of include and exclude rules, each either a
+ * prefix or a regular expression. A name matches if it matches an include rule, or there are no
+ * include rules, and matches no exclude rule. Prefixes are held in a trie, so they are matched in
+ * a single pass over the name however many there are.
+ * <p>Rules must be added before the filter is used. Wrap the filter in a {@link CachingMetricFilter}
+ * to match each name only once.
+ */
+public class NameMetricFilter implements MetricFilter {
+
+	private final PrefixTrie includePrefixes = new PrefixTrie();
+	private final PrefixTrie excludePrefixes = new PrefixTrie();
+	private final List<Pattern> includePatterns = new ArrayList<Pattern>();
+	private final List<Pattern> excludePatterns = new ArrayList<Pattern>();
+
+	public NameMetricFilter includePrefix(final String prefix) {
+		includePrefixes.add(prefix);
+		return this;
+	}
+
+	public NameMetricFilter include(final String regex) {
+		includePatterns.add(Pattern.compile(regex));
+		return this;
+	}
+
+	public NameMetricFilter excludePrefix(final String prefix) {
+		excludePrefixes.add(prefix);
+		return this;
+	}
+
+	public NameMetricFilter exclude(final String regex) {
+		excludePatterns.add(Pattern.compile(regex));
+		return this;
+	}
+
+	@Override
+	public boolean matches(final String name, final Metric metric) {
+		if (!includePrefixes.isEmpty() || !includePatterns.isEmpty()) {
+			if (!includePrefixes.matches(name) && !matchesAny(includePatterns, name)) {
+				return false;
+			}
+		}
+		return !excludePrefixes.matches(name) && !matchesAny(excludePatterns, name);
+	}
+
+	@Override
+	public String toString() {
+		return "[NameMetricFilter includePrefixes=" + includePrefixes + " include=" + includePatterns + " excludePrefixes=" + excludePrefixes
+				+ " exclude=" + excludePatterns + "]";
+	}
+
+	private static boolean matchesAny(final List<Pattern> patterns, final String name) {
+		for (Pattern pattern : patterns) {
+			if (pattern.matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class PrefixTrie {
+
+		private final Node root = new Node();
+		private final List<String> prefixes = new ArrayList<String>();
+
+		void add(final String prefix) {
+			Node node = root;
+			for (int i = 0; i < prefix.length(); i++) {
+				node = node.child(prefix.charAt(i));
+			}
+			node.terminal = true;
+			prefixes.add(prefix);
+		}
+
+		boolean isEmpty() {
+			return prefixes.isEmpty();
+		}
+
+		/**
+		 * @return whether the name starts with any of the prefixes
+		 */
+		boolean matches(final String name) {
+			Node node = root;
+			for (int i = 0; !node.terminal; i++) {
+				if (i == name.length() || node.children == null) {
+					return false;
+				}
+				node = node.children.get(name.charAt(i));
+				if (node == null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return prefixes.toString();
+		}
+
+	}
+
+	private static class Node {
+
+		private Map<Character, Node> children;
+		private boolean terminal;
+
+		Node child(final char c) {
+			if (children == null) {
+				children = new HashMap<Character, Node>();
+			}
+			Node child = children.get(c);
+			if (child == null) {
+				child = new Node();
+				children.put(c, child);
+			}
+			return child;
+		}
+
+	}
+
+}
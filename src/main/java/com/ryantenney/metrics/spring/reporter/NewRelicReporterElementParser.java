@@ -32,6 +32,9 @@ public class NewRelicReporterElementParser extends AbstractReporterElementParser
         context.optional(NewRelicReporterFactoryBean.DURATION_UNIT, TIMEUNIT_STRING_REGEX, "Duration unit must be one of the enum constants from java.util.concurrent.TimeUnit");
         context.optional(NewRelicReporterFactoryBean.ATTRIBUTE_FILTER);
         context.optional(NewRelicReporterFactoryBean.PREFIX);
+        context.optional(NewRelicReporterFactoryBean.SCHEDULER_REF);
+        context.optional(NewRelicReporterFactoryBean.DELTA, "^true|false$", "Delta must be true or false");
+        context.optional(NewRelicReporterFactoryBean.DELTA_REFRESH, DURATION_STRING_REGEX, "Delta refresh must be in the form '\\d+(ns|us|ms|s|m|h|d)'");
 
         context.rejectUnmatchedProperties();
     }
@@ -0,0 +1,392 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.graphite.GraphiteSender;
+
+/**
+ * A {@link GraphiteSender} which never blocks the reporting thread. Each report is encoded into a
+ * buffer and, on {@link #flush()}, handed to a bounded queue. A background thread writes the
+ * queued reports to a non-blocking {@link SocketChannel}, reconnecting with exponential backoff
+ * when the connection fails.
+ * <p>When the queue is full a report is dropped, and counted by {@link #getDroppedBatches()} and
+ * {@link #getDroppedMetrics()}. Buffers are returned to a pool once written, so that they are
+ * reused on later ticks.
+ * <p>{@code send} and {@code flush} must be called by one thread at a time, as they are by a
+ * {@code GraphiteReporter}.
+ */
+public class NioGraphite implements GraphiteSender {
+
+	private static final Logger LOG = LoggerFactory.getLogger(NioGraphite.class);
+
+	private static final Pattern WHITESPACE = Pattern.compile("[\\s]+");
+
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+	private static final long POLL_MILLIS = 100;
+
+	private static final AtomicInteger SENDER_COUNT = new AtomicInteger();
+
+	private final String hostname;
+	private final int port;
+	private final CharsetEncoder encoder;
+	private final long timeoutMillis;
+	private final long minBackoffMillis;
+	private final long maxBackoffMillis;
+
+	private final BlockingQueue<Batch> pending;
+	private final BlockingQueue<Batch> free;
+
+	private final StringBuilder report = new StringBuilder();
+	private int reportMetrics;
+
+	private final AtomicInteger failures = new AtomicInteger();
+	private final AtomicLong droppedBatches = new AtomicLong();
+	private final AtomicLong droppedMetrics = new AtomicLong();
+
+	private volatile boolean running;
+	private Thread senderThread;
+
+	// Accessed only by the sender thread
+	private SocketChannel channel;
+	private Selector selector;
+	private SelectionKey selectionKey;
+	private long backoffMillis;
+	private long nextConnectMillis;
+
+	/**
+	 * Creates a sender which queues up to 16 reports, with a timeout of 5 seconds and a backoff of
+	 * between 100 milliseconds and one minute.
+	 */
+	public NioGraphite(final String hostname, final int port, final Charset charset) {
+		this(hostname, port, charset, 16, 5000, 100, 60000);
+	}
+
+	/**
+	 * @param queueSize the number of reports which may wait to be written
+	 * @param timeoutMillis the timeout for connecting, and for writing a report
+	 * @param minBackoffMillis the delay before reconnecting after the first failure
+	 * @param maxBackoffMillis the delay, doubled on each failure, is capped at this
+	 */
+	public NioGraphite(final String hostname, final int port, final Charset charset, final int queueSize, final long timeoutMillis,
+			final long minBackoffMillis, final long maxBackoffMillis) {
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("Queue size must be at least 1");
+		}
+		this.hostname = hostname;
+		this.port = port;
+		this.encoder = charset.newEncoder();
+		this.timeoutMillis = timeoutMillis;
+		this.minBackoffMillis = minBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.pending = new ArrayBlockingQueue<Batch>(queueSize);
+		// One more than the queue, for the report being written
+		this.free = new ArrayBlockingQueue<Batch>(queueSize + 1);
+	}
+
+	/**
+	 * Starts the sender thread; the connection itself is made by that thread.
+	 */
+	@Override
+	public synchronized void connect() {
+		if (!running) {
+			running = true;
+			senderThread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					sendQueued();
+				}
+
+			}, "metrics-graphite-nio-" + SENDER_COUNT.incrementAndGet());
+			senderThread.setDaemon(true);
+			senderThread.start();
+		}
+	}
+
+	@Override
+	public boolean isConnected() {
+		return running;
+	}
+
+	@Override
+	public void send(final String name, final String value, final long timestamp) {
+		report.append(sanitize(name)).append(' ').append(sanitize(value)).append(' ').append(timestamp).append('\n');
+		reportMetrics++;
+	}
+
+	/**
+	 * Queues the report sent since the last flush, or drops it if the queue is full.
+	 */
+	@Override
+	public void flush() {
+		if (reportMetrics == 0) {
+			return;
+		}
+
+		final Batch batch = encode();
+		final int metrics = reportMetrics;
+		report.setLength(0);
+		reportMetrics = 0;
+
+		if (!pending.offer(batch)) {
+			free.offer(batch);
+			droppedBatches.incrementAndGet();
+			droppedMetrics.addAndGet(metrics);
+			LOG.warn("Graphite send queue is full, dropped a report of {} metrics", metrics);
+		}
+	}
+
+	/**
+	 * Stops the sender thread, after it has written the queued reports if it is connected.
+	 */
+	@Override
+	public void close() {
+		final Thread thread;
+		synchronized (this) {
+			running = false;
+			thread = senderThread;
+			senderThread = null;
+		}
+		if (thread != null) {
+			try {
+				thread.join(timeoutMillis + POLL_MILLIS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of failed attempts to connect or write
+	 */
+	@Override
+	public int getFailures() {
+		return failures.get();
+	}
+
+	/**
+	 * @return the number of reports dropped because the queue was full, or the sender was closed
+	 *         before they could be written
+	 */
+	public long getDroppedBatches() {
+		return droppedBatches.get();
+	}
+
+	/**
+	 * @return the number of metrics in the dropped reports
+	 */
+	public long getDroppedMetrics() {
+		return droppedMetrics.get();
+	}
+
+	protected String sanitize(final String s) {
+		return WHITESPACE.matcher(s).replaceAll("-");
+	}
+
+	private Batch encode() {
+		Batch batch = free.poll();
+		if (batch == null) {
+			batch = new Batch(INITIAL_BUFFER_SIZE);
+		}
+		batch.metrics = reportMetrics;
+		batch.buffer.clear();
+
+		final CharBuffer chars = CharBuffer.wrap(report);
+		encoder.reset();
+		while (true) {
+			CoderResult result = encoder.encode(chars, batch.buffer, true);
+			if (result.isUnderflow()) {
+				result = encoder.flush(batch.buffer);
+			}
+			if (result.isUnderflow()) {
+				break;
+			}
+			if (result.isOverflow()) {
+				batch.grow();
+			}
+			else {
+				throw new IllegalStateException("Unable to encode report: " + result);
+			}
+		}
+		batch.buffer.flip();
+		return batch;
+	}
+
+	private void sendQueued() {
+		Batch batch = null;
+		try {
+			while (true) {
+				if (batch == null) {
+					batch = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+					if (batch == null) {
+						if (!running) {
+							break;
+						}
+						continue;
+					}
+				}
+
+				if (!ensureConnected()) {
+					if (!running) {
+						break;
+					}
+					Thread.sleep(Math.max(1, Math.min(POLL_MILLIS, nextConnectMillis - System.currentTimeMillis())));
+					continue;
+				}
+
+				try {
+					write(batch.buffer);
+					free.offer(batch);
+					batch = null;
+				}
+				catch (IOException ex) {
+					LOG.warn("Unable to write to Graphite at {}:{}", hostname, port, ex);
+					failed();
+					batch.buffer.rewind();
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			if (batch != null) {
+				dropped(batch);
+			}
+			while ((batch = pending.poll()) != null) {
+				dropped(batch);
+			}
+			closeChannel();
+		}
+	}
+
+	private boolean ensureConnected() {
+		if (channel != null) {
+			return true;
+		}
+		if (System.currentTimeMillis() < nextConnectMillis) {
+			return false;
+		}
+		try {
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			selector = Selector.open();
+			selectionKey = channel.register(selector, SelectionKey.OP_CONNECT);
+			if (!channel.connect(new InetSocketAddress(hostname, port))) {
+				if (selector.select(timeoutMillis) == 0) {
+					throw new SocketTimeoutException("Connect timed out");
+				}
+				selector.selectedKeys().clear();
+				channel.finishConnect();
+			}
+			selectionKey.interestOps(SelectionKey.OP_WRITE);
+			backoffMillis = 0;
+			return true;
+		}
+		catch (Exception ex) {
+			LOG.warn("Unable to connect to Graphite at {}:{}", hostname, port, ex);
+			failed();
+			return false;
+		}
+	}
+
+	private void write(final ByteBuffer buffer) throws IOException {
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (buffer.hasRemaining()) {
+			if (channel.write(buffer) == 0) {
+				final long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0 || selector.select(remaining) == 0) {
+					throw new SocketTimeoutException("Write timed out");
+				}
+				selector.selectedKeys().clear();
+			}
+		}
+	}
+
+	private void failed() {
+		failures.incrementAndGet();
+		closeChannel();
+		backoffMillis = backoffMillis == 0 ? minBackoffMillis : Math.min(backoffMillis * 2, maxBackoffMillis);
+		nextConnectMillis = System.currentTimeMillis() + backoffMillis;
+	}
+
+	private void dropped(final Batch batch) {
+		droppedBatches.incrementAndGet();
+		droppedMetrics.addAndGet(batch.metrics);
+		free.offer(batch);
+	}
+
+	private void closeChannel() {
+		if (selector != null) {
+			try {
+				selector.close();
+			}
+			catch (IOException ignored) {
+			}
+			selector = null;
+			selectionKey = null;
+		}
+		if (channel != null) {
+			try {
+				channel.close();
+			}
+			catch (IOException ignored) {
+			}
+			channel = null;
+		}
+	}
+
+	private static class Batch {
+
+		private ByteBuffer buffer;
+		private int metrics;
+
+		Batch(final int capacity) {
+			this.buffer = ByteBuffer.allocateDirect(capacity);
+		}
+
+		void grow() {
+			final ByteBuffer grown = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		}
+
+	}
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.codahale.metrics.ScheduledReporter;
+
+/**
+ * A scheduler which may be shared by several {@link ScheduledReporter}s, in place of the
+ * single-thread executor each reporter otherwise creates for itself. The number of threads is
+ * bounded, and the first report of each reporter is delayed by a random amount of up to the
+ * configured jitter so that reporters with the same period don't all report at the same time.
+ * <p>Reporters created by {@code <metrics:reporter />} use it when given a {@code scheduler-ref}
+ * attribute; a {@code MetricsConfigurerAdapter} uses it through {@code scheduleReporter}.
+ */
+public class ReporterScheduler implements DisposableBean {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ReporterScheduler.class);
+
+	private static final AtomicInteger SCHEDULER_COUNT = new AtomicInteger();
+
+	private final Random random = new Random();
+
+	private int threads = 1;
+	private long jitter;
+
+	private ScheduledExecutorService executor;
+
+	public ReporterScheduler() {}
+
+	public ReporterScheduler(final int threads, final long jitter, final TimeUnit jitterUnit) {
+		setThreads(threads);
+		this.jitter = jitterUnit.toNanos(jitter);
+	}
+
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1");
+		}
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param jitter a string representing a duration, ie: 500ms, 30s, 5m, 1h, etc
+	 */
+	public void setJitter(final String jitter) {
+		this.jitter = AbstractScheduledReporterFactoryBean.toNanos(jitter);
+	}
+
+	/**
+	 * @return the jitter in nanoseconds
+	 */
+	public long getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Schedules the reporter to report at a fixed rate. The reporter's own {@code start} method
+	 * must not be called as well.
+	 * @return a future which may be cancelled to stop reporting
+	 */
+	public ScheduledFuture<?> schedule(final ScheduledReporter reporter, final long period, final TimeUnit unit) {
+		final long periodNanos = unit.toNanos(period);
+		return getExecutor().scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					reporter.report();
+				}
+				catch (RuntimeException ex) {
+					LOG.error("RuntimeException thrown from {}#report. Exception was suppressed.", reporter.getClass().getSimpleName(), ex);
+				}
+			}
+
+		}, periodNanos + nextJitter(), periodNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stops the scheduler's threads. Reporters scheduled on it stop reporting.
+	 */
+	@Override
+	public synchronized void destroy() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	private synchronized ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			executor = new ScheduledThreadPoolExecutor(threads, new SchedulerThreadFactory(SCHEDULER_COUNT.incrementAndGet()));
+		}
+		return executor;
+	}
+
+	private long nextJitter() {
+		if (jitter <= 0) {
+			return 0;
+		}
+		synchronized (random) {
+			return (long) (random.nextDouble() * jitter);
+		}
+	}
+
+	private static class SchedulerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadCount = new AtomicInteger();
+		private final int schedulerId;
+
+		SchedulerThreadFactory(final int schedulerId) {
+			this.schedulerId = schedulerId;
+		}
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, "metrics-reporter-scheduler-" + schedulerId + "-thread-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
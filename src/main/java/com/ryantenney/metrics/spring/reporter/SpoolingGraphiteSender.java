@@ -0,0 +1,325 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.graphite.GraphiteSender;
+
+/**
+ * A {@link GraphiteSender} which keeps the reports its delegate fails to send in a
+ * {@link MappedRingBuffer}, and sends them once the delegate recovers. Graphite data points carry
+ * their own timestamps, so reports sent late leave no holes.
+ * <p>Failed reports are compressed and appended to the spool, whose size is fixed; when it is
+ * full the oldest reports are evicted. While the spool isn't empty new reports are appended to it
+ * as well, so that reports are sent in order. Each {@link #flush()} sends at most a configured
+ * number of spooled reports, to limit the load on a recovering backend.
+ * <p>Failures are never passed on to the reporter, which would otherwise discard the report.
+ */
+public class SpoolingGraphiteSender implements GraphiteSender {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SpoolingGraphiteSender.class);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	// the most that deflate can compress its input by
+	private static final int MAX_DEFLATE_RATIO = 1032;
+	private static final Pattern WHITESPACE = Pattern.compile("[\\s]+");
+
+	private final GraphiteSender graphite;
+	private final MappedRingBuffer spool;
+	private final int replayPerFlush;
+
+	private final List<String> names = new ArrayList<String>();
+	private final List<String> values = new ArrayList<String>();
+	private long[] timestamps = new long[64];
+
+	private final StringBuilder text = new StringBuilder();
+	private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+	private final byte[] chunk = new byte[4096];
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final Inflater inflater = new Inflater();
+
+	private long spooledReports;
+
+	/**
+	 * @param graphite the sender to which reports are sent
+	 * @param spoolFile the file in which to keep failed reports, which is created if necessary
+	 * @param spoolSize the size of the spool file in bytes
+	 * @param replayPerFlush the largest number of spooled reports to send on each flush
+	 */
+	public SpoolingGraphiteSender(final GraphiteSender graphite, final File spoolFile, final long spoolSize, final int replayPerFlush) throws IOException {
+		if (replayPerFlush < 1) {
+			throw new IllegalArgumentException("Replay per flush must be at least 1");
+		}
+		this.graphite = graphite;
+		this.spool = new MappedRingBuffer(spoolFile, spoolSize);
+		this.replayPerFlush = replayPerFlush;
+	}
+
+	/**
+	 * Does nothing; the delegate is connected when a report is flushed.
+	 */
+	@Override
+	public void connect() {}
+
+	/**
+	 * @return false, so that the reporter calls {@link #connect()}, which never fails
+	 */
+	@Override
+	public boolean isConnected() {
+		return false;
+	}
+
+	@Override
+	public void send(final String name, final String value, final long timestamp) {
+		final int index = names.size();
+		if (index == timestamps.length) {
+			final long[] grown = new long[index * 2];
+			System.arraycopy(timestamps, 0, grown, 0, index);
+			timestamps = grown;
+		}
+		names.add(WHITESPACE.matcher(name).replaceAll("-"));
+		values.add(WHITESPACE.matcher(value).replaceAll("-"));
+		timestamps[index] = timestamp;
+	}
+
+	/**
+	 * Sends the report to the delegate, or spools it if the delegate fails or reports are already
+	 * spooled, and then sends spooled reports.
+	 */
+	@Override
+	public synchronized void flush() {
+		try {
+			boolean sent = true;
+			if (!names.isEmpty()) {
+				if (spool.size() == 0) {
+					sent = sendReport();
+				}
+				if (spool.size() > 0 || !sent) {
+					spool(encodeReport());
+				}
+			}
+			if (sent) {
+				replay();
+			}
+		}
+		finally {
+			names.clear();
+			values.clear();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			graphite.close();
+		}
+		finally {
+			spool.close();
+			deflater.end();
+			inflater.end();
+		}
+	}
+
+	@Override
+	public int getFailures() {
+		return graphite.getFailures();
+	}
+
+	/**
+	 * @return the number of reports written to the spool
+	 */
+	public synchronized long getSpooledReports() {
+		return spooledReports;
+	}
+
+	/**
+	 * @return the number of reports waiting in the spool
+	 */
+	public synchronized int getPendingReports() {
+		return spool.size();
+	}
+
+	/**
+	 * @return the number of spooled reports evicted, unsent, to make room for newer reports
+	 */
+	public synchronized long getEvictedReports() {
+		return spool.getEvicted();
+	}
+
+	private boolean sendReport() {
+		try {
+			connectDelegate();
+			for (int i = 0; i < names.size(); i++) {
+				graphite.send(names.get(i), values.get(i), timestamps[i]);
+			}
+			graphite.flush();
+			return true;
+		}
+		catch (IOException ex) {
+			failed(ex);
+			return false;
+		}
+	}
+
+	private void replay() {
+		for (int i = 0; i < replayPerFlush; i++) {
+			final byte[] record = spool.peek();
+			if (record == null) {
+				return;
+			}
+			final String report;
+			try {
+				report = decode(record);
+			}
+			catch (DataFormatException ex) {
+				discard(ex);
+				continue;
+			}
+			catch (RuntimeException ex) {
+				discard(ex);
+				continue;
+			}
+			try {
+				connectDelegate();
+				int start = 0;
+				int end;
+				while ((end = report.indexOf('\n', start)) >= 0) {
+					final int nameEnd = report.indexOf(' ', start);
+					final int valueEnd = report.indexOf(' ', nameEnd + 1);
+					graphite.send(report.substring(start, nameEnd), report.substring(nameEnd + 1, valueEnd),
+							Long.parseLong(report.substring(valueEnd + 1, end)));
+					start = end + 1;
+				}
+				graphite.flush();
+				spool.remove();
+			}
+			catch (IOException ex) {
+				failed(ex);
+				return;
+			}
+		}
+	}
+
+	private void discard(final Exception ex) {
+		LOG.warn("Discarding unreadable spooled report", ex);
+		spool.remove();
+	}
+
+	private void connectDelegate() throws IOException {
+		if (!graphite.isConnected()) {
+			graphite.connect();
+		}
+	}
+
+	private void failed(final IOException ex) {
+		LOG.warn("Unable to report to Graphite, spooling report", ex);
+		try {
+			graphite.close();
+		}
+		catch (IOException ignored) {
+		}
+	}
+
+	private void spool(final byte[] record) {
+		if (spool.append(record)) {
+			spooledReports++;
+		}
+		else {
+			LOG.warn("Report of {} bytes is larger than the spool, discarding it", record.length);
+		}
+	}
+
+	/**
+	 * A record is the length of the report's text, followed by the deflated text.
+	 */
+	private byte[] encodeReport() {
+		text.setLength(0);
+		for (int i = 0; i < names.size(); i++) {
+			text.append(names.get(i)).append(' ').append(values.get(i)).append(' ').append(timestamps[i]).append('\n');
+		}
+		final byte[] bytes = text.toString().getBytes(UTF_8);
+
+		compressed.reset();
+		compressed.write(bytes.length >>> 24);
+		compressed.write(bytes.length >>> 16);
+		compressed.write(bytes.length >>> 8);
+		compressed.write(bytes.length);
+		deflater.reset();
+		deflater.setInput(bytes);
+		deflater.finish();
+		while (!deflater.finished()) {
+			compressed.write(chunk, 0, deflater.deflate(chunk));
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * Decodes a spooled report, checking that it is made of lines of a name, a value and a timestamp.
+	 * The uncompressed length is checked against the most that deflate can compress to the record's
+	 * size, so that a corrupt record can't cause an unbounded allocation.
+	 */
+	private String decode(final byte[] record) throws DataFormatException {
+		if (record.length < 4) {
+			throw new DataFormatException("Truncated report");
+		}
+		final int length = ((record[0] & 0xff) << 24) | ((record[1] & 0xff) << 16) | ((record[2] & 0xff) << 8) | (record[3] & 0xff);
+		if (length < 0 || length > (record.length - 4L) * MAX_DEFLATE_RATIO) {
+			throw new DataFormatException("Invalid report length " + length);
+		}
+		final byte[] bytes = new byte[length];
+		inflater.reset();
+		inflater.setInput(record, 4, record.length - 4);
+		int read = 0;
+		while (read < length) {
+			final int n = inflater.inflate(bytes, read, length - read);
+			if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+				throw new DataFormatException("Truncated report");
+			}
+			read += n;
+		}
+		final String report = new String(bytes, UTF_8);
+		int start = 0;
+		int end;
+		while ((end = report.indexOf('\n', start)) >= 0) {
+			final int nameEnd = report.indexOf(' ', start);
+			final int valueEnd = nameEnd < 0 ? -1 : report.indexOf(' ', nameEnd + 1);
+			if (nameEnd < start || valueEnd < 0 || valueEnd >= end) {
+				throw new DataFormatException("Malformed line in report");
+			}
+			// throws NumberFormatException if the timestamp is corrupt
+			Long.parseLong(report.substring(valueEnd + 1, end));
+			start = end + 1;
+		}
+		if (start != report.length()) {
+			throw new DataFormatException("Truncated line in report");
+		}
+		return report;
+	}
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.ReflectionUtils.FieldCallback;
+import org.springframework.util.ReflectionUtils.MethodCallback;
+
+import com.codahale.metrics.annotation.Gauge;
+import com.codahale.metrics.annotation.Timed;
+
+public class AnnotatedMembersTest {
+
+	@Test
+	public void cachedPerClass() {
+		assertSame(AnnotatedMembers.forClass(Target.class), AnnotatedMembers.forClass(Target.class));
+	}
+
+	@Test
+	public void matchesReflectionUtils() {
+		assertEquals(reflectionUtilsFields(SubTarget.class, new AnnotationFilter(Gauge.class)),
+				annotatedMembersFields(SubTarget.class, new AnnotationFilter(Gauge.class)));
+		assertEquals(reflectionUtilsMethods(SubTarget.class, new AnnotationFilter(Gauge.class)),
+				annotatedMembersMethods(SubTarget.class, new AnnotationFilter(Gauge.class)));
+		assertEquals(reflectionUtilsMethods(SubTarget.class, new AnnotationFilter(Timed.class)),
+				annotatedMembersMethods(SubTarget.class, new AnnotationFilter(Timed.class)));
+	}
+
+	@Test
+	public void onlyAnnotatedMembers() {
+		Set<String> fields = new TreeSet<String>();
+		for (Field field : annotatedMembersFields(SubTarget.class, ReflectionUtils.COPYABLE_FIELDS)) {
+			fields.add(field.getName());
+		}
+		assertEquals("[gaugeField, subGaugeField]", fields.toString());
+
+		Set<String> methods = new TreeSet<String>();
+		for (Method method : annotatedMembersMethods(SubTarget.class, ReflectionUtils.USER_DECLARED_METHODS)) {
+			methods.add(method.getName());
+		}
+		assertEquals("[gaugeMethod, subTimedMethod, timedMethod]", methods.toString());
+	}
+
+	private static List<Field> reflectionUtilsFields(Class<?> clazz, ReflectionUtils.FieldFilter filter) {
+		final List<Field> fields = new ArrayList<Field>();
+		ReflectionUtils.doWithFields(clazz, new FieldCallback() {
+			@Override
+			public void doWith(Field field) {
+				fields.add(field);
+			}
+		}, filter);
+		return fields;
+	}
+
+	private static List<Field> annotatedMembersFields(Class<?> clazz, ReflectionUtils.FieldFilter filter) {
+		final List<Field> fields = new ArrayList<Field>();
+		AnnotatedMembers.forClass(clazz).doWithFields(new FieldCallback() {
+			@Override
+			public void doWith(Field field) {
+				fields.add(field);
+			}
+		}, filter);
+		return fields;
+	}
+
+	private static List<Method> reflectionUtilsMethods(Class<?> clazz, ReflectionUtils.MethodFilter filter) {
+		final List<Method> methods = new ArrayList<Method>();
+		ReflectionUtils.doWithMethods(clazz, new MethodCallback() {
+			@Override
+			public void doWith(Method method) {
+				methods.add(method);
+			}
+		}, filter);
+		return methods;
+	}
+
+	private static List<Method> annotatedMembersMethods(Class<?> clazz, ReflectionUtils.MethodFilter filter) {
+		final List<Method> methods = new ArrayList<Method>();
+		AnnotatedMembers.forClass(clazz).doWithMethods(new MethodCallback() {
+			@Override
+			public void doWith(Method method) {
+				methods.add(method);
+			}
+		}, filter);
+		return methods;
+	}
+
+	public static class Target {
+
+		@Gauge
+		private int gaugeField;
+
+		@SuppressWarnings("unused")
+		private int plainField;
+
+		@Gauge
+		public int gaugeMethod() {
+			return gaugeField;
+		}
+
+		@Timed
+		public void timedMethod() {}
+
+		public void plainMethod() {}
+
+	}
+
+	public static class SubTarget extends Target {
+
+		@Gauge
+		private int subGaugeField;
+
+		@Timed
+		public int subTimedMethod() {
+			return subGaugeField;
+		}
+
+		@Override
+		public void plainMethod() {}
+
+	}
+
+}
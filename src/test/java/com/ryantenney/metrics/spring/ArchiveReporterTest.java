@@ -0,0 +1,279 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.reporter.ArchiveCsvExporter;
+import com.ryantenney.metrics.spring.reporter.ArchiveReader;
+import com.ryantenney.metrics.spring.reporter.ArchiveReporter;
+
+public class ArchiveReporterTest {
+
+	private final AtomicLong time = new AtomicLong(1000);
+	private final Clock clock = new Clock() {
+
+		@Override
+		public long getTick() {
+			return time.get() * 1000000;
+		}
+
+		@Override
+		public long getTime() {
+			return time.get();
+		}
+
+	};
+
+	private File directory;
+	private MetricRegistry registry;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("metrics-archive", "");
+		directory.delete();
+		registry = new MetricRegistry();
+	}
+
+	@After
+	public void tearDown() {
+		final File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void rowsAreReadBack() throws IOException {
+		final Counter counter = registry.counter("counter");
+		final ArchiveReporter reporter = reporter(1 << 20, 0);
+		try {
+			counter.inc();
+			reporter.report();
+			time.addAndGet(1000);
+			registry.register("gauge", new Gauge<Double>() {
+
+				@Override
+				public Double getValue() {
+					return 1.5;
+				}
+
+			});
+			counter.inc();
+			reporter.report();
+		}
+		finally {
+			reporter.stop();
+		}
+
+		final ArchiveReader reader = new ArchiveReader(directory);
+		try {
+			assertTrue(reader.next());
+			assertEquals(1000, reader.getTimestamp());
+			assertEquals(1, reader.getValue("counter.count"), 0);
+			assertTrue(Double.isNaN(reader.getValue("gauge")));
+
+			assertTrue(reader.next());
+			assertEquals(2000, reader.getTimestamp());
+			assertEquals(2, reader.getValue("counter.count"), 0);
+			assertEquals(1.5, reader.getValue("gauge"), 0);
+
+			assertFalse(reader.next());
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void segmentsRollAndAreDeleted() throws IOException {
+		final Timer timer = registry.timer("timer");
+		ArchiveReporter reporter = reporter(1024, 0);
+		try {
+			for (int i = 0; i < 20; i++) {
+				timer.update(i, TimeUnit.MILLISECONDS);
+				reporter.report();
+			}
+		}
+		finally {
+			reporter.stop();
+		}
+
+		final int segments = directory.listFiles().length;
+		assertTrue(segments > 2);
+		assertEquals(20, countRows());
+
+		// a restarted reporter continues in a new segment, and deletes the oldest
+		reporter = reporter(1024, 2);
+		try {
+			reporter.report();
+		}
+		finally {
+			reporter.stop();
+		}
+
+		assertEquals(2, directory.listFiles().length);
+		final ArchiveReader reader = new ArchiveReader(directory);
+		try {
+			while (reader.next()) {}
+			assertEquals(20, reader.getValue("timer.count"), 0);
+			assertEquals(0.019, reader.getValue("timer.max"), 0.0001);
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void restartedReporterDeclaresItsOwnColumns() throws IOException {
+		registry.counter("a").inc();
+		ArchiveReporter reporter = reporter(1 << 20, 0);
+		try {
+			reporter.report();
+		}
+		finally {
+			reporter.stop();
+		}
+
+		// column ids start again in the restarted reporter's segment
+		registry.remove("a");
+		registry.counter("b").inc(99);
+		time.addAndGet(1000);
+		reporter = reporter(1 << 20, 0);
+		try {
+			reporter.report();
+		}
+		finally {
+			reporter.stop();
+		}
+
+		final ArchiveReader reader = new ArchiveReader(directory);
+		try {
+			assertTrue(reader.next());
+			assertEquals(1, reader.getValue("a.count"), 0);
+			assertTrue(Double.isNaN(reader.getValue("b.count")));
+
+			assertTrue(reader.next());
+			assertTrue(Double.isNaN(reader.getValue("a.count")));
+			assertEquals(99, reader.getValue("b.count"), 0);
+
+			assertFalse(reader.next());
+		}
+		finally {
+			reader.close();
+		}
+
+		final StringWriter out = new StringWriter();
+		new ArchiveCsvExporter(directory).export(out);
+		final String newline = System.getProperty("line.separator");
+		assertEquals("t,a.count,b.count" + newline + "1,1.0," + newline + "2,,99.0" + newline, out.toString());
+	}
+
+	@Test
+	public void metricRegisteredAgainAsAnotherType() throws IOException {
+		registry.counter("metric").inc(3);
+		final ArchiveReporter reporter = reporter(1 << 20, 0);
+		try {
+			reporter.report();
+			registry.remove("metric");
+			registry.meter("metric").mark(5);
+			reporter.report();
+		}
+		finally {
+			reporter.stop();
+		}
+
+		final ArchiveReader reader = new ArchiveReader(directory);
+		try {
+			assertTrue(reader.next());
+			assertEquals(3, reader.getValue("metric.count"), 0);
+			assertTrue(Double.isNaN(reader.getValue("metric.mean_rate")));
+
+			assertTrue(reader.next());
+			assertEquals(5, reader.getValue("metric.count"), 0);
+			assertFalse(Double.isNaN(reader.getValue("metric.mean_rate")));
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void exportsCsv() throws IOException {
+		registry.counter("counter").inc(3);
+		final ArchiveReporter reporter = reporter(1 << 20, 0);
+		try {
+			reporter.report();
+			registry.register("gauge", new Gauge<Boolean>() {
+
+				@Override
+				public Boolean getValue() {
+					return true;
+				}
+
+			});
+			reporter.report();
+		}
+		finally {
+			reporter.stop();
+		}
+
+		final StringWriter out = new StringWriter();
+		new ArchiveCsvExporter(directory).export(out);
+		final String newline = System.getProperty("line.separator");
+		assertEquals("t,counter.count,gauge" + newline + "1,3.0," + newline + "1,3.0,1.0" + newline, out.toString());
+	}
+
+	private ArchiveReporter reporter(final int segmentSize, final int maxSegments) {
+		return new ArchiveReporter(registry, MetricFilter.ALL, TimeUnit.SECONDS, TimeUnit.SECONDS, clock, directory, segmentSize, maxSegments);
+	}
+
+	private int countRows() throws IOException {
+		final ArchiveReader reader = new ArchiveReader(directory);
+		try {
+			int rows = 0;
+			while (reader.next()) {
+				rows++;
+			}
+			return rows;
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
+
+/**
+ * Tests that {@code @Timed} and {@code @ExceptionMetered} methods returning asynchronous
+ * results are measured on completion of the result, with and without fused interceptors.
+ */
+@RunWith(Parameterized.class)
+public class AsyncTimedTest {
+
+	@Parameters
+	public static Collection<Object[]> configs() {
+		return Arrays.asList(new Object[][] { { Config.class }, { FusedConfig.class } });
+	}
+
+	private final Class<?> config;
+
+	private AnnotationConfigApplicationContext ctx;
+	private AsyncBean bean;
+	private Timer timer;
+	private Meter exceptionMeter;
+
+	public AsyncTimedTest(Class<?> config) {
+		this.config = config;
+	}
+
+	@Before
+	public void setUp() {
+		ctx = new AnnotationConfigApplicationContext(config);
+		bean = ctx.getBean(AsyncBean.class);
+		MetricRegistry metricRegistry = ctx.getBean(MetricRegistry.class);
+		timer = metricRegistry.timer("async.timer");
+		exceptionMeter = metricRegistry.meter("async.exceptions");
+	}
+
+	@After
+	public void tearDown() {
+		ctx.close();
+	}
+
+	@Test
+	public void listenableFuture() {
+		SettableListenableFuture<Object> future = new SettableListenableFuture<Object>();
+		bean.listenableFuture(future);
+		assertEquals(0, timer.getCount());
+
+		future.set("done");
+		assertEquals(1, timer.getCount());
+		assertEquals(0, exceptionMeter.getCount());
+	}
+
+	@Test
+	public void failedListenableFuture() {
+		SettableListenableFuture<Object> future = new SettableListenableFuture<Object>();
+		bean.listenableFuture(future);
+
+		future.setException(new IllegalStateException());
+		assertEquals(1, timer.getCount());
+		assertEquals(1, exceptionMeter.getCount());
+	}
+
+	@Test
+	public void completableFuture() throws Exception {
+		assumeTrue(ClassUtils.isPresent("java.util.concurrent.CompletableFuture", null));
+		Class<?> completableFutureClass = ClassUtils.forName("java.util.concurrent.CompletableFuture", null);
+
+		Object future = completableFutureClass.newInstance();
+		bean.completionStage(future);
+		assertEquals(0, timer.getCount());
+
+		completableFutureClass.getMethod("complete", Object.class).invoke(future, "done");
+		assertEquals(1, timer.getCount());
+		assertEquals(0, exceptionMeter.getCount());
+
+		future = completableFutureClass.newInstance();
+		bean.completionStage(future);
+		completableFutureClass.getMethod("completeExceptionally", Throwable.class).invoke(future, new IllegalStateException());
+		assertEquals(2, timer.getCount());
+		assertEquals(1, exceptionMeter.getCount());
+	}
+
+	@Test
+	public void deferredResult() {
+		final DeferredResult<Object> deferredResult = new DeferredResult<Object>();
+		final boolean[] callbackRun = new boolean[1];
+		deferredResult.onCompletion(new Runnable() {
+			@Override
+			public void run() {
+				callbackRun[0] = true;
+			}
+		});
+
+		bean.deferredResult(deferredResult);
+		deferredResult.setErrorResult(new IllegalStateException());
+		assertEquals(0, timer.getCount());
+
+		completeRequest(deferredResult);
+		assertEquals(1, timer.getCount());
+		assertEquals(1, exceptionMeter.getCount());
+		// the method's own completion callback still runs
+		assertEquals(true, callbackRun[0]);
+	}
+
+	@Test
+	public void synchronousResult() {
+		bean.synchronous();
+		assertEquals(1, timer.getCount());
+	}
+
+	/**
+	 * Invokes the completion callback as Spring MVC does when the async request completes.
+	 */
+	private static void completeRequest(DeferredResult<?> deferredResult) {
+		Method getInterceptor = ReflectionUtils.findMethod(DeferredResult.class, "getInterceptor");
+		ReflectionUtils.makeAccessible(getInterceptor);
+		Object interceptor = ReflectionUtils.invokeMethod(getInterceptor, deferredResult);
+		Method afterCompletion = ReflectionUtils.findMethod(interceptor.getClass(), "afterCompletion", NativeWebRequest.class, DeferredResult.class);
+		ReflectionUtils.makeAccessible(afterCompletion);
+		ReflectionUtils.invokeMethod(afterCompletion, interceptor, null, deferredResult);
+	}
+
+	public static class AsyncBean {
+
+		@Timed(name = "async.timer", absolute = true)
+		@ExceptionMetered(name = "async.exceptions", absolute = true)
+		public ListenableFuture<Object> listenableFuture(SettableListenableFuture<Object> future) {
+			return future;
+		}
+
+		@Timed(name = "async.timer", absolute = true)
+		@ExceptionMetered(name = "async.exceptions", absolute = true)
+		public Object completionStage(Object future) {
+			return future;
+		}
+
+		@Timed(name = "async.timer", absolute = true)
+		@ExceptionMetered(name = "async.exceptions", absolute = true)
+		public DeferredResult<Object> deferredResult(DeferredResult<Object> deferredResult) {
+			return deferredResult;
+		}
+
+		@Timed(name = "async.timer", absolute = true)
+		public Object synchronous() {
+			return null;
+		}
+
+	}
+
+	@Configuration
+	@EnableMetrics(proxyTargetClass = true)
+	public static class Config {
+
+		@Bean
+		public AsyncBean asyncBean() {
+			return new AsyncBean();
+		}
+
+	}
+
+	@Configuration
+	@EnableMetrics(proxyTargetClass = true, fuseInterceptors = true)
+	public static class FusedConfig {
+
+		@Bean
+		public AsyncBean asyncBean() {
+			return new AsyncBean();
+		}
+
+	}
+
+}
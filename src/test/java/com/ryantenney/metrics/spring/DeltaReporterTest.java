@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.reporter.DeltaReporter;
+
+public class DeltaReporterTest {
+
+	private final AtomicLong tick = new AtomicLong();
+	private final Clock clock = new Clock() {
+
+		@Override
+		public long getTick() {
+			return tick.get();
+		}
+
+	};
+
+	private MetricRegistry registry;
+	private CapturingReporter capturing;
+	private DeltaReporter reporter;
+
+	@Before
+	public void setUp() {
+		registry = new MetricRegistry();
+		capturing = new CapturingReporter(registry);
+		reporter = new DeltaReporter(registry, capturing, MetricFilter.ALL, 10, TimeUnit.SECONDS, clock);
+	}
+
+	@Test
+	public void countingMetricsReportedWhenCountChanges() {
+		final Counter counter = registry.counter("counter");
+		final Timer timer = registry.timer("timer");
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+		assertTrue(capturing.reported("timer"));
+
+		reporter.report();
+		assertFalse(capturing.reported("counter"));
+		assertFalse(capturing.reported("timer"));
+
+		counter.inc();
+		timer.update(1, TimeUnit.SECONDS);
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+		assertTrue(capturing.reported("timer"));
+
+		reporter.report();
+		assertFalse(capturing.reported("counter"));
+		assertFalse(capturing.reported("timer"));
+	}
+
+	@Test
+	public void idleMeterReportedWhileItsRatesDecay() {
+		final Meter meter = registry.register("meter", new Meter(clock));
+		meter.mark(100);
+		reporter.report();
+		assertTrue(capturing.reported("meter"));
+
+		reporter.report();
+		assertFalse(capturing.reported("meter"));
+
+		// the rates are ticked once more than five seconds have passed, and decay while the meter is idle
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(6));
+		reporter.report();
+		assertTrue(capturing.reported("meter"));
+		final double rate = capturing.meters.get("meter").getOneMinuteRate();
+
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(6));
+		reporter.report();
+		assertTrue(capturing.reported("meter"));
+		assertTrue(capturing.meters.get("meter").getOneMinuteRate() < rate);
+		assertEquals(100, capturing.meters.get("meter").getCount());
+	}
+
+	@Test
+	public void gaugesReadOnceAndReportedWhenValueChanges() {
+		final AtomicLong value = new AtomicLong();
+		final AtomicInteger reads = new AtomicInteger();
+		registry.register("gauge", new Gauge<Long>() {
+
+			@Override
+			public Long getValue() {
+				reads.incrementAndGet();
+				return value.get();
+			}
+
+		});
+
+		reporter.report();
+		assertTrue(capturing.reported("gauge"));
+		assertEquals(0L, capturing.gauges.get("gauge").getValue());
+		assertEquals(1, reads.get());
+
+		reporter.report();
+		assertFalse(capturing.reported("gauge"));
+		assertEquals(2, reads.get());
+
+		value.set(42);
+		reporter.report();
+		assertTrue(capturing.reported("gauge"));
+		value.set(43);
+		// the reporter is given the value read by the delta reporter
+		assertEquals(42L, capturing.gauges.get("gauge").getValue());
+		assertEquals(3, reads.get());
+	}
+
+	@Test
+	public void primitiveGaugesKeepTheirType() {
+		final AtomicLong reads = new AtomicLong();
+		registry.register("gauge", new LongGauge() {
+
+			@Override
+			public long getLongValue() {
+				return reads.incrementAndGet();
+			}
+
+		});
+
+		reporter.report();
+		final Gauge<?> gauge = capturing.gauges.get("gauge");
+		assertTrue(gauge instanceof LongGauge);
+		assertEquals(1L, ((LongGauge) gauge).getLongValue());
+		assertEquals(1L, ((LongGauge) gauge).getLongValue());
+	}
+
+	@Test
+	public void unchangedMetricsRefreshed() {
+		registry.counter("counter");
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(9));
+		reporter.report();
+		assertFalse(capturing.reported("counter"));
+
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+
+		reporter.report();
+		assertFalse(capturing.reported("counter"));
+	}
+
+	@Test
+	public void failedReportSentAgain() {
+		final Counter counter = registry.counter("counter");
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+
+		counter.inc();
+		capturing.fail = true;
+		try {
+			reporter.report();
+			fail();
+		}
+		catch (IllegalStateException expected) {}
+
+		capturing.fail = false;
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+		assertEquals(1, capturing.counters.get("counter").getCount());
+
+		reporter.report();
+		assertFalse(capturing.reported("counter"));
+	}
+
+	@Test
+	public void replacedAndRemovedMetricsReportedAgain() {
+		registry.counter("counter");
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+
+		// a different metric under the same name
+		registry.remove("counter");
+		registry.register("counter", new Counter());
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+
+		registry.remove("counter");
+		reporter.report();
+		assertFalse(capturing.reported("counter"));
+
+		registry.counter("counter");
+		reporter.report();
+		assertTrue(capturing.reported("counter"));
+	}
+
+	@Test
+	public void filterApplied() {
+		reporter = new DeltaReporter(registry, capturing, new MetricFilter() {
+
+			@Override
+			public boolean matches(String name, Metric metric) {
+				return name.startsWith("foo");
+			}
+
+		}, 10, TimeUnit.SECONDS, clock);
+
+		registry.counter("bar");
+		registry.counter("foo");
+		reporter.report();
+		assertFalse(capturing.reported("bar"));
+		assertTrue(capturing.reported("foo"));
+	}
+
+	private static class CapturingReporter extends ScheduledReporter {
+
+		private volatile boolean fail;
+
+		@SuppressWarnings("rawtypes")
+		private SortedMap<String, Gauge> gauges;
+		private SortedMap<String, Counter> counters;
+		private SortedMap<String, Meter> meters;
+		private SortedMap<String, Timer> timers;
+
+		CapturingReporter(final MetricRegistry registry) {
+			super(registry, "capturing-reporter", MetricFilter.ALL, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters, SortedMap<String, Histogram> histograms,
+				SortedMap<String, Meter> meters, SortedMap<String, Timer> timers) {
+			if (fail) {
+				throw new IllegalStateException("Report failed");
+			}
+			this.gauges = gauges;
+			this.counters = counters;
+			this.meters = meters;
+			this.timers = timers;
+		}
+
+		boolean reported(final String name) {
+			return gauges.containsKey(name) || counters.containsKey(name) || meters.containsKey(name) || timers.containsKey(name);
+		}
+
+	}
+
+}
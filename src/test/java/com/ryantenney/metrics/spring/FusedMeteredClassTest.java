@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.springframework.aop.framework.Advised;
+import org.springframework.test.context.ContextConfiguration;
+
+/**
+ * Runs the {@link MeteredClassTest} suite against a context which uses
+ * a single fused interceptor in place of one interceptor per annotation.
+ */
+@ContextConfiguration(locations = "classpath:metered-class-fused.xml", inheritLocations = false)
+public class FusedMeteredClassTest extends MeteredClassTest {
+
+	@Test
+	public void singleAdvisor() {
+		assertEquals(1, ((Advised) meteredClass).getAdvisors().length);
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.codahale.metrics.Clock;
+
+public class InFlightCounterTest {
+
+	private final AtomicLong tick = new AtomicLong();
+	private final Clock clock = new Clock() {
+
+		@Override
+		public long getTick() {
+			return tick.get();
+		}
+
+	};
+
+	@Test
+	public void peakIsKeptForTheCurrentAndPreviousWindow() {
+		final InFlightCounter counter = new InFlightCounter(1, TimeUnit.SECONDS, clock);
+		counter.inc();
+		counter.inc();
+		counter.inc();
+		counter.dec();
+		counter.dec();
+		counter.dec();
+
+		assertEquals(0, counter.getCount());
+		assertEquals(3, counter.getPeak());
+		assertEquals(3, counter.getPeak());
+
+		// the window which saw the peak is now the previous window
+		tick.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+		counter.inc();
+		assertEquals(3, counter.getPeak());
+
+		// the window which saw the peak has passed, the count has been 1 since
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(1, counter.getPeak());
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(1, counter.getPeak());
+
+		// windows which passed unread are covered by the previous peak
+		counter.dec();
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(3));
+		assertEquals(1, counter.getPeak());
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(0, counter.getPeak());
+	}
+
+	@Test
+	public void concurrentCountIsExactAndPeakBounded() throws Exception {
+		final InFlightCounter counter = new InFlightCounter(1, TimeUnit.SECONDS, clock);
+		final int threads = 4;
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < 10000; j++) {
+						counter.inc();
+						counter.dec();
+					}
+				}
+
+			};
+			workers[i].start();
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		assertEquals(0, counter.getCount());
+		assertTrue(counter.getPeak() >= 1);
+		assertTrue(counter.getPeak() <= threads);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void windowMustBePositive() {
+		new InFlightCounter(0, TimeUnit.SECONDS, clock);
+	}
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+import org.junit.Test;
+import org.springframework.util.ReflectionUtils;
+
+public class MemberAccessorTest {
+
+	@Test
+	public void publicMethod() {
+		MemberAccessor accessor = MemberAccessor.forMethod(ReflectionUtils.findMethod(Target.class, "publicMethod"));
+		assertEquals("FastMethodAccessor", accessor.getClass().getSimpleName());
+		assertEquals(1, accessor.get(new Target()));
+	}
+
+	@Test
+	public void packagePrivateMethod() {
+		MemberAccessor accessor = MemberAccessor.forMethod(ReflectionUtils.findMethod(Target.class, "packagePrivateMethod"));
+		assertEquals("FastMethodAccessor", accessor.getClass().getSimpleName());
+		assertEquals(2L, accessor.get(new Target()));
+	}
+
+	@Test
+	public void privateMethod() {
+		MemberAccessor accessor = MemberAccessor.forMethod(ReflectionUtils.findMethod(Target.class, "privateMethod"));
+		assertEquals("ReflectiveMethodAccessor", accessor.getClass().getSimpleName());
+		assertEquals(3.0, accessor.get(new Target()));
+	}
+
+	@Test
+	public void inheritedMethod() {
+		MemberAccessor accessor = MemberAccessor.forMethod(ReflectionUtils.findMethod(SubTarget.class, "publicMethod"));
+		assertEquals(1, accessor.get(new SubTarget()));
+	}
+
+	@Test
+	public void privateField() {
+		MemberAccessor accessor = MemberAccessor.forField(ReflectionUtils.findField(Target.class, "privateField"));
+		assertEquals("four", accessor.get(new Target()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void runtimeExceptionPropagates() {
+		MemberAccessor.forMethod(ReflectionUtils.findMethod(Target.class, "throwsRuntimeException")).get(new Target());
+	}
+
+	@Test(expected = UndeclaredThrowableException.class)
+	public void checkedExceptionIsWrapped() {
+		MemberAccessor.forMethod(ReflectionUtils.findMethod(Target.class, "throwsCheckedException")).get(new Target());
+	}
+
+	public static class Target {
+
+		private String privateField = "four";
+
+		public int publicMethod() {
+			return 1;
+		}
+
+		long packagePrivateMethod() {
+			return 2L;
+		}
+
+		@SuppressWarnings("unused")
+		private double privateMethod() {
+			return 3.0;
+		}
+
+		public Object throwsRuntimeException() {
+			throw new IllegalArgumentException();
+		}
+
+		public Object throwsCheckedException() throws Exception {
+			throw new Exception();
+		}
+
+	}
+
+	public static class SubTarget extends Target {}
+
+}
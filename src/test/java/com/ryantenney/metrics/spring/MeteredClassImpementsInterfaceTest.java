@@ -117,6 +117,17 @@ public class MeteredClassImpementsInterfaceTest {
 		assertEquals(1, timedMethod.getCount());
 	}
 
+	@Test
+	public void covariantTimedMethod() throws Throwable {
+		// Lookup by name, as MeteredClassImpl declares a bridge method alongside covariantTimedMethod
+		Timer covariantTimedMethod = metricRegistry.getTimers().get(MetricRegistry.name(MeteredClassImpl.class.getCanonicalName(), "covariantTimedMethod"));
+
+		assertEquals(0, covariantTimedMethod.getCount());
+
+		meteredClass.covariantTimedMethod();
+		assertEquals(1, covariantTimedMethod.getCount());
+	}
+
 	@Test
 	public void meteredMethod() throws Throwable {
 		Meter meteredMethod = forMeteredMethod(metricRegistry, MeteredClassImpl.class, "meteredMethod");
@@ -147,6 +158,8 @@ public class MeteredClassImpementsInterfaceTest {
 
 		public void timedMethod();
 
+		public Number covariantTimedMethod();
+
 		public void meteredMethod();
 
 		public void countedMethod(Runnable runnable);
@@ -161,6 +174,12 @@ public class MeteredClassImpementsInterfaceTest {
 		@Timed
 		public void timedMethod() {}
 
+		@Override
+		@Timed
+		public Integer covariantTimedMethod() {
+			return 0;
+		}
+
 		@Override
 		@Metered
 		public void meteredMethod() {}
@@ -46,6 +46,8 @@ import com.codahale.metrics.annotation.Counted;
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Metered;
 import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.annotation.PeakConcurrency;
+import com.ryantenney.metrics.annotation.Sampled;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration("classpath:metered-class.xml")
@@ -102,6 +104,21 @@ public class MeteredClassTest {
 		assertEquals(2, timedMethod.getCount());
 	}
 
+	@Test
+	public void sampledTimedMethod() throws Throwable {
+		Timer sampledTimedMethod = forTimedMethod(metricRegistry, MeteredClass.class, "sampledTimedMethod");
+
+		assertTrue(sampledTimedMethod instanceof SampledTimer);
+		assertEquals(0, sampledTimedMethod.getCount());
+
+		for (int i = 0; i < 10; i++) {
+			meteredClass.sampledTimedMethod();
+		}
+		assertEquals(10, sampledTimedMethod.getCount());
+		assertEquals(3, ((SampledTimer) sampledTimedMethod).getSampledCount());
+		assertEquals(3, sampledTimedMethod.getSnapshot().size());
+	}
+
 	@Test
 	public void meteredMethod() throws Throwable {
 		Meter meteredMethod = forMeteredMethod(metricRegistry, MeteredClass.class, "meteredMethod");
@@ -168,6 +185,32 @@ public class MeteredClassTest {
 		assertEquals(0, countedMethod.getCount());
 	}
 
+	@Test
+	public void peakConcurrencyCountedMethod() throws Throwable {
+		final Counter countedMethod = forCountedMethod(metricRegistry, MeteredClass.class, "peakConcurrencyCountedMethod");
+		final Gauge<?> peak = metricRegistry.getGauges().get(MetricRegistry.name(MeteredClass.class.getCanonicalName(), "peakConcurrencyCountedMethod", "peak"));
+
+		assertTrue(countedMethod instanceof InFlightCounter);
+		assertNotNull(peak);
+
+		meteredClass.peakConcurrencyCountedMethod(new Runnable() {
+			@Override
+			public void run() {
+				meteredClass.peakConcurrencyCountedMethod(new Runnable() {
+					@Override
+					public void run() {
+						assertEquals(2, countedMethod.getCount());
+					}
+				});
+			}
+		});
+
+		assertEquals(0, countedMethod.getCount());
+		assertEquals(2L, peak.getValue());
+		// reading the peak doesn't reset it
+		assertEquals(2L, peak.getValue());
+	}
+
 	@Test
 	public void monotonicCountedMethod() throws Throwable {
 		final Counter countedMethod = forCountedMethod(metricRegistry, MeteredClass.class, "monotonicCountedMethod");
@@ -446,6 +489,12 @@ public class MeteredClassTest {
 			runnable.run();
 		}
 
+		@Counted
+		@PeakConcurrency
+		public void peakConcurrencyCountedMethod(Runnable runnable) {
+			runnable.run();
+		}
+
 		@Counted(monotonic = true)
 		public void monotonicCountedMethod() {}
 
@@ -467,6 +516,10 @@ public class MeteredClassTest {
 		@Metered(name = "varargs-metered")
 		public void varargsMeteredMethod(int ... params) {}
 
+		@Timed
+		@Sampled(4)
+		public void sampledTimedMethod() {}
+
 		@Timed(name = "overloaded-timed")
 		public void overloadedTimedMethod() {}
 
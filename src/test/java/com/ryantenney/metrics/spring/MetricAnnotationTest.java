@@ -30,6 +30,7 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.UniformReservoir;
 import com.codahale.metrics.annotation.Metric;
@@ -83,6 +84,12 @@ public class MetricAnnotationTest {
 		Histogram uniHist = (Histogram) forMetricField(metricRegistry, MetricAnnotationTest.Target.class, "uniformHistogram");
 		assertSame(target.uniformHistogram, uniHist);
 		assertSame(target2.uniformHistogram, uniHist);
+
+		assertNotNull(target.slidingTimer);
+		assertNotNull(target2.slidingTimer);
+		SlidingTimer slidingTimer = (SlidingTimer) forMetricField(metricRegistry, MetricAnnotationTest.Target.class, "slidingTimer");
+		assertSame(target.slidingTimer, slidingTimer);
+		assertSame(target2.slidingTimer, slidingTimer);
 	}
 
 	public static class Target {
@@ -102,6 +109,17 @@ public class MetricAnnotationTest {
 		@Metric
 		Histogram uniformHistogram = new Histogram(new UniformReservoir());
 
+		@Metric
+		SlidingTimer slidingTimer;
+
+	}
+
+	public static class SlidingTimer extends Timer {
+
+		public SlidingTimer() {
+			super(new SlidingWindowReservoir(100));
+		}
+
 	}
 
 }
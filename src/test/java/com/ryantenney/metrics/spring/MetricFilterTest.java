@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.reporter.CachingMetricFilter;
+import com.ryantenney.metrics.spring.reporter.NameMetricFilter;
+
+public class MetricFilterTest {
+
+	private static final Metric METRIC = new Counter();
+
+	@Test
+	public void cachesDecisionPerName() {
+		final AtomicInteger calls = new AtomicInteger();
+		final CachingMetricFilter filter = new CachingMetricFilter(new MetricFilter() {
+
+			@Override
+			public boolean matches(String name, Metric metric) {
+				calls.incrementAndGet();
+				return metric instanceof Counter;
+			}
+
+		});
+
+		final MetricRegistry registry = new MetricRegistry();
+		registry.addListener(filter);
+
+		final Counter counter = registry.counter("foo");
+		assertTrue(filter.matches("foo", counter));
+		assertTrue(filter.matches("foo", counter));
+		assertEquals(1, calls.get());
+
+		// replacing the metric invalidates the decision
+		registry.remove("foo");
+		final Timer timer = registry.timer("foo");
+		assertFalse(filter.matches("foo", timer));
+		assertFalse(filter.matches("foo", timer));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void includesAndExcludes() {
+		final NameMetricFilter filter = new NameMetricFilter()
+				.includePrefix("com.example.")
+				.includePrefix("jvm.")
+				.include(".*\\.requests$")
+				.excludePrefix("com.example.internal.")
+				.exclude(".*\\.debug\\..*");
+
+		assertTrue(filter.matches("com.example.Foo.bar", METRIC));
+		assertTrue(filter.matches("jvm.memory.heap", METRIC));
+		assertTrue(filter.matches("web.requests", METRIC));
+
+		assertFalse(filter.matches("com.other.Foo.bar", METRIC));
+		assertFalse(filter.matches("jvm", METRIC));
+		assertFalse(filter.matches("com.example.internal.Foo", METRIC));
+		assertFalse(filter.matches("com.example.debug.Foo", METRIC));
+		assertFalse(filter.matches("", METRIC));
+	}
+
+	@Test
+	public void excludesOnly() {
+		final NameMetricFilter filter = new NameMetricFilter().excludePrefix("jvm.").excludePrefix("jvm.gc.").exclude("^tmp\\..*");
+
+		assertTrue(filter.matches("com.example.Foo", METRIC));
+		assertTrue(filter.matches("jvm", METRIC));
+		assertFalse(filter.matches("jvm.gc.count", METRIC));
+		assertFalse(filter.matches("jvm.threads", METRIC));
+		assertFalse(filter.matches("tmp.foo", METRIC));
+	}
+
+	@Test
+	public void emptyPrefixMatchesEverything() {
+		final NameMetricFilter filter = new NameMetricFilter().includePrefix("");
+		assertTrue(filter.matches("", METRIC));
+		assertTrue(filter.matches("anything", METRIC));
+	}
+
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.annotation.Metered;
+import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.annotation.MetricTag;
+import com.ryantenney.metrics.annotation.TagCardinality;
+import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
+
+public class MetricTagTest {
+
+	@Test
+	public void overflowAndEviction() throws Exception {
+		final AtomicLong tick = new AtomicLong();
+		final MetricRegistry registry = new MetricRegistry();
+		final Method method = Target.class.getMethod("limited", String.class);
+		final TaggedMetrics<Meter> meters = new TaggedMetrics<Meter>(registry, "limited", method, new Clock() {
+
+			@Override
+			public long getTick() {
+				return tick.get();
+			}
+
+		}) {
+
+			@Override
+			protected Meter create(String name) {
+				return registry.meter(name);
+			}
+
+		};
+
+		final Meter a = meters.forArguments(new Object[] { "a" });
+		assertSame(a, registry.meter("limited.tenant.a"));
+		assertSame(a, meters.forArguments(new Object[] { "a" }));
+		final Meter b = meters.forArguments(new Object[] { "b.c d" });
+		assertSame(b, registry.meter("limited.tenant.b_c_d"));
+
+		// full, and nothing is idle
+		final Meter other = meters.forArguments(new Object[] { "c" });
+		assertSame(other, registry.meter("limited.tenant.other"));
+		assertFalse(registry.getMeters().containsKey("limited.tenant.c"));
+
+		// only the least recently used combination has been idle for a minute
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		meters.forArguments(new Object[] { "b.c d" });
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		final Meter c = meters.forArguments(new Object[] { "c" });
+		assertSame(c, registry.meter("limited.tenant.c"));
+		assertFalse(registry.getMeters().containsKey("limited.tenant.a"));
+		assertSame(b, meters.forArguments(new Object[] { "b.c d" }));
+		assertSame(other, meters.forArguments(new Object[] { "a" }));
+	}
+
+	@Test
+	public void realOtherValueKeptApartFromOverflow() throws Exception {
+		final MetricRegistry registry = new MetricRegistry();
+		final TaggedMetrics<Meter> meters = meters(registry, Target.class.getMethod("limited", String.class));
+
+		final Meter other = meters.forArguments(new Object[] { "other" });
+		assertSame(other, registry.meter("limited.tenant._other"));
+		assertSame(meters.forArguments(new Object[] { "_other" }), registry.meter("limited.tenant.__other"));
+
+		// full
+		final Meter overflow = meters.forArguments(new Object[] { "a" });
+		assertSame(overflow, registry.meter("limited.tenant.other"));
+		assertNotSame(other, overflow);
+	}
+
+	@Test
+	public void sharedNamesKeptUntilLastCombinationEvicted() throws Exception {
+		final AtomicLong tick = new AtomicLong();
+		final Clock clock = new Clock() {
+
+			@Override
+			public long getTick() {
+				return tick.get();
+			}
+
+		};
+		final MetricRegistry registry = new MetricRegistry();
+		final Method method = Target.class.getMethod("limited", String.class);
+		final TaggedMetrics<Meter> meters = meters(registry, method, clock);
+		final TaggedMetrics<Meter> sameName = meters(registry, method, clock);
+
+		// both render as limited.tenant.a_b
+		final Meter meter = meters.forArguments(new Object[] { "a.b" });
+		assertSame(meter, meters.forArguments(new Object[] { "a_b" }));
+		assertSame(meter, sameName.forArguments(new Object[] { "a_b" }));
+
+		// the first two go idle, and are evicted to make room
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		sameName.forArguments(new Object[] { "a_b" });
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		meters.forArguments(new Object[] { "c" });
+		assertSame(meter, registry.getMeters().get("limited.tenant.a_b"));
+
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(60));
+		sameName.forArguments(new Object[] { "c" });
+		sameName.forArguments(new Object[] { "d" });
+		assertFalse(registry.getMeters().containsKey("limited.tenant.a_b"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void tagParametersMustBeValues() throws Exception {
+		meters(new MetricRegistry(), Target.class.getMethod("mutable", AtomicLong.class));
+	}
+
+	@Test
+	public void enumAndPrimitiveTagParameters() throws Exception {
+		final MetricRegistry registry = new MetricRegistry();
+		final TaggedMetrics<Meter> meters = meters(registry, Target.class.getMethod("values", TimeUnit.class, int.class));
+		assertSame(meters.forArguments(new Object[] { TimeUnit.SECONDS, 1 }), registry.meter("values.unit.SECONDS.shard.1"));
+	}
+
+	private static TaggedMetrics<Meter> meters(final MetricRegistry registry, final Method method) {
+		return meters(registry, method, Clock.defaultClock());
+	}
+
+	private static TaggedMetrics<Meter> meters(final MetricRegistry registry, final Method method, final Clock clock) {
+		return new TaggedMetrics<Meter>(registry, method.getName(), method, clock) {
+
+			@Override
+			protected Meter create(String name) {
+				return registry.meter(name);
+			}
+
+		};
+	}
+
+	@Test
+	public void taggedMethods() {
+		assertTaggedMethods(Config.class);
+	}
+
+	@Test
+	public void fusedTaggedMethods() {
+		assertTaggedMethods(FusedConfig.class);
+	}
+
+	private void assertTaggedMethods(final Class<?> config) {
+		final AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(config);
+		try {
+			final MetricRegistry registry = ctx.getBean(MetricRegistry.class);
+			final Target target = ctx.getBean(Target.class);
+
+			target.handle("acme", 1, "eu");
+			target.handle("acme", 2, "eu");
+			target.handle("acme", 3, null);
+			target.handle("initech", 4, "us");
+
+			assertEquals(4, registry.timer("handle").getCount());
+			assertEquals(4, registry.meter("handled").getCount());
+			assertEquals(2, registry.timer("handle.tenant.acme.region.eu").getCount());
+			assertEquals(2, registry.meter("handled.tenant.acme.region.eu").getCount());
+			assertEquals(1, registry.timer("handle.tenant.acme.region.null").getCount());
+			assertEquals(1, registry.timer("handle.tenant.initech.region.us").getCount());
+			assertTrue(registry.getTimers().containsKey("handle.tenant.initech.region.us"));
+		}
+		finally {
+			ctx.close();
+		}
+	}
+
+	@Configuration
+	@EnableMetrics
+	public static class Config {
+
+		@Bean
+		public Target target() {
+			return new Target();
+		}
+
+	}
+
+	@Configuration
+	@EnableMetrics(fuseInterceptors = true)
+	public static class FusedConfig {
+
+		@Bean
+		public Target target() {
+			return new Target();
+		}
+
+	}
+
+	public static class Target {
+
+		@Timed(name = "handle", absolute = true)
+		@Metered(name = "handled", absolute = true)
+		public void handle(@MetricTag("tenant") String tenant, int request, @MetricTag("region") String region) {}
+
+		@TagCardinality(value = 2, idle = 1, idleUnit = TimeUnit.MINUTES)
+		public void limited(@MetricTag("tenant") String tenant) {}
+
+		public void mutable(@MetricTag("count") AtomicLong count) {}
+
+		public void values(@MetricTag("unit") TimeUnit unit, @MetricTag("shard") int shard) {}
+
+	}
+
+}
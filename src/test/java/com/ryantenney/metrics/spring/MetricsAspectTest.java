@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static com.ryantenney.metrics.spring.TestUtil.forExceptionMeteredMethod;
+import static com.ryantenney.metrics.spring.TestUtil.forMeteredMethod;
+import static com.ryantenney.metrics.spring.TestUtil.forTimedMethod;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.annotation.Counted;
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Metered;
+import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
+
+/**
+ * Tests the {@link MetricsAspect}. This class and {@link WovenTarget} are woven by the AspectJ
+ * compiler when the tests are compiled; see the {@code aspectj-maven-plugin} in the POM.
+ */
+public class MetricsAspectTest {
+
+	@After
+	public void tearDown() {
+		while (MetricsAspect.getMetricRegistry() != null) {
+			MetricsAspect.reset(MetricsAspect.getMetricRegistry());
+		}
+	}
+
+	@Test
+	public void recordsWhenConfigured() {
+		final Target target = new Target();
+		target.timed();
+		assertNull(MetricsAspect.getMetricRegistry());
+
+		final MetricRegistry registry = new MetricRegistry();
+		final MetricsAspectConfigurer configurer = new MetricsAspectConfigurer(registry, new MetricsSwitch());
+		configurer.afterPropertiesSet();
+
+		target.timed();
+		target.timed();
+		target.metered();
+		try {
+			target.failing();
+			fail();
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+
+		assertEquals(2, forTimedMethod(registry, Target.class, "timed").getCount());
+		assertEquals(1, forMeteredMethod(registry, Target.class, "metered").getCount());
+		assertEquals(1, forExceptionMeteredMethod(registry, Target.class, "failing").getCount());
+		assertEquals(1, registry.counter("failing.calls").getCount());
+
+		configurer.destroy();
+		target.timed();
+		assertEquals(2, forTimedMethod(registry, Target.class, "timed").getCount());
+	}
+
+	@Test
+	public void resetRestoresPreviousConfiguration() {
+		final Target target = new Target();
+		final MetricRegistry first = new MetricRegistry();
+		final MetricRegistry second = new MetricRegistry();
+		final MetricsAspectConfigurer firstConfigurer = new MetricsAspectConfigurer(first, new MetricsSwitch());
+		final MetricsAspectConfigurer secondConfigurer = new MetricsAspectConfigurer(second, new MetricsSwitch());
+		firstConfigurer.afterPropertiesSet();
+		secondConfigurer.afterPropertiesSet();
+
+		target.timed();
+		assertNull(forTimedMethod(first, Target.class, "timed"));
+		assertEquals(1, forTimedMethod(second, Target.class, "timed").getCount());
+
+		// closing the second context leaves the first recording
+		secondConfigurer.destroy();
+		assertSame(first, MetricsAspect.getMetricRegistry());
+		target.timed();
+		assertEquals(1, forTimedMethod(first, Target.class, "timed").getCount());
+
+		// and closing the first out of order leaves the second recording
+		secondConfigurer.afterPropertiesSet();
+		firstConfigurer.destroy();
+		assertSame(second, MetricsAspect.getMetricRegistry());
+
+		secondConfigurer.destroy();
+		assertNull(MetricsAspect.getMetricRegistry());
+	}
+
+	@Test
+	public void enableMetrics() {
+		assertConfigured(new AnnotationConfigApplicationContext(Config.class));
+	}
+
+	@Test
+	public void annotationDriven() {
+		assertConfigured(new ClassPathXmlApplicationContext("classpath:metrics-aspectj.xml"));
+	}
+
+	@Test
+	public void compileTimeWeavingRecordsSelfCallsAndPrivateMethods() {
+		final AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(WovenConfig.class);
+		try {
+			final MetricRegistry registry = ctx.getBean(MetricRegistry.class);
+			final WovenTarget target = ctx.getBean(WovenTarget.class);
+			assertFalse(AopUtils.isAopProxy(target));
+
+			target.outer();
+			target.callPrivate();
+
+			assertEquals(1, registry.timer("woven.outer").getCount());
+			// called by outer() on this, which a proxy doesn't see
+			assertEquals(1, registry.timer("woven.inner").getCount());
+			assertEquals(1, registry.meter("woven.hidden").getCount());
+		}
+		finally {
+			ctx.close();
+		}
+	}
+
+	private void assertConfigured(final AbstractApplicationContext ctx) {
+		try {
+			// the aspect is woven in place of proxying the beans
+			assertFalse(AopUtils.isAopProxy(ctx.getBean(Target.class)));
+			assertSame(ctx.getBean(MetricRegistry.class), MetricsAspect.getMetricRegistry());
+		}
+		finally {
+			ctx.close();
+		}
+		assertNull(MetricsAspect.getMetricRegistry());
+	}
+
+	@Configuration
+	@EnableMetrics(mode = AdviceMode.ASPECTJ)
+	public static class Config {
+
+		@Bean
+		public Target target() {
+			return new Target();
+		}
+
+	}
+
+	@Configuration
+	@EnableMetrics(mode = AdviceMode.ASPECTJ)
+	public static class WovenConfig {
+
+		@Bean
+		public WovenTarget wovenTarget() {
+			return new WovenTarget();
+		}
+
+	}
+
+	public static class Target {
+
+		@Timed
+		public void timed() {}
+
+		@Metered
+		public void metered() {}
+
+		@ExceptionMetered
+		@Counted(name = "failing.calls", absolute = true, monotonic = true)
+		public void failing() {
+			throw new IllegalStateException();
+		}
+
+	}
+
+}
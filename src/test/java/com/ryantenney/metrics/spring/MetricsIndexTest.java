@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.ReflectionUtils.MethodCallback;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Gauge;
+import com.codahale.metrics.annotation.Timed;
+
+/**
+ * Reads the hand written index in src/test/resources/META-INF/metrics-spring, whose metric
+ * names deliberately differ from those {@link Util#chooseName} produces, and aren't used.
+ */
+public class MetricsIndexTest {
+
+	@Test
+	public void readsIndex() throws Exception {
+		MetricsIndex index = MetricsIndex.forClass(IndexedClass.class);
+		assertNotNull(index);
+		assertEquals(1, index.getFields().size());
+		assertEquals(IndexedClass.class.getDeclaredField("gaugeField"), index.getFields().get(0));
+		assertEquals(1, index.getMethods().size());
+		assertEquals(IndexedClass.class.getDeclaredMethod("timedMethod", String.class, int[].class), index.getMethods().get(0));
+	}
+
+	@Test
+	public void noIndex() {
+		assertNull(MetricsIndex.forClass(MetricsIndexTest.class));
+		assertNull(MetricsIndex.forClass(Object.class));
+	}
+
+	@Test
+	public void noIndexWithoutMarker() {
+		final ClassLoader withoutMarker = new ClassLoader(IndexedClass.class.getClassLoader()) {
+
+			@Override
+			public URL getResource(String name) {
+				return MetricsIndex.MARKER_LOCATION.equals(name) ? null : super.getResource(name);
+			}
+
+		};
+		assertNull(MetricsIndex.forClass(IndexedClass.class, withoutMarker));
+		assertNotNull(MetricsIndex.forClass(IndexedClass.class, IndexedClass.class.getClassLoader()));
+	}
+
+	@Test
+	public void malformedIndex() {
+		assertNull(MetricsIndex.forClass(MalformedIndexClass.class));
+	}
+
+	@Test
+	public void staleIndex() {
+		assertNull(MetricsIndex.forClass(StaleIndexClass.class));
+	}
+
+	@Test
+	public void namesDerivedFromAnnotations() throws Exception {
+		Method timedMethod = IndexedClass.class.getDeclaredMethod("timedMethod", String.class, int[].class);
+		Field gaugeField = IndexedClass.class.getDeclaredField("gaugeField");
+		String className = IndexedClass.class.getCanonicalName();
+
+		assertEquals(className + ".timedMethod", Util.forTimedMethod(IndexedClass.class, timedMethod, timedMethod.getAnnotation(Timed.class)));
+		assertEquals(className + ".timedMethod.exceptions",
+				Util.forExceptionMeteredMethod(IndexedClass.class, timedMethod, timedMethod.getAnnotation(ExceptionMetered.class)));
+		assertEquals(className + ".gaugeField", Util.forGauge(IndexedClass.class, gaugeField, gaugeField.getAnnotation(Gauge.class)));
+		assertEquals(SubClass.class.getCanonicalName() + ".timedMethod",
+				Util.forTimedMethod(SubClass.class, timedMethod, timedMethod.getAnnotation(Timed.class)));
+	}
+
+	@Test
+	public void annotatedMembersUseIndex() {
+		final List<String> methods = new ArrayList<String>();
+		AnnotatedMembers.forClass(SubClass.class).doWithMethods(new MethodCallback() {
+			@Override
+			public void doWith(Method method) {
+				methods.add(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+			}
+		}, ReflectionUtils.USER_DECLARED_METHODS);
+
+		// unindexedMethod is annotated, but absent from the index of IndexedClass
+		assertEquals("[SubClass.subClassMethod, IndexedClass.timedMethod]", methods.toString());
+	}
+
+	public static class IndexedClass {
+
+		@Gauge
+		private int gaugeField;
+
+		@Timed
+		@ExceptionMetered
+		public void timedMethod(String s, int[] i) {}
+
+		@Timed
+		public void unindexedMethod() {}
+
+	}
+
+	public static class SubClass extends IndexedClass {
+
+		@Timed
+		public void subClassMethod() {}
+
+	}
+
+	public static class MalformedIndexClass {}
+
+	public static class StaleIndexClass {}
+
+}
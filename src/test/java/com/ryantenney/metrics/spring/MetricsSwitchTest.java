@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.annotation.Counted;
+import com.codahale.metrics.annotation.Metered;
+import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
+import com.ryantenney.metrics.spring.config.annotation.MetricsConfigurationSupport;
+
+public class MetricsSwitchTest {
+
+	@Test
+	public void entries() {
+		final MetricsSwitch metricsSwitch = new MetricsSwitch(" @Timed, com.example.slow ,");
+		assertEquals("@Timed,com.example.slow", metricsSwitch.getDisabled());
+		assertFalse(metricsSwitch.isEnabled(Timed.class.getName(), "anything"));
+		assertFalse(metricsSwitch.isEnabled("Timed", "anything"));
+		assertFalse(metricsSwitch.isEnabled(Metered.class.getName(), "com.example.slow.method"));
+		assertTrue(metricsSwitch.isEnabled(Metered.class.getName(), "com.example.fast.method"));
+
+		metricsSwitch.enable("@Timed");
+		assertTrue(metricsSwitch.isEnabled(Timed.class.getName(), "anything"));
+	}
+
+	@Test
+	public void switchedAtRuntime() {
+		assertSwitchedAtRuntime(Config.class);
+	}
+
+	@Test
+	public void fusedSwitchedAtRuntime() {
+		assertSwitchedAtRuntime(FusedConfig.class);
+	}
+
+	private void assertSwitchedAtRuntime(final Class<?> config) {
+		final AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.getEnvironment().getPropertySources().addFirst(
+				new MapPropertySource("test", Collections.<String, Object> singletonMap(MetricsConfigurationSupport.DISABLED_PROPERTY, "@Timed")));
+		ctx.register(config);
+		ctx.refresh();
+		try {
+			final MetricRegistry registry = ctx.getBean(MetricRegistry.class);
+			final MetricsSwitch metricsSwitch = ctx.getBean(MetricsSwitch.class);
+			final Target target = ctx.getBean(Target.class);
+
+			target.handle();
+			assertEquals(0, registry.timer("handle.timer").getCount());
+			assertEquals(1, registry.meter("handle.meter").getCount());
+			assertEquals(1, registry.counter("handle.counter").getCount());
+
+			metricsSwitch.enable("@Timed");
+			metricsSwitch.disable("handle.me");
+			target.handle();
+			assertEquals(1, registry.timer("handle.timer").getCount());
+			assertEquals(1, registry.meter("handle.meter").getCount());
+			assertEquals(2, registry.counter("handle.counter").getCount());
+
+			metricsSwitch.setDisabled("handle.");
+			target.handle();
+			assertEquals(1, registry.timer("handle.timer").getCount());
+			assertEquals(1, registry.meter("handle.meter").getCount());
+			assertEquals(2, registry.counter("handle.counter").getCount());
+		}
+		finally {
+			ctx.close();
+		}
+	}
+
+	@Configuration
+	@EnableMetrics
+	public static class Config {
+
+		@Bean
+		public Target target() {
+			return new Target();
+		}
+
+	}
+
+	@Configuration
+	@EnableMetrics(fuseInterceptors = true)
+	public static class FusedConfig {
+
+		@Bean
+		public Target target() {
+			return new Target();
+		}
+
+	}
+
+	public static class Target {
+
+		@Timed(name = "handle.timer", absolute = true)
+		@Metered(name = "handle.meter", absolute = true)
+		@Counted(name = "handle.counter", absolute = true, monotonic = true)
+		public void handle() {}
+
+	}
+
+}
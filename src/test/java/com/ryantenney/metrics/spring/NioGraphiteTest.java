@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.ryantenney.metrics.spring.reporter.NioGraphite;
+
+public class NioGraphiteTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private LineServer server;
+	private NioGraphite graphite;
+
+	@After
+	public void tearDown() throws Exception {
+		if (graphite != null) {
+			graphite.close();
+		}
+		if (server != null) {
+			server.close();
+		}
+	}
+
+	@Test
+	public void sendsReports() throws Exception {
+		server = new LineServer(0);
+		graphite = new NioGraphite("localhost", server.getPort(), UTF_8, 4, 1000, 10, 100);
+
+		graphite.connect();
+		assertTrue(graphite.isConnected());
+		graphite.send("foo bar", "1", 100);
+		graphite.send("baz", "2.5", 100);
+		graphite.flush();
+
+		assertEquals("foo-bar 1 100", server.nextLine());
+		assertEquals("baz 2.5 100", server.nextLine());
+
+		// buffers are reused for later reports
+		for (int i = 0; i < 10; i++) {
+			graphite.send("tick", Integer.toString(i), 200);
+			graphite.flush();
+			assertEquals("tick " + i + " 200", server.nextLine());
+		}
+		assertEquals(0, graphite.getFailures());
+		assertEquals(0, graphite.getDroppedBatches());
+	}
+
+	@Test
+	public void reconnectsWithBackoff() throws Exception {
+		final int port = freePort();
+		graphite = new NioGraphite("localhost", port, UTF_8, 4, 1000, 10, 100);
+
+		graphite.connect();
+		graphite.send("foo", "1", 100);
+		graphite.flush();
+
+		// the report is kept while the server is down
+		Thread.sleep(200);
+		assertTrue(graphite.getFailures() > 0);
+		assertEquals(0, graphite.getDroppedBatches());
+
+		server = new LineServer(port);
+		assertEquals("foo 1 100", server.nextLine());
+	}
+
+	@Test
+	public void dropsReportsWhenQueueIsFull() throws Exception {
+		graphite = new NioGraphite("localhost", freePort(), UTF_8, 1, 1000, 1000, 1000);
+		graphite.connect();
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			graphite.send("foo", "1", 100);
+			graphite.send("bar", "1", 100);
+			graphite.flush();
+		}
+		// reporting never waits for the connection
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+
+		// one report is being retried and one is queued, the rest are dropped
+		assertTrue(graphite.getDroppedBatches() >= 3);
+		assertEquals(graphite.getDroppedBatches() * 2, graphite.getDroppedMetrics());
+	}
+
+	private static int freePort() throws IOException {
+		final ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		}
+		finally {
+			socket.close();
+		}
+	}
+
+	private static class LineServer implements Runnable {
+
+		private final ServerSocket serverSocket;
+		private final BlockingQueue<String> lines = new LinkedBlockingQueue<String>();
+
+		LineServer(final int port) throws IOException {
+			serverSocket = new ServerSocket(port);
+			final Thread thread = new Thread(this, "graphite-line-server");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		String nextLine() throws InterruptedException {
+			return lines.poll(5, TimeUnit.SECONDS);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					final Socket socket = serverSocket.accept();
+					final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+					String line;
+					while ((line = reader.readLine()) != null) {
+						lines.add(line);
+					}
+					socket.close();
+				}
+			}
+			catch (IOException ignored) {
+			}
+		}
+
+		void close() throws IOException {
+			serverSocket.close();
+		}
+
+	}
+
+}
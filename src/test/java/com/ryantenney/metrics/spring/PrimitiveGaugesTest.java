@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.util.ReflectionUtils;
+
+import com.codahale.metrics.Gauge;
+
+public class PrimitiveGaugesTest {
+
+	private final PrimitiveGauges primitiveGauges = new PrimitiveGauges();
+
+	@Test
+	public void supportedTypes() {
+		assertTrue(PrimitiveGauges.isSupported(int.class));
+		assertTrue(PrimitiveGauges.isSupported(long.class));
+		assertTrue(PrimitiveGauges.isSupported(double.class));
+		assertFalse(PrimitiveGauges.isSupported(float.class));
+		assertFalse(PrimitiveGauges.isSupported(Long.class));
+	}
+
+	@Test
+	public void publicIntMethod() {
+		Target target = new Target();
+		Gauge<?> gauge = primitiveGauges.forMethod(target, ReflectionUtils.findMethod(Target.class, "intMethod"));
+		assertTrue(gauge instanceof IntGauge);
+		assertTrue(gauge.getClass().isSynthetic());
+		assertEquals(1, ((IntGauge) gauge).getIntValue());
+		target.value = 10;
+		assertEquals(11, ((IntGauge) gauge).getIntValue());
+		assertEquals(Integer.valueOf(11), gauge.getValue());
+	}
+
+	@Test
+	public void packagePrivateLongMethod() {
+		Gauge<?> gauge = primitiveGauges.forMethod(new Target(), ReflectionUtils.findMethod(Target.class, "longMethod"));
+		assertTrue(gauge instanceof LongGauge);
+		assertTrue(gauge.getClass().isSynthetic());
+		assertEquals(2L, ((LongGauge) gauge).getLongValue());
+		assertEquals(Long.valueOf(2L), gauge.getValue());
+	}
+
+	@Test
+	public void privateDoubleMethod() {
+		Gauge<?> gauge = primitiveGauges.forMethod(new Target(), ReflectionUtils.findMethod(Target.class, "doubleMethod"));
+		assertTrue(gauge instanceof DoubleGauge);
+		assertFalse(gauge.getClass().isSynthetic());
+		assertEquals(3.0, ((DoubleGauge) gauge).getDoubleValue(), 0.0);
+		assertEquals(Double.valueOf(3.0), gauge.getValue());
+	}
+
+	@Test
+	public void overriddenMethod() {
+		Gauge<?> gauge = primitiveGauges.forMethod(new SubTarget(), ReflectionUtils.findMethod(Target.class, "intMethod"));
+		assertEquals(-1, ((IntGauge) gauge).getIntValue());
+	}
+
+	@Test
+	public void generatedClassIsReused() {
+		Gauge<?> first = primitiveGauges.forMethod(new Target(), ReflectionUtils.findMethod(Target.class, "intMethod"));
+		Gauge<?> second = primitiveGauges.forMethod(new Target(), ReflectionUtils.findMethod(Target.class, "intMethod"));
+		assertSame(first.getClass(), second.getClass());
+	}
+
+	@Test
+	public void privateFields() {
+		Target target = new Target();
+		assertEquals(4, ((IntGauge) PrimitiveGauges.forField(target, ReflectionUtils.findField(Target.class, "intField"))).getIntValue());
+		assertEquals(5L, ((LongGauge) PrimitiveGauges.forField(target, ReflectionUtils.findField(Target.class, "longField"))).getLongValue());
+		assertEquals(6.0, ((DoubleGauge) PrimitiveGauges.forField(target, ReflectionUtils.findField(Target.class, "doubleField"))).getDoubleValue(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void runtimeExceptionPropagates() {
+		((LongGauge) primitiveGauges.forMethod(new Target(), ReflectionUtils.findMethod(Target.class, "throwsRuntimeException"))).getLongValue();
+	}
+
+	public static class Target {
+
+		int value;
+
+		@SuppressWarnings("unused")
+		private int intField = 4;
+
+		@SuppressWarnings("unused")
+		private long longField = 5L;
+
+		@SuppressWarnings("unused")
+		private double doubleField = 6.0;
+
+		public int intMethod() {
+			return value + 1;
+		}
+
+		long longMethod() {
+			return 2L;
+		}
+
+		@SuppressWarnings("unused")
+		private double doubleMethod() {
+			return 3.0;
+		}
+
+		public long throwsRuntimeException() {
+			throw new IllegalArgumentException();
+		}
+
+	}
+
+	public static class SubTarget extends Target {
+
+		@Override
+		public int intMethod() {
+			return -1;
+		}
+
+	}
+
+}
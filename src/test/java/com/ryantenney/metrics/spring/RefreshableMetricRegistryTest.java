@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Timer;
+import com.ryantenney.metrics.spring.RefreshableMetricRegistry.RegistrationMode;
+
+public class RefreshableMetricRegistryTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectModeRejectsDuplicates() {
+		final RefreshableMetricRegistry registry = new RefreshableMetricRegistry();
+		registry.register("counter", new Counter());
+		registry.register("counter", new Counter());
+	}
+
+	@Test
+	public void reuseModeReturnsRegisteredMetric() {
+		final RefreshableMetricRegistry registry = new RefreshableMetricRegistry(RegistrationMode.REUSE);
+		final Counter counter = registry.register("counter", new Counter());
+		assertSame(counter, registry.register("counter", new Counter()));
+		assertSame(counter, registry.counter("counter"));
+		assertSame(counter, registry.getMetric("counter"));
+		assertNull(registry.getMetric("missing"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void reuseModeRejectsDifferentType() {
+		final RefreshableMetricRegistry registry = new RefreshableMetricRegistry(RegistrationMode.REUSE);
+		registry.register("metric", new Counter());
+		registry.register("metric", new Meter());
+	}
+
+	@Test
+	public void replaceModeReplacesAndNotifiesListeners() {
+		final RefreshableMetricRegistry registry = new RefreshableMetricRegistry(RegistrationMode.REPLACE);
+		final List<String> events = new ArrayList<String>();
+		registry.addListener(new MetricRegistryListener.Base() {
+
+			@Override
+			public void onGaugeAdded(String name, Gauge<?> gauge) {
+				events.add("added " + name + "=" + gauge.getValue());
+			}
+
+			@Override
+			public void onGaugeRemoved(String name) {
+				events.add("removed " + name);
+			}
+
+		});
+
+		registry.register("gauge", gauge(1));
+		final Gauge<Integer> replacement = registry.register("gauge", gauge(2));
+		assertSame(replacement, registry.getMetric("gauge"));
+		registry.remove("gauge");
+
+		assertEquals(4, events.size());
+		assertEquals("added gauge=1", events.get(0));
+		assertEquals("removed gauge", events.get(1));
+		assertEquals("added gauge=2", events.get(2));
+		assertEquals("removed gauge", events.get(3));
+	}
+
+	@Test
+	public void getOrRegisterAndReplaceInAnyMode() {
+		final RefreshableMetricRegistry registry = new RefreshableMetricRegistry();
+		final Counter counter = registry.getOrRegister("counter", new Counter());
+		assertSame(counter, registry.getOrRegister("counter", new Counter()));
+		final Counter replacement = registry.replace("counter", new Counter());
+		assertSame(replacement, registry.counter("counter"));
+	}
+
+	@Test
+	public void getOrRegisterReturnsMetricOfCompatibleType() {
+		for (MetricRegistry registry : new MetricRegistry[] { new MetricRegistry(), new RefreshableMetricRegistry() }) {
+			final Timer timer = new Timer();
+			assertSame(timer, MetricRegistries.getOrRegister(registry, "timer", timer, Timer.class));
+			assertSame(timer, MetricRegistries.getOrRegister(registry, "timer", new SampledTimer(Sampler.everyNth(2)), Timer.class));
+			assertSame(timer, MetricRegistries.getOrCreate(registry, "timer", Timer.class));
+			try {
+				MetricRegistries.getOrRegister(registry, "timer", new Counter(), Counter.class);
+				fail();
+			}
+			catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void getOrRegisterReplacesInReplaceMode() {
+		final RefreshableMetricRegistry registry = new RefreshableMetricRegistry(RegistrationMode.REPLACE);
+		MetricRegistries.getOrRegister(registry, "timer", new Timer(), Timer.class);
+		final Timer replacement = new Timer();
+		assertSame(replacement, MetricRegistries.getOrRegister(registry, "timer", replacement, Timer.class));
+		assertSame(replacement, MetricRegistries.getOrCreate(registry, "timer", Timer.class));
+	}
+
+	private static Gauge<Integer> gauge(final int value) {
+		return new Gauge<Integer>() {
+
+			@Override
+			public Integer getValue() {
+				return value;
+			}
+
+		};
+	}
+
+}
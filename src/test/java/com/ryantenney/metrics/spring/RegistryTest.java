@@ -20,7 +20,9 @@ import org.junit.Test;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
 import com.codahale.metrics.health.HealthCheckRegistry;
+import com.ryantenney.metrics.spring.RefreshableMetricRegistry.RegistrationMode;
 
 public class RegistryTest {
 
@@ -46,6 +48,10 @@ public class RegistryTest {
 			ctx = new ClassPathXmlApplicationContext("classpath:supplied-registries.xml");
 			Assert.assertNotNull("Should have a MetricRegistry bean.", ctx.getBean("metrics", MetricRegistry.class));
 			Assert.assertNotNull("Should have a HealthCheckRegistry bean.", ctx.getBean("health", HealthCheckRegistry.class));
+			final RefreshableMetricRegistry replacing = ctx.getBean("replacing", RefreshableMetricRegistry.class);
+			Assert.assertSame("Should have a replacing MetricRegistry bean.", RegistrationMode.REPLACE, replacing.getRegistrationMode());
+			Assert.assertTrue("Should have a sliding time window reservoir.",
+					replacing.getReservoirFactory().newReservoir() instanceof SlidingTimeWindowReservoir);
 		}
 		finally {
 			if (ctx != null) {
@@ -17,7 +17,12 @@ package com.ryantenney.metrics.spring;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.palominolabs.metrics.newrelic.NewRelicReporter;
 
@@ -30,16 +35,24 @@ import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import com.codahale.metrics.ConsoleReporter;
 import com.codahale.metrics.CsvReporter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Slf4jReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
 import com.codahale.metrics.ganglia.GangliaReporter;
 import com.codahale.metrics.graphite.GraphiteReporter;
+import com.ryantenney.metrics.spring.config.annotation.MetricsConfigurerAdapter;
+import com.ryantenney.metrics.spring.reporter.ArchiveReporter;
 import com.ryantenney.metrics.spring.reporter.FakeReporter;
 import com.ryantenney.metrics.spring.reporter.MetricPrefixSupplier;
+import com.ryantenney.metrics.spring.reporter.MultiplexingReporter;
+import com.ryantenney.metrics.spring.reporter.ReporterScheduler;
 
 import static org.hamcrest.Matchers.*;
 
@@ -55,6 +68,7 @@ public class ReporterTest {
 		FakeReporter two = null;
 		try {
 			final MetricRegistry registry = SharedMetricRegistries.getOrCreate("reporterTestRegistry");
+			registry.counter("delta.unchanged");
 
 			ctx = new ClassPathXmlApplicationContext("classpath:fake-reporter-test.xml");
 			ctx.start();
@@ -87,6 +101,18 @@ public class ReporterTest {
 
 			Assert.assertNull(ctx.getBean("fakeReporterThree", FakeReporter.class));
 
+			// In delta mode only changed metrics are reported
+			FakeReporter six = ctx.getBean("fakeReporterSix", FakeReporter.class);
+			Assert.assertThat(six.getCalls(), greaterThanOrEqualTo(8));
+			Assert.assertFalse(six.getLastReport().containsKey("delta.unchanged"));
+
+			// Reporters sharing a scheduler are reported on its threads and never start their own
+			for (String name : new String[] { "fakeReporterFour", "fakeReporterFive" }) {
+				FakeReporter shared = ctx.getBean(name, FakeReporter.class);
+				Assert.assertThat(shared.getCalls(), allOf(greaterThanOrEqualTo(8), lessThanOrEqualTo(11)));
+				Assert.assertFalse(shared.isRunning());
+			}
+
 			// Make certain reporters aren't candidates for autowiring
 			ReporterCollaborator collab = ctx.getBean(ReporterCollaborator.class);
 			Assert.assertNotNull(collab.metricRegistry);
@@ -118,6 +144,7 @@ public class ReporterTest {
 
 			Assert.assertNotNull(ctx.getBean(ConsoleReporter.class));
 			Assert.assertNotNull(ctx.getBean(CsvReporter.class));
+			Assert.assertNotNull(ctx.getBean(ArchiveReporter.class));
 			Assert.assertNotNull(ctx.getBean(JmxReporter.class));
 			Assert.assertNotNull(ctx.getBean(Slf4jReporter.class));
 			Assert.assertNotNull(ctx.getBean(GangliaReporter.class));
@@ -128,6 +155,8 @@ public class ReporterTest {
 			Assert.assertNotNull(ctx.getBean("graphite-tcp", GraphiteReporter.class));
 			Assert.assertNotNull(ctx.getBean("graphite-udp", GraphiteReporter.class));
 			Assert.assertNotNull(ctx.getBean("graphite-pickle", GraphiteReporter.class));
+			Assert.assertNotNull(ctx.getBean("graphite-nio", GraphiteReporter.class));
+			Assert.assertNotNull(ctx.getBean("graphite-spool", GraphiteReporter.class));
 			Assert.assertNotNull(ctx.getBean("graphite-rabbitmq", GraphiteReporter.class));
 		}
 		finally {
@@ -157,6 +186,198 @@ public class ReporterTest {
 		}
 	}
 
+	@Test
+	public void multiplexingReporter() throws Throwable {
+		final AtomicInteger gaugeReads = new AtomicInteger();
+		final AtomicInteger snapshots = new AtomicInteger();
+		ClassPathXmlApplicationContext ctx = null;
+		FakeReporter foo = null;
+		FakeReporter all = null;
+		try {
+			ctx = new ClassPathXmlApplicationContext("classpath:multiplexing-reporter-test.xml");
+			final MetricRegistry registry = ctx.getBean(MetricRegistry.class);
+			registry.register("foo.gauge", new Gauge<Integer>() {
+
+				@Override
+				public Integer getValue() {
+					return gaugeReads.incrementAndGet();
+				}
+
+			});
+			registry.register("foo.timer", new Timer(new UniformReservoir() {
+
+				@Override
+				public Snapshot getSnapshot() {
+					snapshots.incrementAndGet();
+					return super.getSnapshot();
+				}
+
+			}));
+			registry.counter("bar.counter");
+
+			Thread.sleep(1000);
+
+			final MultiplexingReporter multiplexing = ctx.getBean(MultiplexingReporter.class);
+			foo = ctx.getBean("fooReporter", FakeReporter.class);
+			all = ctx.getBean("allReporter", FakeReporter.class);
+			Assert.assertEquals(Arrays.asList(foo, all), multiplexing.getReporters());
+		}
+		finally {
+			if (ctx != null) {
+				ctx.close();
+			}
+		}
+
+		// Children are reported by the multiplexing reporter, and aren't started themselves
+		Assert.assertFalse(foo.isRunning());
+		Assert.assertFalse(all.isRunning());
+		Assert.assertThat(all.getCalls(), allOf(greaterThanOrEqualTo(8), lessThanOrEqualTo(11)));
+		Assert.assertEquals(all.getCalls(), foo.getCalls());
+
+		// Each child has its own filter
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("foo.gauge", "foo.timer")), foo.getLastReport().keySet());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("bar.counter", "foo.gauge", "foo.timer")), all.getLastReport().keySet());
+
+		// Both children read the gauge and timer, but each is read only once per tick
+		Assert.assertThat(gaugeReads.get(), allOf(greaterThanOrEqualTo(all.getCalls() - 1), lessThanOrEqualTo(all.getCalls())));
+		Assert.assertThat(snapshots.get(), allOf(greaterThanOrEqualTo(all.getCalls() - 1), lessThanOrEqualTo(all.getCalls())));
+	}
+
+	@Test
+	public void multiplexingReporterKeepsPrimitiveGauges() {
+		final MetricRegistry registry = new MetricRegistry();
+		final AtomicInteger gaugeReads = new AtomicInteger();
+		registry.register("long.gauge", new LongGauge() {
+
+			@Override
+			public long getLongValue() {
+				return gaugeReads.incrementAndGet();
+			}
+
+		});
+
+		final MultiplexingReporter multiplexing = new MultiplexingReporter(registry, MetricFilter.ALL);
+		final FakeReporter child = new FakeReporter(registry, MetricFilter.ALL, null, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+		multiplexing.addReporter(child, null);
+		multiplexing.report();
+
+		final LongGauge view = (LongGauge) child.getLastReport().get("long.gauge");
+		Assert.assertEquals(1, view.getLongValue());
+		Assert.assertEquals(1, view.getLongValue());
+		Assert.assertEquals(1, gaugeReads.get());
+	}
+
+	@Test
+	public void multiplexingReporterKeepsViewsAcrossTicks() {
+		final MetricRegistry registry = new MetricRegistry();
+		final Timer timer = registry.timer("timer");
+
+		final MultiplexingReporter multiplexing = new MultiplexingReporter(registry, MetricFilter.ALL);
+		final FakeReporter child = new FakeReporter(registry, MetricFilter.ALL, null, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+		multiplexing.addReporter(child, null);
+		multiplexing.report();
+		final Timer view = (Timer) child.getLastReport().get("timer");
+		Assert.assertEquals(0, view.getSnapshot().size());
+
+		// the view is reused, and takes a new snapshot on the next tick
+		timer.update(1, TimeUnit.SECONDS);
+		Assert.assertEquals(0, view.getSnapshot().size());
+		multiplexing.report();
+		Assert.assertSame(view, child.getLastReport().get("timer"));
+		Assert.assertEquals(1, view.getSnapshot().size());
+
+		// a metric registered again under the same name is given a new view
+		registry.remove("timer");
+		registry.timer("timer");
+		multiplexing.report();
+		Assert.assertNotSame(view, child.getLastReport().get("timer"));
+	}
+
+	@Test
+	public void multiplexingReporterFiltersViews() {
+		final MetricRegistry registry = new MetricRegistry();
+		final AtomicInteger gaugeReads = new AtomicInteger();
+		registry.register("gauge", new Gauge<Integer>() {
+
+			@Override
+			public Integer getValue() {
+				return gaugeReads.incrementAndGet();
+			}
+
+		});
+
+		final MetricFilter valueFilter = new MetricFilter() {
+
+			@Override
+			public boolean matches(String name, Metric metric) {
+				return !(metric instanceof Gauge) || ((Gauge<?>) metric).getValue() != null;
+			}
+
+		};
+		final MultiplexingReporter multiplexing = new MultiplexingReporter(registry, MetricFilter.ALL);
+		final FakeReporter one = new FakeReporter(registry, MetricFilter.ALL, null, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+		final FakeReporter two = new FakeReporter(registry, MetricFilter.ALL, null, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+		multiplexing.addReporter(one, valueFilter);
+		multiplexing.addReporter(two, valueFilter);
+		multiplexing.report();
+
+		Assert.assertEquals(1, ((Gauge<?>) one.getLastReport().get("gauge")).getValue());
+		Assert.assertEquals(1, ((Gauge<?>) two.getLastReport().get("gauge")).getValue());
+		Assert.assertEquals(1, gaugeReads.get());
+	}
+
+	@Test
+	public void reporterScheduler() throws Throwable {
+		final MetricRegistry registry = new MetricRegistry();
+		final ReporterScheduler scheduler = new ReporterScheduler(1, 0, TimeUnit.MILLISECONDS);
+		try {
+			final FakeReporter one = new FakeReporter(registry, MetricFilter.ALL, null, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+			final FakeReporter two = new FakeReporter(registry, MetricFilter.ALL, null, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+			final ScheduledFuture<?> scheduledOne = scheduler.schedule(one, 50, TimeUnit.MILLISECONDS);
+			scheduler.schedule(two, 50, TimeUnit.MILLISECONDS);
+
+			Thread.sleep(500);
+			scheduledOne.cancel(false);
+			final int oneCalls = one.getCalls();
+			Assert.assertThat(oneCalls, allOf(greaterThanOrEqualTo(8), lessThanOrEqualTo(11)));
+			Assert.assertThat(two.getCalls(), allOf(greaterThanOrEqualTo(8), lessThanOrEqualTo(11)));
+
+			Thread.sleep(200);
+			Assert.assertEquals(oneCalls, one.getCalls());
+			Assert.assertThat(two.getCalls(), greaterThan(oneCalls));
+		}
+		finally {
+			scheduler.destroy();
+		}
+	}
+
+	@Test
+	public void configurerScheduledReporter() throws Throwable {
+		final FakeReporter reporter = new FakeReporter(new MetricRegistry(), MetricFilter.ALL, null, TimeUnit.SECONDS, TimeUnit.MILLISECONDS);
+		final MetricsConfigurerAdapter configurer = new MetricsConfigurerAdapter() {
+
+			@Override
+			public void configureReporters(MetricRegistry metricRegistry) {
+				scheduleReporter(reporter, 50, TimeUnit.MILLISECONDS);
+			}
+
+		};
+		configurer.configureReporters(null);
+
+		Thread.sleep(300);
+		configurer.destroy();
+		final int calls = reporter.getCalls();
+		Assert.assertThat(calls, greaterThanOrEqualTo(4));
+
+		Thread.sleep(200);
+		Assert.assertEquals(calls, reporter.getCalls());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void reporterSchedulerRequiresThreads() {
+		new ReporterScheduler(0, 0, TimeUnit.MILLISECONDS);
+	}
+
 	public static PrintStream testPrintStream() {
 		return new PrintStream(new ByteArrayOutputStream());
 	}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static com.ryantenney.metrics.spring.TestUtil.forMetricField;
+import static com.ryantenney.metrics.spring.TestUtil.forTimedMethod;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.annotation.Metric;
+import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.annotation.Reservoir;
+import com.ryantenney.metrics.spring.BucketedReservoir.BucketSnapshot;
+import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
+
+public class ReservoirTest {
+
+	@Test
+	public void bucketsHaveFixedRelativePrecision() {
+		for (long value : new long[] { 0, 1, 15, 16, 17, 100, 1000, 123456789, Long.MAX_VALUE }) {
+			final int index = BucketedReservoir.index(value);
+			assertTrue(index < BucketedReservoir.BUCKETS);
+			assertEquals(index, BucketedReservoir.index(BucketedReservoir.value(index)));
+			assertEquals(value, BucketedReservoir.value(index), value / 32.0);
+		}
+	}
+
+	@Test
+	public void bucketedPercentiles() {
+		final BucketedReservoir reservoir = new BucketedReservoir(1, TimeUnit.MINUTES);
+		final Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			reservoir.update(1 + random.nextInt(1000000));
+		}
+		reservoir.update(5000000);
+
+		final Snapshot snapshot = reservoir.getSnapshot();
+		assertEquals(100001, snapshot.size());
+		assertEquals(5000000, snapshot.getMax());
+		assertEquals(500000, snapshot.getMedian(), 500000 * 0.04);
+		assertEquals(990000, snapshot.get99thPercentile(), 990000 * 0.04);
+		assertEquals(500000, snapshot.getMean(), 500000 * 0.04);
+	}
+
+	@Test
+	public void bucketedValuesDownsampled() {
+		final BucketedReservoir reservoir = new BucketedReservoir(1, TimeUnit.MINUTES);
+		for (int i = 1; i <= 3; i++) {
+			reservoir.update(i);
+		}
+		assertArrayEquals(new long[] { 1, 2, 3 }, reservoir.getSnapshot().getValues());
+
+		for (int i = 0; i < 1000000; i++) {
+			reservoir.update(1000 + i % 1000);
+		}
+		final BucketSnapshot snapshot = reservoir.getSnapshot();
+		final long[] values = snapshot.getValues();
+		assertEquals(BucketSnapshot.MAX_VALUES, values.length);
+		for (int i = 1; i < values.length; i++) {
+			assertTrue(values[i - 1] <= values[i]);
+		}
+		assertEquals(snapshot.getMedian(), values[values.length / 2], 1000 * 0.04);
+		assertEquals(snapshot.get99thPercentile(), values[values.length * 99 / 100], 1000 * 0.04);
+	}
+
+	@Test
+	public void bucketedWindows() {
+		final AtomicLong tick = new AtomicLong();
+		final BucketedReservoir reservoir = new BucketedReservoir(1, TimeUnit.SECONDS, new Clock() {
+
+			@Override
+			public long getTick() {
+				return tick.get();
+			}
+
+		});
+
+		reservoir.update(10);
+		tick.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+		reservoir.update(20);
+		// the previous window is kept
+		assertEquals(2, reservoir.getSnapshot().size());
+		assertEquals(10, reservoir.getSnapshot().getMin());
+
+		tick.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+		reservoir.update(30);
+		assertEquals(2, reservoir.getSnapshot().size());
+		assertEquals(20, reservoir.getSnapshot().getMin());
+
+		tick.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		assertEquals(0, reservoir.getSnapshot().size());
+	}
+
+	@Test
+	public void registryWideAndPerAnnotationReservoirs() {
+		final AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(Config.class);
+		try {
+			final MetricRegistry registry = ctx.getBean(MetricRegistry.class);
+			final Target target = ctx.getBean(Target.class);
+
+			// registry-wide
+			assertTrue(registry.timer("plain").getSnapshot() instanceof BucketedReservoir.BucketSnapshot);
+			target.defaultTimed();
+			assertTrue(forTimedMethod(registry, Target.class, "defaultTimed").getSnapshot() instanceof BucketedReservoir.BucketSnapshot);
+
+			assertTrue(((Timer) forMetricField(registry, Target.class, "timer")).getSnapshot() instanceof BucketedReservoir.BucketSnapshot);
+
+			// per-annotation
+			final Histogram histogram = (Histogram) forMetricField(registry, Target.class, "histogram");
+			for (int i = 0; i < 5; i++) {
+				target.slidingTimed();
+				histogram.update(i);
+			}
+			assertEquals(5, forTimedMethod(registry, Target.class, "slidingTimed").getCount());
+			assertEquals(2, forTimedMethod(registry, Target.class, "slidingTimed").getSnapshot().size());
+			assertEquals(2, histogram.getSnapshot().size());
+		}
+		finally {
+			ctx.close();
+		}
+	}
+
+	@Configuration
+	@EnableMetrics(reservoir = Reservoir.Type.HDR, reservoirWindow = 30, reservoirWindowUnit = TimeUnit.SECONDS)
+	public static class Config {
+
+		@Bean
+		public Target target() {
+			return new Target();
+		}
+
+	}
+
+	public static class Target {
+
+		@Metric
+		@Reservoir(value = Reservoir.Type.SLIDING_WINDOW, size = 2)
+		Histogram histogram;
+
+		@Metric
+		Timer timer;
+
+		@Timed
+		public void defaultTimed() {}
+
+		@Timed
+		@Reservoir(value = Reservoir.Type.SLIDING_WINDOW, size = 2)
+		public void slidingTimed() {}
+
+	}
+
+}
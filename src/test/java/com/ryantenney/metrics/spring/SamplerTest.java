@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.codahale.metrics.Timer;
+
+public class SamplerTest {
+
+	@Test
+	public void everyNth() {
+		Sampler sampler = Sampler.everyNth(3);
+		StringBuilder samples = new StringBuilder();
+		for (int i = 0; i < 7; i++) {
+			samples.append(sampler.sample() ? 'x' : '-');
+		}
+		assertEquals("x--x--x", samples.toString());
+	}
+
+	@Test
+	public void everyCall() {
+		Sampler sampler = Sampler.everyNth(1);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(sampler.sample());
+		}
+	}
+
+	@Test
+	public void random() {
+		Sampler sampler = Sampler.random(10);
+		int sampled = 0;
+		for (int i = 0; i < 100000; i++) {
+			if (sampler.sample()) {
+				sampled++;
+			}
+		}
+		assertTrue("sampled " + sampled, sampled > 9000 && sampled < 11000);
+	}
+
+	@Test
+	public void sampledTimerScalesRates() {
+		SampledTimer timer = new SampledTimer(Sampler.everyNth(4));
+		for (int i = 0; i < 8; i++) {
+			Timer.Context context = timer.timeIfSampled();
+			if (context != null) {
+				context.close();
+			}
+		}
+		assertEquals(8, timer.getCount());
+		assertEquals(2, timer.getSampledCount());
+		assertTrue(timer.getMeanRate() > 0);
+	}
+
+}
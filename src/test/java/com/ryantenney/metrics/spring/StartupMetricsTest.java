@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.annotation.Timed;
+import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
+
+/**
+ * Tests the advice shared by beans of the same class, and the time recorded starting up.
+ */
+public class StartupMetricsTest {
+
+	@Test
+	public void beansOfTheSameClassShareTheirAdvice() {
+		final AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext(StartupMetricsConfig.class);
+		try {
+			final Object first = applicationContext.getBean("first");
+			final Object second = applicationContext.getBean("second");
+
+			assertNotSame(first, second);
+			assertTrue(AopUtils.isCglibProxy(first));
+			assertSame(((Advised) first).getAdvisors()[0], ((Advised) second).getAdvisors()[0]);
+		}
+		finally {
+			applicationContext.close();
+		}
+	}
+
+	@Test
+	public void proxyingIsTimed() {
+		final AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext(StartupMetricsConfig.class);
+		try {
+			final StartupMetrics startupMetrics = applicationContext.getBean(StartupMetrics.class);
+			final MetricRegistry metricRegistry = startupMetrics.getMetricRegistry();
+
+			assertTrue(startupMetrics.isEnabled());
+			assertEquals(2, metricRegistry.getTimers().get(StartupMetrics.PREFIX + ".proxy.timed").getCount());
+		}
+		finally {
+			applicationContext.close();
+		}
+	}
+
+	@Test
+	public void startupIsTimedPerBean() {
+		final ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("classpath:startup-metrics.xml");
+		try {
+			final StartupMetrics startupMetrics = applicationContext.getBean(StartupMetrics.class);
+			final MetricRegistry metricRegistry = applicationContext.getBean(MetricRegistry.class);
+			final Map<String, Timer> timers = metricRegistry.getTimers();
+
+			assertSame(metricRegistry, startupMetrics.getMetricRegistry());
+			assertEquals(2, timers.get(StartupMetrics.PREFIX + ".proxy.timed").getCount());
+			assertTrue(timers.get(StartupMetrics.PREFIX + ".process.gaugeField").getCount() >= 2);
+			assertEquals(1, timers.get(StartupMetrics.PREFIX + ".reporter.ConsoleReporter").getCount());
+
+			final Map<String, Long> stageTimes = startupMetrics.getStageTimes();
+			assertTrue(stageTimes.containsKey("proxy.timed"));
+			assertTrue(stageTimes.containsKey("process.metric"));
+			assertTrue(stageTimes.containsKey("reporter.ConsoleReporter"));
+
+			final Map<String, Long> beanTimes = startupMetrics.getBeanTimes();
+			assertTrue(beanTimes.containsKey("first"));
+			assertTrue(beanTimes.containsKey("second"));
+			assertTrue(beanTimes.containsKey("console"));
+
+			final String report = startupMetrics.report(1);
+			assertTrue(report.contains("proxy.timed: "));
+			assertTrue(report.contains("slowest beans:"));
+		}
+		finally {
+			applicationContext.close();
+		}
+	}
+
+	@Test
+	public void proxyingIsNotTimedByDefault() {
+		final AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext(DefaultConfig.class);
+		try {
+			assertEquals(0, applicationContext.getBeanNamesForType(StartupMetrics.class).length);
+			assertNull(applicationContext.getBean(MetricRegistry.class).getTimers().get(StartupMetrics.PREFIX + ".proxy.timed"));
+			assertNull(StartupMetrics.forBeanFactory(applicationContext));
+		}
+		finally {
+			applicationContext.close();
+		}
+	}
+
+	@Test
+	public void childContextPrefersItsOwnStartupMetrics() {
+		final AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext(StartupMetricsConfig.class);
+		try {
+			final AnnotationConfigApplicationContext child = new AnnotationConfigApplicationContext();
+			child.setParent(parent);
+			child.register(StartupMetricsConfig.class);
+			child.refresh();
+			try {
+				final StartupMetrics startupMetrics = child.getBean(StartupMetrics.class);
+				assertNotSame(parent.getBean(StartupMetrics.class), startupMetrics);
+				assertSame(startupMetrics, StartupMetrics.forBeanFactory(child));
+				assertEquals(2, startupMetrics.getMetricRegistry().getTimers().get(StartupMetrics.PREFIX + ".proxy.timed").getCount());
+			}
+			finally {
+				child.close();
+			}
+
+			// a child which hasn't opted in has no bean of its own
+			final AnnotationConfigApplicationContext defaultChild = new AnnotationConfigApplicationContext();
+			defaultChild.setParent(parent);
+			defaultChild.register(DefaultConfig.class);
+			defaultChild.refresh();
+			try {
+				assertEquals(0, defaultChild.getBeanNamesForType(StartupMetrics.class).length);
+				assertSame(parent.getBean(StartupMetrics.class), StartupMetrics.forBeanFactory(defaultChild));
+			}
+			finally {
+				defaultChild.close();
+			}
+		}
+		finally {
+			parent.close();
+		}
+	}
+
+	@Configuration
+	@EnableMetrics(startupMetrics = true)
+	public static class StartupMetricsConfig {
+
+		@Bean
+		public TimedBean first() {
+			return new TimedBean();
+		}
+
+		@Bean
+		public TimedBean second() {
+			return new TimedBean();
+		}
+
+	}
+
+	@Configuration
+	@EnableMetrics
+	public static class DefaultConfig {
+
+		@Bean
+		public TimedBean timedBean() {
+			return new TimedBean();
+		}
+
+	}
+
+	public static class TimedBean {
+
+		@Timed
+		public void timed() {}
+
+	}
+
+}
@@ -21,24 +21,44 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import com.codahale.metrics.SharedMetricRegistries;
+import com.ryantenney.metrics.spring.reporter.SpoolingGraphiteSenderTest;
 
 @RunWith(Suite.class)
 // @formatter:off
 @SuiteClasses({
+		AnnotatedMembersTest.class,
 		AopFieldInjectionInteractionTest.class,
+		ArchiveReporterTest.class,
+		AsyncTimedTest.class,
 		CovariantReturnTypeTest.class,
+		DeltaReporterTest.class,
 		EnableMetricsTest.class,
+		FusedMeteredClassTest.class,
 		HealthCheckTest.class,
+		InFlightCounterTest.class,
 		LegacyAnnotationMeteredClassTest.class,
 		LegacyMetricAnnotationTest.class,
+		MemberAccessorTest.class,
 		MeteredClassImpementsInterfaceTest.class,
 		MeteredClassTest.class,
 		MeteredInterfaceTest.class,
 		MetricAnnotationTest.class,
+		MetricFilterTest.class,
+		MetricTagTest.class,
+		MetricsAspectTest.class,
+		MetricsIndexTest.class,
+		MetricsSwitchTest.class,
+		NioGraphiteTest.class,
+		PrimitiveGaugesTest.class,
 		ProxyTargetClassTest.class,
+		RefreshableMetricRegistryTest.class,
 		RegistryTest.class,
 		ReporterTest.class,
-		SharedRegistryTest.class
+		ReservoirTest.class,
+		SamplerTest.class,
+		SharedRegistryTest.class,
+		SpoolingGraphiteSenderTest.class,
+		StartupMetricsTest.class
 	})
 // @formatter:on
 public class TestSuite {
@@ -164,16 +164,16 @@ class TestUtil {
 
 	private static com.codahale.metrics.Metric getMetric(MetricRegistry metricRegistry, Class<?> type, String metricName) {
 		log.info("Looking up injected metric field named '{}'", metricName);
-		if (type.isAssignableFrom(Meter.class)) {
+		if (Meter.class.isAssignableFrom(type)) {
 			return metricRegistry.getMeters().get(metricName);
 		}
-		else if (type.isAssignableFrom(Timer.class)) {
+		else if (Timer.class.isAssignableFrom(type)) {
 			return metricRegistry.getTimers().get(metricName);
 		}
-		else if (type.isAssignableFrom(Counter.class)) {
+		else if (Counter.class.isAssignableFrom(type)) {
 			return metricRegistry.getCounters().get(metricName);
 		}
-		else if (type.isAssignableFrom(Histogram.class)) {
+		else if (Histogram.class.isAssignableFrom(type)) {
 			return metricRegistry.getHistograms().get(metricName);
 		}
 		return null;
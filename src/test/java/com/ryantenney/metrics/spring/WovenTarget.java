@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring;
+
+import com.codahale.metrics.annotation.Metered;
+import com.codahale.metrics.annotation.Timed;
+
+/**
+ * A fixture woven with {@link MetricsAspect} by the AspectJ compiler when the tests are compiled;
+ * see the {@code aspectj-maven-plugin} in the POM. Its calls to itself and to a private method
+ * can't be seen by a proxy.
+ */
+public class WovenTarget {
+
+	@Timed(name = "woven.outer", absolute = true)
+	public void outer() {
+		inner();
+	}
+
+	@Timed(name = "woven.inner", absolute = true)
+	public void inner() {}
+
+	public void callPrivate() {
+		hidden();
+	}
+
+	@Metered(name = "woven.hidden", absolute = true)
+	private void hidden() {}
+
+}
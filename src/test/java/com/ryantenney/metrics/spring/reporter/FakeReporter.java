@@ -16,12 +16,14 @@
 package com.ryantenney.metrics.spring.reporter;
 
 import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.ScheduledReporter;
@@ -36,6 +38,7 @@ public class FakeReporter extends ScheduledReporter {
 	private long period;
 	private int calls = 0;
 	private boolean running = false;
+	private SortedMap<String, Metric> lastReport;
 
 	public FakeReporter(MetricRegistry registry, MetricFilter filter, String prefix, TimeUnit rateUnit, TimeUnit durationUnit) {
 		super(registry, "test-reporter", filter, rateUnit, durationUnit);
@@ -74,6 +77,13 @@ public class FakeReporter extends ScheduledReporter {
 		return calls;
 	}
 
+	/**
+	 * @return the metrics passed to the last report
+	 */
+	public SortedMap<String, Metric> getLastReport() {
+		return lastReport;
+	}
+
 	public boolean isRunning() {
 		return running;
 	}
@@ -95,6 +105,24 @@ public class FakeReporter extends ScheduledReporter {
 	@SuppressWarnings("rawtypes")
 	public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters, SortedMap<String, Histogram> histograms,
 			SortedMap<String, Meter> meters, SortedMap<String, Timer> timers) {
+		// read values as a real reporter would
+		for (Gauge gauge : gauges.values()) {
+			gauge.getValue();
+		}
+		for (Histogram histogram : histograms.values()) {
+			histogram.getSnapshot();
+		}
+		for (Timer timer : timers.values()) {
+			timer.getSnapshot();
+		}
+
+		final SortedMap<String, Metric> report = new TreeMap<String, Metric>();
+		report.putAll(gauges);
+		report.putAll(counters);
+		report.putAll(histograms);
+		report.putAll(meters);
+		report.putAll(timers);
+		lastReport = report;
 		calls++;
 	}
 
@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2012 Ryan W Tenney (ryan@10e.us)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ryantenney.metrics.spring.reporter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.graphite.GraphiteSender;
+
+public class SpoolingGraphiteSenderTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("metrics-spool", ".dat");
+		file.delete();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void ringBufferWrapsAndEvicts() throws IOException {
+		// 32 byte header, 40 bytes of records
+		MappedRingBuffer buffer = new MappedRingBuffer(file, 72);
+		try {
+			assertNull(buffer.peek());
+			assertTrue(buffer.append(bytes(1, 12)));
+			assertTrue(buffer.append(bytes(2, 12)));
+			assertEquals(2, buffer.size());
+
+			// evicts the first record, and wraps around the end
+			assertTrue(buffer.append(bytes(3, 12)));
+			assertEquals(2, buffer.size());
+			assertEquals(1, buffer.getEvicted());
+			assertArrayEquals(bytes(2, 12), buffer.peek());
+			buffer.remove();
+			assertArrayEquals(bytes(3, 12), buffer.peek());
+
+			assertFalse(buffer.append(bytes(4, 40)));
+		}
+		finally {
+			buffer.close();
+		}
+
+		// records survive reopening the file
+		buffer = new MappedRingBuffer(file, 72);
+		try {
+			assertEquals(1, buffer.size());
+			assertArrayEquals(bytes(3, 12), buffer.peek());
+			buffer.remove();
+			assertNull(buffer.peek());
+		}
+		finally {
+			buffer.close();
+		}
+	}
+
+	@Test
+	public void corruptRingBufferEmptiedOnOpen() throws IOException {
+		MappedRingBuffer buffer = new MappedRingBuffer(file, 72);
+		try {
+			assertTrue(buffer.append(bytes(1, 12)));
+			assertTrue(buffer.append(bytes(2, 12)));
+		}
+		finally {
+			buffer.close();
+		}
+
+		// overwrite the length of the first record, just after the header
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(32);
+			raf.writeInt(Integer.MAX_VALUE);
+		}
+		finally {
+			raf.close();
+		}
+
+		buffer = new MappedRingBuffer(file, 72);
+		try {
+			assertEquals(0, buffer.size());
+			assertNull(buffer.peek());
+			assertTrue(buffer.append(bytes(3, 12)));
+			assertArrayEquals(bytes(3, 12), buffer.peek());
+		}
+		finally {
+			buffer.close();
+		}
+	}
+
+	@Test
+	public void undecodableReportsDiscarded() throws IOException {
+		final MappedRingBuffer buffer = new MappedRingBuffer(file, 1 << 16);
+		try {
+			// a negative length, a length too large for the record, and text which isn't deflated
+			assertTrue(buffer.append(new byte[] { (byte) 0x80, 0, 0, 0, 1, 2, 3 }));
+			assertTrue(buffer.append(new byte[] { 0x7f, 0, 0, 0, 1, 2, 3 }));
+			assertTrue(buffer.append(new byte[] { 0, 0, 0, 3, 'f', 'o', 'o' }));
+			assertTrue(buffer.append(new byte[] { 1 }));
+		}
+		finally {
+			buffer.close();
+		}
+
+		final RecordingSender graphite = new RecordingSender();
+		final SpoolingGraphiteSender sender = new SpoolingGraphiteSender(graphite, file, 1 << 16, 10);
+		try {
+			assertEquals(4, sender.getPendingReports());
+			report(sender, 1);
+			assertEquals(Arrays.asList("foo-bar 1 1"), graphite.lines);
+			assertEquals(0, sender.getPendingReports());
+		}
+		finally {
+			sender.close();
+		}
+	}
+
+	@Test
+	public void spoolsWhileDownAndReplaysInOrder() throws IOException {
+		final RecordingSender graphite = new RecordingSender();
+		final SpoolingGraphiteSender sender = new SpoolingGraphiteSender(graphite, file, 1 << 16, 2);
+		try {
+			report(sender, 1);
+			assertEquals(Arrays.asList("foo-bar 1 1"), graphite.lines);
+
+			graphite.down = true;
+			report(sender, 2);
+			report(sender, 3);
+			report(sender, 4);
+			assertEquals(3, sender.getPendingReports());
+			assertEquals(3, sender.getSpooledReports());
+
+			// replays at most two spooled reports per flush, oldest first
+			graphite.down = false;
+			graphite.lines.clear();
+			report(sender, 5);
+			assertEquals(Arrays.asList("foo-bar 2 2", "foo-bar 3 3"), graphite.lines);
+			assertEquals(2, sender.getPendingReports());
+
+			report(sender, 6);
+			assertEquals(Arrays.asList("foo-bar 2 2", "foo-bar 3 3", "foo-bar 4 4", "foo-bar 5 5"), graphite.lines);
+
+			report(sender, 7);
+			assertEquals(Arrays.asList("foo-bar 2 2", "foo-bar 3 3", "foo-bar 4 4", "foo-bar 5 5", "foo-bar 6 6", "foo-bar 7 7"), graphite.lines);
+			assertEquals(0, sender.getPendingReports());
+			assertEquals(0, sender.getEvictedReports());
+		}
+		finally {
+			sender.close();
+		}
+	}
+
+	private static void report(final GraphiteSender sender, final int value) throws IOException {
+		if (!sender.isConnected()) {
+			sender.connect();
+		}
+		sender.send("foo bar", Integer.toString(value), value);
+		sender.flush();
+	}
+
+	private static byte[] bytes(final int value, final int length) {
+		final byte[] bytes = new byte[length];
+		Arrays.fill(bytes, (byte) value);
+		return bytes;
+	}
+
+	private static class RecordingSender implements GraphiteSender {
+
+		private final List<String> lines = new ArrayList<String>();
+		private final List<String> pending = new ArrayList<String>();
+		private boolean connected;
+		private boolean down;
+		private int failures;
+
+		@Override
+		public void connect() throws IOException {
+			if (down) {
+				failures++;
+				throw new IOException("Down");
+			}
+			connected = true;
+		}
+
+		@Override
+		public void send(String name, String value, long timestamp) {
+			pending.add(name + " " + value + " " + timestamp);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (down) {
+				failures++;
+				throw new IOException("Down");
+			}
+			lines.addAll(pending);
+			pending.clear();
+		}
+
+		@Override
+		public boolean isConnected() {
+			return connected;
+		}
+
+		@Override
+		public int getFailures() {
+			return failures;
+		}
+
+		@Override
+		public void close() {
+			connected = false;
+			pending.clear();
+		}
+
+	}
+
+}